@@ -0,0 +1,49 @@
+#!/usr/bin/env sh
+# Time to first request and resident memory of a cold start, over several runs.
+#
+#   scripts/measure-startup.sh [-n runs] [-u url] -- java [jvm options] -jar target/user-api-0.0.1-SNAPSHOT.jar [args]
+#
+# Each run starts the command, polls the URL (default: GET /api/users/id/1 on port 8080) until it answers
+# with any status, and reports the milliseconds from launch to that first response and the process's RSS
+# at that moment. The process is then stopped. The last line gives the median of each.
+set -eu
+
+runs=5
+url=http://localhost:8080/api/users/id/1
+while [ $# -gt 0 ]; do
+  case "$1" in
+    -n) runs=$2; shift 2 ;;
+    -u) url=$2; shift 2 ;;
+    --) shift; break ;;
+    *) echo "usage: $0 [-n runs] [-u url] -- command..." >&2; exit 2 ;;
+  esac
+done
+[ $# -gt 0 ] || { echo "usage: $0 [-n runs] [-u url] -- command..." >&2; exit 2; }
+
+now_ms() { echo $(( $(date +%s%N) / 1000000 )); }
+
+results=$(mktemp)
+trap 'rm -f "$results"' EXIT
+i=1
+while [ "$i" -le "$runs" ]; do
+  start=$(now_ms)
+  "$@" > /dev/null 2>&1 &
+  pid=$!
+  until [ "$(curl -s -o /dev/null -w '%{http_code}' "$url" || true)" != "000" ]; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "run $i: the application exited before answering $url" >&2
+      exit 1
+    fi
+    sleep 0.02
+  done
+  elapsed=$(( $(now_ms) - start ))
+  rss=$(awk '/^VmRSS/ { print int($2 / 1024) }' "/proc/$pid/status")
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  echo "run $i: first response after ${elapsed} ms, RSS ${rss} MB"
+  echo "$elapsed $rss" >> "$results"
+  i=$((i + 1))
+done
+
+median() { sort -n | awk '{ v[NR] = $1 } END { print (NR % 2 ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2)) }'; }
+echo "median over $runs runs: first response after $(cut -d' ' -f1 "$results" | median) ms, RSS $(cut -d' ' -f2 "$results" | median) MB"
@@ -0,0 +1,71 @@
+package com.example.userapi.benchmark;
+
+import com.example.userapi.model.User;
+import com.example.userapi.support.UserFixtures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * In-JVM age ordering. {@code fullSort} is what {@code getUsersSortedByAge} did before it moved to the
+ * (birth_date, id) index; {@code youngestTwenty} is the cheapest in-memory alternative for a top-N page.
+ * Compare with {@link UserQueryBenchmark} for the database-side version.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+public class AgeSortBenchmark {
+
+    private static final Comparator<User> BY_BIRTH_DATE = Comparator.comparing(User::getBirthDate);
+
+    @Param({"1000", "100000", "1000000"})
+    private int users;
+
+    private List<User> all;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        all = UserFixtures.users(BenchmarkSupport.objectMapper(), users);
+        Collections.shuffle(all);
+    }
+
+    @Benchmark
+    public List<User> fullSort() {
+        return all.stream().sorted(BY_BIRTH_DATE.reversed()).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<User> youngestTwenty() {
+        PriorityQueue<User> top = new PriorityQueue<>(21, BY_BIRTH_DATE);
+        for (User user : all) {
+            top.offer(user);
+            if (top.size() > 20) {
+                top.poll();
+            }
+        }
+        List<User> result = new ArrayList<>(top);
+        result.sort(BY_BIRTH_DATE.reversed());
+        return result;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.userapi.benchmark;
+
+import com.example.userapi.UserApiApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ch.qos.logback.classic.Level;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shared setup for the benchmarks.
+ */
+final class BenchmarkSupport {
+
+    static {
+        // Without Spring, Logback falls back to DEBUG on the console, which would swamp the measurements.
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * An ObjectMapper configured the same way Spring Boot configures the application's.
+     */
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    /**
+     * Start the application without a web server. The test classpath puts it on the embedded
+     * H2 database (see src/test/resources/config/application.properties). Settings are passed as
+     * command-line arguments, so they win over application.properties.
+     */
+    static ConfigurableApplicationContext startApplication(String... properties) {
+        return new SpringApplicationBuilder(UserApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run(arguments(List.of(), properties));
+    }
+
+    /**
+     * Start the application with its web server on a free port, read back from
+     * {@code local.server.port}. The initializer runs before any bean is created. Settings are passed
+     * as command-line arguments: every request goes through the web and service loggers, so their
+     * DEBUG and INFO lines from application.properties have to be overridden, not just defaulted.
+     */
+    static ConfigurableApplicationContext startWebApplication(
+            ApplicationContextInitializer<ConfigurableApplicationContext> initializer, String... properties) {
+        return new SpringApplicationBuilder(UserApiApplication.class)
+                .logStartupInfo(false)
+                .initializers(initializer)
+                .run(arguments(List.of("server.port=0"), properties));
+    }
+
+    /**
+     * Quiet logging, {@code defaults}, then {@code properties}, as command-line arguments. A repeated
+     * argument would be joined to the earlier one with a comma, so later settings replace earlier ones here.
+     */
+    private static String[] arguments(List<String> defaults, String... properties) {
+        Map<String, String> settings = new LinkedHashMap<>();
+        List<String> all = new ArrayList<>(List.of("logging.level.root=WARN", "logging.level.com.example.userapi=WARN",
+                "logging.level.org.springframework.web=WARN"));
+        all.addAll(defaults);
+        all.addAll(List.of(properties));
+        for (String property : all) {
+            int equals = property.indexOf('=');
+            settings.put(property.substring(0, equals), property.substring(equals + 1));
+        }
+        return settings.entrySet().stream().map(e -> "--" + e.getKey() + "=" + e.getValue()).toArray(String[]::new);
+    }
+}
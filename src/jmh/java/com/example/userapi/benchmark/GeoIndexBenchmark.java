@@ -0,0 +1,105 @@
+package com.example.userapi.benchmark;
+
+import com.example.userapi.service.geo.GeoGridIndex;
+import com.example.userapi.service.geo.GeoHit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GeoGridIndex} queries over uniformly spread points, against the full scan that computes
+ * the haversine distance of every point. Query points rotate through a fixed random set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+public class GeoIndexBenchmark {
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final int QUERY_POINTS = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    private int users;
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private double[][] queries;
+    private GeoGridIndex index;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        latitudes = new double[users];
+        longitudes = new double[users];
+        for (int i = 0; i < users; i++) {
+            latitudes[i] = Math.toDegrees(Math.asin(2 * random.nextDouble() - 1));
+            longitudes[i] = random.nextDouble() * 360 - 180;
+        }
+        queries = new double[QUERY_POINTS][];
+        for (int i = 0; i < QUERY_POINTS; i++) {
+            queries[i] = new double[] {Math.toDegrees(Math.asin(2 * random.nextDouble() - 1)), random.nextDouble() * 360 - 180};
+        }
+        index = GeoGridIndex.build(0.5, sink -> {
+            for (int i = 0; i < users; i++) {
+                sink.accept(i + 1, latitudes[i], longitudes[i]);
+            }
+        });
+    }
+
+    private double[] nextQuery() {
+        return queries[next++ & (QUERY_POINTS - 1)];
+    }
+
+    @Benchmark
+    public List<GeoHit> withinRadius50Km() {
+        double[] q = nextQuery();
+        return index.withinRadius(q[0], q[1], 50, 100);
+    }
+
+    @Benchmark
+    public List<GeoHit> nearestTen() {
+        double[] q = nextQuery();
+        return index.nearest(q[0], q[1], 10);
+    }
+
+    @Benchmark
+    public long[] withinOneDegreeBox() {
+        double[] q = nextQuery();
+        return index.withinBox(q[0] - 0.5, q[1] - 0.5, q[0] + 0.5, q[1] + 0.5, Long.MIN_VALUE, 100);
+    }
+
+    @Benchmark
+    public int fullScanRadius50Km() {
+        double[] q = nextQuery();
+        double latitude = Math.toRadians(q[0]);
+        int found = 0;
+        for (int i = 0; i < users; i++) {
+            double otherLatitude = Math.toRadians(latitudes[i]);
+            double sinLatitude = Math.sin((otherLatitude - latitude) / 2);
+            double sinLongitude = Math.sin(Math.toRadians(longitudes[i] - q[1]) / 2);
+            double a = sinLatitude * sinLatitude + Math.cos(latitude) * Math.cos(otherLatitude) * sinLongitude * sinLongitude;
+            if (2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a)) <= 50) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.userapi.benchmark;
+
+import com.example.userapi.model.User;
+import com.example.userapi.repository.UserBulkRepository;
+import com.example.userapi.repository.UserRepository;
+import com.example.userapi.support.UserFixtures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repeat reads through {@code UserRepository} against a populated embedded H2 table, with Hibernate's
+ * second-level and query caches on and off: users by id and by SSN, cycling through the first 1,000,
+ * and the first 100-user page of a role. Spring's own caches sit above the repository, so they play no part.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+public class HibernateCacheBenchmark {
+
+    private static final int HOT_USERS = 1_000;
+    private static final PageRequest HUNDRED = PageRequest.of(0, 100);
+
+    @Param({"1000", "100000", "1000000"})
+    private int users;
+
+    @Param({"false", "true"})
+    private boolean cache;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private String[] ssns;
+    private String role;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.startApplication("users.hibernate-cache.enabled=" + cache);
+        userRepository = context.getBean(UserRepository.class);
+        UserBulkRepository bulk = context.getBean(UserBulkRepository.class);
+        List<User> all = UserFixtures.users(BenchmarkSupport.objectMapper(), users);
+        for (int from = 0; from < all.size(); from += 10_000) {
+            bulk.upsert(all.subList(from, Math.min(all.size(), from + 10_000)));
+        }
+        ssns = all.stream().limit(HOT_USERS).map(User::getSsn).toArray(String[]::new);
+        role = all.get(0).getRole();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private int nextUser() {
+        next = (next + 7) % ssns.length;
+        return next;
+    }
+
+    @Benchmark
+    public Optional<User> byId() {
+        return userRepository.findById(nextUser() + 1L);
+    }
+
+    @Benchmark
+    public Optional<User> bySsn() {
+        return userRepository.findBySsn(ssns[nextUser()]);
+    }
+
+    @Benchmark
+    public List<User> firstPageOfRole() {
+        return userRepository.findByRoleAndIdGreaterThanOrderByIdAsc(role, 0L, HUNDRED);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.userapi.benchmark;
+
+import com.example.userapi.config.LocalDateDeserializer;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deserializing the {@code birthDate} of every row in an import: the char-buffer fast path in
+ * {@link LocalDateDeserializer} against the formatter loop it replaced. Like the upstream data,
+ * half the dates are unpadded, which made the old path throw and catch once per row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+public class LocalDateDeserializerBenchmark {
+
+    private static final DateTimeFormatter[] FORMATTERS = {
+        DateTimeFormatter.ofPattern("yyyy-MM-dd"),
+        DateTimeFormatter.ofPattern("yyyy-M-d")
+    };
+
+    @Param({"1000", "100000", "1000000"})
+    private int rows;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final LocalDateDeserializer deserializer = new LocalDateDeserializer();
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        StringBuilder json = new StringBuilder(rows * 14).append('[');
+        for (int i = 0; i < rows; i++) {
+            int month = i % 12 + 1;
+            int day = i % 28 + 1;
+            json.append(i == 0 ? "\"" : ",\"").append(1950 + i % 50)
+                    .append(i % 2 == 0 ? String.format("-%d-%d", month, day) : String.format("-%02d-%02d", month, day))
+                    .append('"');
+        }
+        payload = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void fastPath(Blackhole blackhole) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                blackhole.consume(deserializer.deserialize(parser, null));
+            }
+        }
+    }
+
+    @Benchmark
+    public void formatterPath(Blackhole blackhole) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(payload)) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                blackhole.consume(parseWithFormatters(parser.getText().trim()));
+            }
+        }
+    }
+
+    private static LocalDate parseWithFormatters(String value) throws IOException {
+        for (DateTimeFormatter formatter : FORMATTERS) {
+            try {
+                return LocalDate.parse(value, formatter);
+            } catch (DateTimeParseException e) {
+                // try the next format
+            }
+        }
+        throw new IOException("Invalid date format: '" + value + "'");
+    }
+}
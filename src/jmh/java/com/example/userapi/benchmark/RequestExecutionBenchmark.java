@@ -0,0 +1,131 @@
+package com.example.userapi.benchmark;
+
+import com.example.userapi.model.User;
+import com.example.userapi.repository.UserBulkRepository;
+import com.example.userapi.support.UserFixtures;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A load test over real HTTP: {@code @Threads} clients each send {@code GET /api/users/id/{id}} back
+ * to back against the application on platform threads (the default) and with
+ * {@code users.threads.virtual=true}. Every statement takes {@code dbLatencyMillis} longer, as on a
+ * remote database that has slowed down, and the caches are off so each request reaches it. Compare
+ * throughput and the p0.99 of sample mode; the {@code ok}, {@code rejected} and {@code failed} counters
+ * split the responses into 200s, 503s from the concurrency limit, and anything else (a 500 once a request
+ * has waited out Hikari's connection timeout).
+ * <p>
+ * Virtual threads need Java 21; on an older JVM the virtual run fails to start, so run it with
+ * {@code -jvm /path/to/jdk-21/bin/java}. Change the client count with {@code -t}, and see what the
+ * concurrency limit is worth with {@code -p virtual=true -p maxConcurrentRequests=100000}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 20)
+@Threads(400)
+public class RequestExecutionBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int SEED_CHUNK = 1_000;
+
+    @Param({"false", "true"})
+    private boolean virtual;
+
+    /** Per statement. At 200 ms the 10 pooled connections cap the rate at 50 requests/s, below what one core serves. */
+    @Param({"20", "200"})
+    private int dbLatencyMillis;
+
+    /** {@code users.threads.max-concurrent-requests} when virtual: 0 is the Hikari pool size, 100000 as good as none. */
+    @Param({"0"})
+    private int maxConcurrentRequests;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI base;
+
+    /** Responses by outcome, reported by JMH as rates alongside the request rate. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Responses {
+        public long ok;
+        public long rejected;
+        public long failed;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            ok = 0;
+            rejected = 0;
+            failed = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkSupport.startWebApplication(
+                applicationContext -> applicationContext.getBeanFactory()
+                        .addBeanPostProcessor(new SlowDatabase(Duration.ofMillis(dbLatencyMillis))),
+                "users.threads.virtual=" + virtual, "users.threads.max-concurrent-requests=" + maxConcurrentRequests,
+                "spring.cache.type=none", "users.hibernate-cache.enabled=false");
+        UserBulkRepository userBulkRepository = context.getBean(UserBulkRepository.class);
+        ObjectReader reader = BenchmarkSupport.objectMapper().readerFor(User.class);
+        for (int from = 1; from <= USERS; from += SEED_CHUNK) {
+            List<User> chunk = new ArrayList<>(SEED_CHUNK);
+            for (long id = from; id < from + SEED_CHUNK; id++) {
+                chunk.add(reader.readValue(UserFixtures.userJson(id)));
+            }
+            userBulkRepository.upsert(chunk);
+        }
+        base = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/users/id/");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getById(Responses responses) throws IOException, InterruptedException {
+        long id = ThreadLocalRandom.current().nextLong(1, USERS + 1);
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(base.resolve(Long.toString(id))).build(),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 200) {
+            responses.ok++;
+        } else if (response.statusCode() == 503) {
+            responses.rejected++;
+        } else {
+            responses.failed++;
+        }
+        return response.statusCode();
+    }
+}
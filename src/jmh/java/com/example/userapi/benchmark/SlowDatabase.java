@@ -0,0 +1,65 @@
+package com.example.userapi.benchmark;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Makes the embedded database behave like a remote one: every statement execution sleeps for a fixed
+ * latency while holding its connection, as a network round trip to a slow database would.
+ */
+final class SlowDatabase implements BeanPostProcessor {
+
+    private final long latencyMillis;
+
+    SlowDatabase(Duration latency) {
+        this.latencyMillis = latency.toMillis();
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource) || latencyMillis == 0) {
+            return bean;
+        }
+        return new DelegatingDataSource((DataSource) bean) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return proxy(Connection.class, super.getConnection());
+            }
+        };
+    }
+
+    private <T> T proxy(Class<T> type, T target) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getName().startsWith("execute")) {
+                Thread.sleep(latencyMillis);
+            }
+            Object result = invoke(method, target, args);
+            if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                return proxy(statementType(method), result);
+            }
+            return result;
+        }));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<Object> statementType(Method method) {
+        return (Class<Object>) method.getReturnType();
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.userapi.benchmark;
+
+import com.example.userapi.model.User;
+import com.example.userapi.repository.UserBulkRepository;
+import com.example.userapi.service.export.ExportFormat;
+import com.example.userapi.service.export.UserExportService;
+import com.example.userapi.support.UserFixtures;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full exports from embedded H2 in each format, plain and gzipped, to a stream that only counts
+ * bytes. Besides exports per second, JMH reports the {@code rows} and {@code bytes} counters per
+ * second: rows/s is the throughput to compare, bytes/s over rows/s the size of a row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+public class UserExportBenchmark {
+
+    private static final int SEED_CHUNK = 10_000;
+
+    @Param({"1000", "100000", "1000000"})
+    private int users;
+
+    @Param({"CSV", "NDJSON", "COLUMNAR"})
+    private ExportFormat format;
+
+    @Param({"false", "true"})
+    private boolean gzip;
+
+    private ConfigurableApplicationContext context;
+    private UserExportService userExportService;
+
+    /** Rows and bytes written, reported by JMH as rates alongside the export rate. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Written {
+        public long rows;
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            rows = 0;
+            bytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        context = BenchmarkSupport.startApplication();
+        userExportService = context.getBean(UserExportService.class);
+        UserBulkRepository userBulkRepository = context.getBean(UserBulkRepository.class);
+        ObjectMapper objectMapper = BenchmarkSupport.objectMapper();
+        ObjectReader reader = objectMapper.readerFor(User.class);
+        // In chunks, so a million users never sit on the heap as objects at once.
+        for (int from = 1; from <= users; from += SEED_CHUNK) {
+            List<User> chunk = new ArrayList<>(SEED_CHUNK);
+            for (long id = from; id < from + SEED_CHUNK && id <= users; id++) {
+                chunk.add(reader.readValue(UserFixtures.userJson(id)));
+            }
+            userBulkRepository.upsert(chunk);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long export(Written written) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        long rows = userExportService.export(format, out, gzip);
+        written.rows += rows;
+        written.bytes += out.count;
+        return rows;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
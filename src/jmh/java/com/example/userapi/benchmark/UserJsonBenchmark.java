@@ -0,0 +1,68 @@
+package com.example.userapi.benchmark;
+
+import com.example.userapi.model.User;
+import com.example.userapi.service.ingest.UpstreamUserClient;
+import com.example.userapi.service.ingest.UserPage;
+import com.example.userapi.support.UserFixtures;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing a dummyjson-style {@code users} payload into {@link User} (the path {@code loadUsers} takes,
+ * including {@code LocalDateDeserializer}) and serializing a {@code List<User>} response body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+public class UserJsonBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int users;
+
+    private byte[] payload;
+    private UpstreamUserClient client;
+    private List<User> parsed;
+    private ObjectWriter listWriter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = BenchmarkSupport.objectMapper();
+        payload = UserFixtures.payload(users);
+        client = new UpstreamUserClient(new RestTemplate(), objectMapper, "http://localhost/users");
+        parsed = deserialize().getUsers();
+        listWriter = objectMapper.writerFor(objectMapper.getTypeFactory().constructCollectionType(List.class, User.class));
+    }
+
+    @Benchmark
+    public UserPage deserialize() throws IOException {
+        return client.parsePage(new ByteArrayInputStream(payload), users);
+    }
+
+    @Benchmark
+    public void serialize() throws IOException {
+        listWriter.writeValue(OutputStream.nullOutputStream(), parsed);
+    }
+}
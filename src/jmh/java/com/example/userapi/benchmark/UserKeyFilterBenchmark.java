@@ -0,0 +1,98 @@
+package com.example.userapi.benchmark;
+
+import com.example.userapi.event.UsersLoadedEvent;
+import com.example.userapi.exception.UserNotFoundException;
+import com.example.userapi.model.User;
+import com.example.userapi.repository.UserBulkRepository;
+import com.example.userapi.service.UserService;
+import com.example.userapi.support.UserFixtures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code UserService} lookups of ids and SSNs that do not exist, with the key filter answering them
+ * in-process versus each one going to the database, and of ids that do exist, which pay for the
+ * filter check on top of the query. Caching is off, as it would hide the database either way.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+public class UserKeyFilterBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int users;
+
+    @Param({"false", "true"})
+    private boolean filter;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private long next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // ERROR, as every database miss logs a warning.
+        context = BenchmarkSupport.startApplication("users.key-filter.enabled=" + filter,
+                "logging.level.com.example.userapi=ERROR");
+        userService = context.getBean(UserService.class);
+        UserBulkRepository bulk = context.getBean(UserBulkRepository.class);
+        List<User> all = UserFixtures.users(BenchmarkSupport.objectMapper(), users);
+        for (int from = 0; from < all.size(); from += 10_000) {
+            bulk.upsert(all.subList(from, Math.min(all.size(), from + 10_000)));
+        }
+        // Rebuild the filter at its full size, as after a load.
+        context.publishEvent(new UsersLoadedEvent(true, null));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private long nextId() {
+        next = (next + 7919) % users;
+        return next + 1;
+    }
+
+    @Benchmark
+    public Object missingId() {
+        try {
+            return userService.getUserById(users + nextId(), false);
+        } catch (UserNotFoundException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object missingSsn() {
+        try {
+            return userService.getUserBySSN(UserFixtures.ssn(users + nextId()), false);
+        } catch (UserNotFoundException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public User existingId() {
+        return userService.getUserById(nextId(), false);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.userapi.benchmark;
+
+import com.example.userapi.model.User;
+import com.example.userapi.repository.BulkWriteResult;
+import com.example.userapi.repository.UserBulkRepository;
+import com.example.userapi.repository.UserRepository;
+import com.example.userapi.support.UserFixtures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing a full load into an empty table against embedded H2: {@code UserRepository.saveAll}
+ * (one merge per row) versus {@code UserBulkRepository.upsert} (multi-row statements).
+ * Each invocation is one full load, so this runs in single-shot mode; expect saveAll at
+ * 1M users to take many minutes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class UserPersistenceBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int users;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private UserBulkRepository userBulkRepository;
+    private List<User> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.startApplication();
+        userRepository = context.getBean(UserRepository.class);
+        userBulkRepository = context.getBean(UserBulkRepository.class);
+        batch = UserFixtures.users(BenchmarkSupport.objectMapper(), users);
+    }
+
+    @Setup(Level.Invocation)
+    public void emptyTable() {
+        userRepository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<User> saveAll() {
+        return userRepository.saveAll(batch);
+    }
+
+    @Benchmark
+    public BulkWriteResult bulkUpsert() {
+        return userBulkRepository.upsert(batch);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.userapi.benchmark;
+
+import com.example.userapi.model.User;
+import com.example.userapi.repository.UserBulkRepository;
+import com.example.userapi.repository.UserRepository;
+import com.example.userapi.support.UserFixtures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Read paths against a populated embedded H2 table: the 20 youngest users through the
+ * (birth_date, id) index versus loading the table and sorting, and one keyset page of
+ * {@code GET /api/users}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+public class UserQueryBenchmark {
+
+    private static final PageRequest TWENTY = PageRequest.of(0, 20);
+    private static final PageRequest HUNDRED = PageRequest.of(0, 100);
+
+    @Param({"1000", "100000", "1000000"})
+    private int users;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkSupport.startApplication();
+        userRepository = context.getBean(UserRepository.class);
+        UserBulkRepository bulk = context.getBean(UserBulkRepository.class);
+        List<User> all = UserFixtures.users(BenchmarkSupport.objectMapper(), users);
+        for (int from = 0; from < all.size(); from += 10_000) {
+            bulk.upsert(all.subList(from, Math.min(all.size(), from + 10_000)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<User> youngestTwentyByIndex() {
+        return userRepository.findYoungestFirst(LocalDate.of(1, 1, 1), LocalDate.of(9999, 12, 31), Long.MAX_VALUE, TWENTY);
+    }
+
+    @Benchmark
+    public List<User> youngestTwentyByFindAllAndSort() {
+        return userRepository.findAll().stream()
+                .sorted(Comparator.comparing(User::getBirthDate).reversed())
+                .limit(20)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<User> keysetPageInTheMiddle() {
+        return userRepository.findByIdGreaterThanOrderByIdAsc((long) users / 2, HUNDRED);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.userapi.benchmark;
+
+import com.example.userapi.model.User;
+import com.example.userapi.service.search.SearchDocument;
+import com.example.userapi.service.search.SearchHit;
+import com.example.userapi.service.search.UserSearchIndex;
+import com.example.userapi.support.UserFixtures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One 20-hit page from {@link UserSearchIndex}. The queries span the cases that cost the most:
+ * a prefix shared by a seventh of all users, two names, a typo, a near-unique username, and a
+ * company word every generated user has.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+public class UserSearchBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int users;
+
+    @Param({"emi", "emily johnson", "jonhson", "user12345", "dooley"})
+    private String query;
+
+    private UserSearchIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<User> all = UserFixtures.users(BenchmarkSupport.objectMapper(), users);
+        index = UserSearchIndex.build(sink -> all.forEach(user -> sink.accept(SearchDocument.of(user))));
+    }
+
+    @Benchmark
+    public List<SearchHit> firstPage() {
+        return index.search(query, Integer.MAX_VALUE, Long.MIN_VALUE, 20);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.userapi.benchmark;
+
+import com.example.userapi.model.User;
+import com.example.userapi.service.snapshot.ColumnarUserStore;
+import com.example.userapi.service.snapshot.UserSnapshot;
+import com.example.userapi.support.UserFixtures;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads served from the columnar {@link UserSnapshot}, which materializes users per request,
+ * against serializing the same users straight from a list of {@code User} objects, as the snapshot
+ * did before. The difference is the price of keeping the snapshot a few hundred bytes a user.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms8g", "-Xmx8g"})
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+public class UserSnapshotBenchmark {
+
+    private static final int PAGE = 100;
+
+    @Param({"1000", "100000", "1000000"})
+    private int users;
+
+    @Param({"false", "true"})
+    private boolean offHeap;
+
+    private ObjectMapper objectMapper;
+    private List<User> objects;
+    private UserSnapshot snapshot;
+    private long next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = BenchmarkSupport.objectMapper();
+        objects = UserFixtures.users(objectMapper, users);
+        ColumnarUserStore.Builder builder = ColumnarUserStore.builder(offHeap);
+        objects.forEach(builder::add);
+        snapshot = new UserSnapshot(builder.build(), Instant.now());
+    }
+
+    private long nextId() {
+        // Stride through the ids so consecutive reads do not share cache lines.
+        next = (next + 7919) % users;
+        return next + 1;
+    }
+
+    @Benchmark
+    public String byIdFromSnapshot() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(snapshot.byId(nextId()));
+    }
+
+    @Benchmark
+    public String byIdFromObjects() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(objects.get((int) nextId() - 1));
+    }
+
+    @Benchmark
+    public String pageFromSnapshot() throws JsonProcessingException {
+        long afterId = Math.max(0, nextId() - PAGE);
+        return objectMapper.writeValueAsString(snapshot.page(afterId, PAGE));
+    }
+
+    @Benchmark
+    public String pageFromObjects() throws JsonProcessingException {
+        int from = (int) Math.max(0, nextId() - PAGE);
+        return objectMapper.writeValueAsString(objects.subList(from, Math.min(users, from + PAGE)));
+    }
+}
@@ -1,13 +1,93 @@
 package com.example.userapi.config;
 
+import com.example.userapi.service.ingest.CircuitBreaker;
+import com.example.userapi.service.ingest.UpstreamRetryInterceptor;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpRequestRetryHandler;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 public class AppConfig {
+    /**
+     * Client for the upstream users API: built from Boot's {@link RestTemplateBuilder} so calls are recorded
+     * as {@code http.client.requests}, on a pooled HttpClient, with retries and a circuit breaker.
+     */
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder builder, CloseableHttpClient upstreamHttpClient,
+                                     CircuitBreaker upstreamCircuitBreaker,
+                                     @Value("${external.api.users.retry.max-attempts:3}") int maxAttempts,
+                                     @Value("${external.api.users.retry.initial-backoff:200ms}") Duration initialBackoff,
+                                     @Value("${external.api.users.retry.max-backoff:5s}") Duration maxBackoff) {
+        return builder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(upstreamHttpClient))
+                .additionalInterceptors(new UpstreamRetryInterceptor(maxAttempts, initialBackoff, maxBackoff,
+                        upstreamCircuitBreaker))
+                .build();
+    }
+
+    /**
+     * Pooled keep-alive connections with connect, read and pool-wait timeouts. Responses are
+     * requested and decompressed as gzip/deflate by HttpClient itself. HttpClient only resends a
+     * request once when a pooled connection turns out to be stale; timeouts and error statuses
+     * are retried by {@link UpstreamRetryInterceptor}.
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient upstreamHttpClient(
+            @Value("${external.api.users.pool.max-connections:20}") int maxConnections,
+            @Value("${external.api.users.pool.acquire-timeout:5s}") Duration acquireTimeout,
+            @Value("${external.api.users.pool.keep-alive:30s}") Duration keepAlive,
+            @Value("${external.api.users.connect-timeout:2s}") Duration connectTimeout,
+            @Value("${external.api.users.read-timeout:10s}") Duration readTimeout) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        connectionManager.setValidateAfterInactivity((int) Math.min(keepAlive.toMillis(), Integer.MAX_VALUE));
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) connectTimeout.toMillis())
+                .setSocketTimeout((int) readTimeout.toMillis())
+                .setConnectionRequestTimeout((int) acquireTimeout.toMillis())
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy((response, context) -> {
+                    long advertised = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+                    return advertised > 0 ? Math.min(advertised, keepAlive.toMillis()) : keepAlive.toMillis();
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAlive.toMillis(), TimeUnit.MILLISECONDS)
+                .setRetryHandler(new DefaultHttpRequestRetryHandler(1, false))
+                .build();
+    }
+
+    @Bean
+    public CircuitBreaker upstreamCircuitBreaker(
+            @Value("${external.api.users.circuit-breaker.failure-threshold:5}") int failureThreshold,
+            @Value("${external.api.users.circuit-breaker.open-duration:30s}") Duration openDuration) {
+        return new CircuitBreaker(failureThreshold, openDuration);
+    }
+
+    /**
+     * Backs {@code @Timed} on service methods.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
     }
 }
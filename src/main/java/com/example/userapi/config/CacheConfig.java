@@ -0,0 +1,16 @@
+package com.example.userapi.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Point-lookup caches. Sizing, TTL and stats recording come from {@code spring.cache.caffeine.spec};
+ * hit, miss and eviction counts are published as {@code cache.*} metrics by Actuator.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String USERS_BY_ID = "usersById";
+    public static final String USERS_BY_SSN = "usersBySsn";
+}
@@ -0,0 +1,105 @@
+package com.example.userapi.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps how many requests are inside the application at once. On virtual threads nothing else does:
+ * every connection gets a thread, and the excess would queue for a database connection instead,
+ * where Hikari fails it only after its connection timeout. Here a request waits at most
+ * {@code maxWait} for a permit and is otherwise answered 503 with {@code Retry-After}.
+ * <p>
+ * A streaming response keeps its permit until the async request completes, since it holds a
+ * connection for as long as it writes.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final int limit;
+    private final long maxWaitNanos;
+    private final Counter rejected;
+
+    public ConcurrencyLimitFilter(int limit, Duration maxWait, MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(limit, true);
+        this.limit = limit;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.rejected = Counter.builder("users.requests.rejected")
+                .description("Requests answered 503 because the concurrency limit stayed full").register(meterRegistry);
+        Gauge.builder("users.requests.active", this, filter -> filter.limit - filter.permits.availablePermits())
+                .description("Requests holding a concurrency permit").register(meterRegistry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try {
+            if (!permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                rejected.increment();
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many concurrent requests");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value());
+            return;
+        }
+
+        Permit permit = new Permit();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(permit);
+            } else {
+                permit.release();
+            }
+        }
+    }
+
+    private final class Permit implements AsyncListener {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.userapi.config;
+
+import com.example.userapi.service.DatasetVersion;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * Conditional GETs for the read endpoints. Every response carries an ETag naming the current
+ * {@link DatasetVersion} and the configured {@code Cache-Control}; a request whose
+ * {@code If-None-Match} names the current version is answered 304 right here, before any
+ * controller, query or serialization runs.
+ * <p>
+ * The ETags are weak ({@code W/"..."}): one version is sent both gzip-compressed and not, which
+ * rules out a strong validator, and Tomcat leaves responses with a strong ETag uncompressed.
+ * {@code If-None-Match} compares weakly anyway. Load job status changes while a load runs, so
+ * {@code /load/...} is left alone. Age ranges are counted from today, so a request to the dated
+ * path with {@code minAge} or {@code maxAge} also has the date in its tag.
+ */
+public class DatasetETagFilter extends OncePerRequestFilter {
+
+    private final DatasetVersion datasetVersion;
+    private final String cacheControl;
+    private final String excludedPrefix;
+    private final String datedPath;
+
+    public DatasetETagFilter(DatasetVersion datasetVersion, String cacheControl, String excludedPrefix, String datedPath) {
+        this.datasetVersion = datasetVersion;
+        this.cacheControl = cacheControl;
+        this.excludedPrefix = excludedPrefix;
+        this.datedPath = datedPath;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            return true;
+        }
+        return request.getRequestURI().startsWith(request.getContextPath() + excludedPrefix);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // Read before the data is, so a load finishing mid-request can only make the tag older than the body.
+        String version = datasetVersion.current();
+        if (request.getRequestURI().equals(request.getContextPath() + datedPath)
+                && (request.getParameter("minAge") != null || request.getParameter("maxAge") != null)) {
+            version += "-" + LocalDate.now();
+        }
+        String etag = "W/\"" + version + "\"";
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
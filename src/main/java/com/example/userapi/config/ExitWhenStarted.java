@@ -0,0 +1,27 @@
+package com.example.userapi.config;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * With {@code users.startup.exit-when-started=true}, the application exits as soon as its context has
+ * started, before the startup work that reads the database. The Docker build starts it this way once to
+ * record every class it loads in a class-data-sharing archive, which the image then starts from.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "users.startup.exit-when-started", havingValue = "true")
+public class ExitWhenStarted implements ApplicationListener<ApplicationStartedEvent> {
+
+    @Override
+    public void onApplicationEvent(ApplicationStartedEvent event) {
+        log.info("Started in {} ms; exiting as users.startup.exit-when-started is set.", event.getTimeTaken().toMillis());
+        // Refresh has returned by now, so closing the context here cannot deadlock with the shutdown hook.
+        System.exit(SpringApplication.exit(event.getApplicationContext()));
+    }
+}
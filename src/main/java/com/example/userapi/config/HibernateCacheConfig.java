@@ -0,0 +1,118 @@
+package com.example.userapi.config;
+
+import com.example.userapi.model.User;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.persistence.EntityManagerFactory;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Hibernate's second-level cache for {@code User} entities and its query cache for the
+ * {@code UserRepository} finders, held in Caffeine through JCache. With {@code users.hibernate-cache.enabled}
+ * (the default), each region is created here with its own size bound and TTL before Hibernate starts.
+ * Hibernate is told to fail on any other region rather than create an unbounded one.
+ * <p>
+ * Loads write with plain JDBC, which Hibernate never sees, so {@code UserCacheEvictor} evicts what
+ * they write and then everything once they finish. With statistics on, Hibernate's hit and miss counts
+ * are published as {@code hibernate.second.level.cache.requests} and {@code hibernate.cache.query.requests}.
+ * {@code users.hibernate.cache.hit.ratio} gives the share of hits per region since startup.
+ */
+@Slf4j
+@Configuration
+public class HibernateCacheConfig implements DisposableBean {
+
+    private final boolean enabled;
+    private final CacheManager cacheManager;
+
+    public HibernateCacheConfig(@Value("${users.hibernate-cache.enabled:true}") boolean enabled,
+                                @Value("${users.hibernate-cache.users.max-size:100000}") long usersMaxSize,
+                                @Value("${users.hibernate-cache.queries.max-size:10000}") long queriesMaxSize,
+                                @Value("${users.hibernate-cache.ttl:10m}") Duration ttl) {
+        this.enabled = enabled;
+        if (!enabled) {
+            this.cacheManager = null;
+            return;
+        }
+        // A URI of its own, as JCache shares managers by URI and each application context needs fresh regions.
+        this.cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("users-hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+        cacheManager.createCache(User.CACHE_REGION, region(usersMaxSize, ttl));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, region(queriesMaxSize, ttl));
+        // One entry per table. It must outlive every query result that checks it, so it neither expires nor evicts.
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, new CaffeineConfiguration<>());
+        log.info("Hibernate second-level cache: {} users and {} query results, for {}.", usersMaxSize, queriesMaxSize, ttl);
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maxSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> region = new CaffeineConfiguration<>();
+        region.setMaximumSize(OptionalLong.of(maxSize));
+        region.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        return region;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheProperties() {
+        return properties -> {
+            properties.put("hibernate.cache.use_second_level_cache", enabled);
+            properties.put("hibernate.cache.use_query_cache", enabled);
+            if (enabled) {
+                properties.put("hibernate.cache.region.factory_class", "jcache");
+                properties.put("hibernate.javax.cache.cache_manager", cacheManager);
+                properties.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder secondLevelCacheHitRatio(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            if (!enabled) {
+                return;
+            }
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            hitRatio(registry, statistics, User.CACHE_REGION, s -> s.getDomainDataRegionStatistics(User.CACHE_REGION));
+            hitRatio(registry, statistics, "queries",
+                    s -> s.getQueryRegionStatistics(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME));
+        };
+    }
+
+    private static void hitRatio(MeterRegistry registry, Statistics statistics, String region,
+                                 Function<Statistics, CacheRegionStatistics> regionStatistics) {
+        Gauge.builder("users.hibernate.cache.hit.ratio", statistics, s -> {
+                    CacheRegionStatistics counts = regionStatistics.apply(s);
+                    long requests = counts == null ? 0 : counts.getHitCount() + counts.getMissCount();
+                    return requests == 0 ? Double.NaN : (double) counts.getHitCount() / requests;
+                })
+                .description("Share of second-level cache lookups answered from the region since startup")
+                .tag("region", region)
+                .register(registry);
+    }
+
+    @Override
+    public void destroy() {
+        if (cacheManager != null) {
+            cacheManager.close();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.userapi.config;
+
+import com.example.userapi.service.DatasetVersion;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.CacheControl;
+
+import java.time.Duration;
+
+/**
+ * HTTP caching for {@code /api/users}: ETags from the dataset version and {@code Cache-Control}.
+ * Compression is Tomcat's, configured with the {@code server.compression.*} properties.
+ */
+@Configuration
+public class HttpCacheConfig {
+
+    /**
+     * @param maxAge how long clients may reuse a response without asking; at 0 they revalidate every
+     *               time, which costs a 304 and no body while nothing has been loaded
+     */
+    @Bean
+    public FilterRegistrationBean<DatasetETagFilter> datasetETagFilter(DatasetVersion datasetVersion,
+                                                                       @Value("${users.http.max-age:0s}") Duration maxAge) {
+        // Private: the payload holds personal data that shared caches have no business keeping.
+        CacheControl cacheControl = (maxAge.isZero() ? CacheControl.noCache() : CacheControl.maxAge(maxAge).mustRevalidate())
+                .cachePrivate();
+        FilterRegistrationBean<DatasetETagFilter> registration = new FilterRegistrationBean<>(
+                new DatasetETagFilter(datasetVersion, cacheControl.getHeaderValue(), "/api/users/load",
+                        "/api/users/sorted"));
+        registration.addUrlPatterns("/api/users", "/api/users/*");
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        return registration;
+    }
+}
@@ -1,12 +1,15 @@
 package com.example.userapi.config;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 
@@ -20,6 +23,14 @@ public class LocalDateDeserializer extends JsonDeserializer<LocalDate> {
 
     @Override
     public LocalDate deserialize(JsonParser jsonParser, DeserializationContext context) throws IOException {
+        // Fast path: read the digits straight out of the parser's buffer, no String and no exceptions.
+        if (jsonParser.hasToken(JsonToken.VALUE_STRING)) {
+            LocalDate date = parse(jsonParser.getTextCharacters(), jsonParser.getTextOffset(), jsonParser.getTextLength());
+            if (date != null) {
+                return date;
+            }
+        }
+
         String dateStr = jsonParser.getText().trim();
         log.debug("Attempting to parse date: {}", dateStr);
 
@@ -36,4 +47,72 @@ public class LocalDateDeserializer extends JsonDeserializer<LocalDate> {
         log.error("All date formats failed for input: '{}'", dateStr);
         throw new IOException("Invalid date format: '" + dateStr + "'. Expected formats: yyyy-MM-dd or yyyy-M-d");
     }
+
+    /**
+     * Parse {@code yyyy-M-d} with a four-digit year and one- or two-digit month and day, ignoring
+     * surrounding whitespace. Returns null for anything else, including days past the end of the
+     * month, so those still go through the formatters and resolve exactly as before.
+     */
+    static LocalDate parse(char[] buffer, int offset, int length) {
+        int pos = offset;
+        int end = offset + length;
+        while (pos < end && buffer[pos] <= ' ') {
+            pos++;
+        }
+        while (end > pos && buffer[end - 1] <= ' ') {
+            end--;
+        }
+        if (end - pos < 8 || end - pos > 10) {
+            return null;
+        }
+
+        int year = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = buffer[pos++] - '0';
+            if (digit < 0 || digit > 9) {
+                return null;
+            }
+            year = year * 10 + digit;
+        }
+        if (buffer[pos++] != '-') {
+            return null;
+        }
+
+        int month = digit(buffer, pos++);
+        if (month < 0) {
+            return null;
+        }
+        if (buffer[pos] != '-') {
+            int second = digit(buffer, pos++);
+            if (second < 0) {
+                return null;
+            }
+            month = month * 10 + second;
+        }
+        if (pos >= end || buffer[pos++] != '-' || pos >= end) {
+            return null;
+        }
+
+        int day = digit(buffer, pos++);
+        if (day < 0) {
+            return null;
+        }
+        if (pos < end) {
+            int second = digit(buffer, pos++);
+            if (second < 0) {
+                return null;
+            }
+            day = day * 10 + second;
+        }
+        if (pos != end || month < 1 || month > 12 || day < 1
+                || day > Month.of(month).length(Year.isLeap(year))) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    private static int digit(char[] buffer, int pos) {
+        int digit = buffer[pos] - '0';
+        return digit >= 0 && digit <= 9 ? digit : -1;
+    }
 }
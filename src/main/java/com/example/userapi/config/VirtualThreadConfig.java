@@ -0,0 +1,83 @@
+package com.example.userapi.config;
+
+import com.example.userapi.service.WorkerThreads;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Opt-in ({@code users.threads.virtual=true}) request execution on virtual threads: Tomcat runs each
+ * request, and Spring MVC each streaming response, on a new virtual thread instead of its fixed pools.
+ * Load jobs and the ingestion pipeline follow the same setting through {@link WorkerThreads}.
+ * <p>
+ * Threads stop being the limit, so {@link ConcurrencyLimitFilter} takes over as one, sized by default
+ * to the Hikari pool: more requests in flight than connections only makes them queue inside Hikari.
+ * Needs Java 21: on an older JVM, {@link WorkerThreads} fails startup.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "users.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig implements WebMvcConfigurer {
+
+    private static final int HIKARI_DEFAULT_POOL_SIZE = 10;
+
+    private final Executor executor;
+
+    public VirtualThreadConfig(WorkerThreads workerThreads) {
+        ThreadFactory threads = workerThreads.factory("http-virtual-");
+        this.executor = runnable -> threads.newThread(runnable).start();
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandler() {
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new TaskExecutorAdapter(executor));
+    }
+
+    /**
+     * @param maxConcurrentRequests permits; 0 takes the Hikari pool's maximum size
+     * @param maxWait               how long a request may wait for a permit before it gets a 503
+     */
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            DataSource dataSource, MeterRegistry meterRegistry,
+            @Value("${users.threads.max-concurrent-requests:0}") int maxConcurrentRequests,
+            @Value("${users.threads.max-wait:1s}") Duration maxWait) throws SQLException {
+        int limit = maxConcurrentRequests > 0 ? maxConcurrentRequests : hikariPoolSize(dataSource);
+        log.info("Limiting /api/users to {} concurrent requests on virtual threads.", limit);
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(limit, maxWait, meterRegistry));
+        registration.addUrlPatterns("/api/users", "/api/users/*");
+        // After the ETag filter, so a 304 never waits for a permit.
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE);
+        return registration;
+    }
+
+    private static int hikariPoolSize(DataSource dataSource) throws SQLException {
+        int size = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        // Unset (-1) until the pool starts, which then applies Hikari's default.
+        return size > 0 ? size : HIKARI_DEFAULT_POOL_SIZE;
+    }
+}
@@ -1,16 +1,42 @@
 package com.example.userapi.controller;
 
+import com.example.userapi.dto.BatchLookupRequest;
+import com.example.userapi.dto.BatchLookupResponse;
+import com.example.userapi.dto.CursorPage;
+import com.example.userapi.dto.LoadJobStatus;
+import com.example.userapi.dto.NearbyUser;
+import com.example.userapi.dto.UserStats;
 import com.example.userapi.model.User;
+import com.example.userapi.service.LoadJobService;
+import com.example.userapi.service.LoadMode;
 import com.example.userapi.service.UserService;
+import com.example.userapi.service.UserStatsService;
+import com.example.userapi.service.export.ExportFormat;
+import com.example.userapi.service.export.UserExportService;
+import com.example.userapi.service.geo.AddressKind;
+import com.example.userapi.service.geo.UserGeoService;
+import com.example.userapi.service.search.UserSearchService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
@@ -20,48 +46,111 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class UserController {
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String NDJSON = "application/x-ndjson";
+
     private final UserService userService;
+    private final LoadJobService loadJobService;
+    private final UserStatsService userStatsService;
+    private final UserSearchService userSearchService;
+    private final UserGeoService userGeoService;
+    private final UserExportService userExportService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${users.page.default-limit:100}")
+    private int defaultPageLimit;
+
+    @Value("${users.page.max-limit:1000}")
+    private int maxPageLimit;
 
-    public UserController(UserService userService) {
+    @Value("${users.batch.max-keys:10000}")
+    private int maxBatchKeys;
+
+    public UserController(UserService userService, LoadJobService loadJobService, UserStatsService userStatsService,
+                          UserSearchService userSearchService, UserGeoService userGeoService,
+                          UserExportService userExportService, ObjectMapper objectMapper) {
         this.userService = userService;
+        this.loadJobService = loadJobService;
+        this.userStatsService = userStatsService;
+        this.userSearchService = userSearchService;
+        this.userGeoService = userGeoService;
+        this.userExportService = userExportService;
+        this.objectMapper = objectMapper;
     }
 
     /**
-     * Endpoint to load all users from API dataset to H2 database
+     * Start loading all users from the external API in the background; returns the job to poll
      */
     @PostMapping("/load")
     @Operation(
     	    summary = "Fetch user data from an external API and store it in the database.",
-    	    description = "Retrieves user data from a specified external API and saves the details into the database."
+    	    description = "Starts a background job that retrieves user data from the external API and saves it into the database. "
+    	            + "mode=delta writes only new or changed users and deletes users no longer upstream. "
+    	            + "Returns 202 with the job; if a load is already queued or running, that job is returned instead of starting another."
     	)
-    public ResponseEntity<String> loadUsersIntoDatabase() {
-        log.info("Received request to load all users into H2 database.");
+    public ResponseEntity<LoadJobStatus> loadUsersIntoDatabase(@RequestParam(defaultValue = "full") String mode) {
+        log.info("Received request to load all users into the database ({} mode).", mode);
+        LoadJobStatus job = loadJobService.submit(LoadMode.parse(mode));
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentRequestUri().path("/{jobId}")
+                        .buildAndExpand(job.getJobId()).toUri())
+                .body(job);
+    }
 
-        try {
-            List<User> savedUsers = userService.loadUsers();
-            log.info("Successfully loaded {} users into H2 database.", savedUsers.size());
-            return ResponseEntity.ok("Successfully loaded " + savedUsers.size() + " users into the database.");
-        } catch (Exception e) {
-            log.error("Error while loading users into the database: {}", e.getMessage(), e);
-            return ResponseEntity.internalServerError().body("Failed to load users. Error: " + e.getMessage());
-        }
+    /**
+     * Report the progress of a load job
+     */
+    @GetMapping("/load/{jobId}")
+    @Operation(summary = "Get load job status",
+            description = "Reports the state of a load job with pages fetched, users written, throughput and any error")
+    public LoadJobStatus getLoadJob(@PathVariable String jobId) {
+        return loadJobService.getStatus(jobId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown load job: " + jobId));
     }
 
     /**
-     * Fetch all users from the database
+     * Start importing a local JSON-array or NDJSON dump from the import directory in the background; returns the job to poll
+     */
+    @PostMapping("/import")
+    @Operation(
+            summary = "Import users from a local file",
+            description = "Starts a background job that reads a JSON array or NDJSON file of users from users.import.directory "
+                    + "and saves them like a load. After a failure, pass the job's progress.committedOffset as offset to resume. "
+                    + "Returns 202 with the job, polled at /load/{jobId}; if a load is already queued or running, that job is returned instead.")
+    public ResponseEntity<LoadJobStatus> importUsers(@RequestParam String file,
+                                                     @RequestParam(defaultValue = "full") String mode,
+                                                     @RequestParam(defaultValue = "0") long offset) {
+        log.info("Received request to import {} from byte {} ({} mode).", file, offset, mode);
+        LoadJobStatus job = loadJobService.submitImport(LoadMode.parse(mode), file, offset);
+        return ResponseEntity.accepted()
+                .location(ServletUriComponentsBuilder.fromCurrentContextPath().path("/api/users/load/{jobId}")
+                        .buildAndExpand(job.getJobId()).toUri())
+                .body(job);
+    }
+
+    /**
+     * Fetch one keyset page of users; the next page's cursor is returned in the X-Next-Cursor header
      */
     @GetMapping
-    @Operation(summary = "Get all users", description = "Fetches all users from the database")
-    public ResponseEntity<?> getAllUsers() {
-        log.info("Fetching all users from the database...");
+    @Operation(summary = "Get all users",
+            description = "Fetches users ordered by id, one page at a time. Pass the X-Next-Cursor header of a response as 'after' to get the next page")
+    public ResponseEntity<?> getAllUsers(@RequestParam(required = false) Long after,
+                                         @RequestParam(required = false) Integer limit,
+                                         @RequestParam(required = false) String fields,
+                                         @RequestParam(required = false) String profile) {
+        int pageSize = pageLimit(limit);
+        List<String> selected = userService.resolveFields(fields, profile);
+        log.info("Fetching users from the database after id {} (limit {})...", after, pageSize);
         try {
-            List<User> users = userService.getAllUsers();
-            if (users.isEmpty()) {
+            CursorPage<?> page = selected == null
+                    ? userService.getUsersPage(after, pageSize)
+                    : userService.getUsersPageProjected(selected, after, pageSize);
+            if (page.getItems().isEmpty()) {
                 log.warn("No users found in the database.");
                 return ResponseEntity.status(HttpStatus.NO_CONTENT).body("No users available");
             }
-            log.info("Successfully retrieved {} users.", users.size());
-            return ResponseEntity.ok(users);
+            log.info("Successfully retrieved {} users.", page.getItems().size());
+            return withNextCursor(ResponseEntity.ok(), page.getNextCursor(), "after").body(page.getItems());
         } catch (Exception e) {
             log.error("Unexpected error occurred while fetching users: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -70,20 +159,72 @@ public class UserController {
     }
 
     /**
-     * Fetch users by role
+     * Stream every user as newline-delimited JSON, straight from a database cursor
+     */
+    @GetMapping(value = "/stream", produces = NDJSON)
+    @Operation(summary = "Stream all users", description = "Streams every user as newline-delimited JSON without buffering the result set")
+    public ResponseEntity<StreamingResponseBody> streamAllUsers() {
+        log.info("Streaming all users from the database...");
+        StreamingResponseBody body = out -> {
+            ObjectWriter writer = objectMapper.writerFor(User.class);
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                userService.streamAllUsers(user -> {
+                    try {
+                        writer.writeValue(generator, user);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    /**
+     * Download every user as a flat CSV, NDJSON or columnar file, straight from a database cursor
+     */
+    @GetMapping("/export")
+    @Operation(summary = "Export all users",
+            description = "Streams every user, one flat field per column, as format=csv (default), ndjson or columnar. "
+                    + "gzip=true sends a .gz file instead")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "csv") String format,
+                                                             @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportFormat exportFormat = ExportFormat.parse(format);
+        log.info("Exporting all users as {}{}...", exportFormat, gzip ? " (gzip)" : "");
+        String filename = "users." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        StreamingResponseBody body = out -> userExportService.export(exportFormat, out, gzip);
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : exportFormat.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .body(body);
+    }
+
+    /**
+     * Fetch one keyset page of users by role; the next page's cursor is returned in the X-Next-Cursor header
      */
     @GetMapping("/role/{role}")
-    @Operation(summary = "Get users by role", description = "Fetches users by their role")
-    public ResponseEntity<?> getUsersByRole(@PathVariable String role) {
-        log.info("Fetching users with role: {}", role);
+    @Operation(summary = "Get users by role",
+            description = "Fetches users by their role, ordered by id, one page at a time. Pass the X-Next-Cursor header of a response as 'after' to get the next page")
+    public ResponseEntity<?> getUsersByRole(@PathVariable String role,
+                                            @RequestParam(required = false) Long after,
+                                            @RequestParam(required = false) Integer limit,
+                                            @RequestParam(required = false) String fields,
+                                            @RequestParam(required = false) String profile) {
+        int pageSize = pageLimit(limit);
+        log.info("Fetching users with role: {} after id {} (limit {})", role, after, pageSize);
+        List<String> selected = userService.resolveFields(fields, profile);
         try {
-            List<User> users = userService.getUsersByRole(role);
-            if (users.isEmpty()) {
+            CursorPage<?> page = selected == null
+                    ? userService.getUsersByRole(role, after, pageSize)
+                    : userService.getUsersByRoleProjected(role, selected, after, pageSize);
+            if (page.getItems().isEmpty()) {
                 log.warn("No users found with role: {}", role);
                 return ResponseEntity.status(HttpStatus.NO_CONTENT).body("No users available for the given role");
             }
-            log.info("Successfully retrieved {} users with role {}", users.size(), role);
-            return ResponseEntity.ok(users);
+            log.info("Successfully retrieved {} users with role {}", page.getItems().size(), role);
+            return withNextCursor(ResponseEntity.ok(), page.getNextCursor(), "after").body(page.getItems());
         } catch (Exception e) {
             log.error("Unexpected error occurred while fetching users by role: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -92,34 +233,200 @@ public class UserController {
     }
 
     /**
-     * Get users sorted by age
+     * Search users by name, username, email or company; the next page's cursor is returned in the X-Next-Cursor header
+     */
+    @GetMapping("/search")
+    @Operation(summary = "Search users",
+            description = "Matches every word of q against first and last name, username, email and company name, "
+                    + "by whole word, prefix or with a typo, best match first. Pass the X-Next-Cursor header of a response as 'after' to get the next page")
+    public ResponseEntity<List<User>> searchUsers(@RequestParam String q,
+                                                  @RequestParam(required = false) String after,
+                                                  @RequestParam(required = false) Integer limit) {
+        int pageSize = pageLimit(limit);
+        log.debug("Searching users for '{}' after {} (limit {})", q, after, pageSize);
+        CursorPage<User> page = userSearchService.search(q, after, pageSize);
+        return withNextCursor(ResponseEntity.ok(), page.getNextCursor(), "after").body(page.getItems());
+    }
+
+    /**
+     * Get users within a radius of a point, nearest first
+     */
+    @GetMapping("/near")
+    @Operation(summary = "Get users near a point",
+            description = "Fetches users whose home (or, with address=company, company) coordinates lie within radiusKm of lat/lng, "
+                    + "nearest first, with their distance in km")
+    public List<NearbyUser> getUsersNear(@RequestParam double lat, @RequestParam double lng,
+                                         @RequestParam double radiusKm,
+                                         @RequestParam(defaultValue = "home") String address,
+                                         @RequestParam(required = false) Integer limit) {
+        int pageSize = pageLimit(limit);
+        log.debug("Fetching up to {} users within {} km of ({}, {})", pageSize, radiusKm, lat, lng);
+        return userGeoService.getUsersWithinRadius(AddressKind.parse(address), lat, lng, radiusKm, pageSize);
+    }
+
+    /**
+     * Get the k users nearest to a point
+     */
+    @GetMapping("/nearest")
+    @Operation(summary = "Get the nearest users",
+            description = "Fetches the k users whose home (or, with address=company, company) coordinates are nearest to lat/lng, "
+                    + "nearest first, with their distance in km")
+    public List<NearbyUser> getNearestUsers(@RequestParam double lat, @RequestParam double lng,
+                                            @RequestParam(defaultValue = "10") Integer k,
+                                            @RequestParam(defaultValue = "home") String address) {
+        int count = pageLimit(k);
+        log.debug("Fetching the {} users nearest to ({}, {})", count, lat, lng);
+        return userGeoService.getNearestUsers(AddressKind.parse(address), lat, lng, count);
+    }
+
+    /**
+     * Get users inside a bounding box, one page at a time in id order
+     */
+    @GetMapping("/within")
+    @Operation(summary = "Get users inside a bounding box",
+            description = "Fetches users whose home (or, with address=company, company) coordinates lie inside the box, ordered by id. "
+                    + "minLng greater than maxLng crosses the antimeridian. Pass the X-Next-Cursor header of a response as 'after' to get the next page")
+    public ResponseEntity<List<User>> getUsersWithin(@RequestParam double minLat, @RequestParam double minLng,
+                                                     @RequestParam double maxLat, @RequestParam double maxLng,
+                                                     @RequestParam(defaultValue = "home") String address,
+                                                     @RequestParam(required = false) Long after,
+                                                     @RequestParam(required = false) Integer limit) {
+        int pageSize = pageLimit(limit);
+        log.debug("Fetching up to {} users inside ({}, {})-({}, {}) after id {}", pageSize, minLat, minLng, maxLat, maxLng, after);
+        CursorPage<User> page = userGeoService.getUsersWithinBox(AddressKind.parse(address), minLat, minLng, maxLat, maxLng,
+                after, pageSize);
+        return withNextCursor(ResponseEntity.ok(), page.getNextCursor(), "after").body(page.getItems());
+    }
+
+    /**
+     * Count users per role, department and state
+     */
+    @GetMapping("/stats")
+    @Operation(summary = "Get user counts",
+            description = "Counts users per role, company department and address state. Recomputed after each load")
+    public UserStats getUserStats() {
+        return userStatsService.getStats();
+    }
+
+    /**
+     * Get users sorted by age, one page at a time
      */
     @GetMapping("/sorted")
-    @Operation(summary = "Get users sorted by age", description = "Fetches users sorted by age in ascending or descending order")
-    public ResponseEntity<List<User>> getUsersSortedByAge(@RequestParam(defaultValue = "asc") String order) {
+    @Operation(summary = "Get users sorted by age",
+            description = "Fetches users sorted by age in ascending or descending order, optionally within an age range. "
+                    + "Pass the X-Next-Cursor header of a response as 'after' to get the next page")
+    public ResponseEntity<List<User>> getUsersSortedByAge(@RequestParam(defaultValue = "asc") String order,
+                                                          @RequestParam(required = false) Integer minAge,
+                                                          @RequestParam(required = false) Integer maxAge,
+                                                          @RequestParam(required = false) String after,
+                                                          @RequestParam(required = false) Integer limit) {
         log.info("Received request to get users sorted by age in {} order", order);
-        List<User> users = userService.getUsersSortedByAge(order);
-        log.info("Successfully fetched {} users sorted by age in {} order", users.size(), order);
-        return ResponseEntity.ok(users);
+        int pageSize = pageLimit(limit);
+        if ((minAge != null && minAge < 0) || (maxAge != null && maxAge < 0)
+                || (minAge != null && maxAge != null && minAge > maxAge)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid age range: " + minAge + ".." + maxAge);
+        }
+        CursorPage<User> page = userService.getUsersSortedByAge(order, minAge, maxAge, after, pageSize);
+        log.info("Successfully fetched {} users sorted by age in {} order", page.getItems().size(), order);
+        return withNextCursor(ResponseEntity.ok(), page.getNextCursor(), "after").body(page.getItems());
     }
 
     /**
      * Get user by ID.
      */
     @GetMapping("/id/{id}")
-    @Operation(summary = "Get user by ID", description = "Fetches a user using their unique ID")
-    public ResponseEntity<User> getUserById(@PathVariable Long id) {
+    @Operation(summary = "Get user by ID", description = "Fetches a user using their unique ID. Pass cache=false to bypass the lookup cache")
+    public ResponseEntity<?> getUserById(@PathVariable Long id, @RequestParam(defaultValue = "true") boolean cache,
+                                         @RequestParam(required = false) String fields,
+                                         @RequestParam(required = false) String profile) {
         log.debug("Received request to fetch user by ID: {}", id);
-        return ResponseEntity.ok(userService.getUserById(id));
+        List<String> selected = userService.resolveFields(fields, profile);
+        if (selected != null) {
+            return ResponseEntity.ok(userService.getUserByIdProjected(id, selected));
+        }
+        return ResponseEntity.ok(userService.getUserById(id, cache));
     }
 
     /**
      * Get user by SSN.
      */
     @GetMapping("/ssn/{ssn}")
-    @Operation(summary = "Get user by SSN", description = "Fetches a user using their Social Security Number (SSN)")
-    public ResponseEntity<User> getUserBySSN(@PathVariable String ssn) {
+    @Operation(summary = "Get user by SSN", description = "Fetches a user using their Social Security Number (SSN). Pass cache=false to bypass the lookup cache")
+    public ResponseEntity<?> getUserBySSN(@PathVariable String ssn, @RequestParam(defaultValue = "true") boolean cache,
+                                          @RequestParam(required = false) String fields,
+                                          @RequestParam(required = false) String profile) {
         log.debug("Received request to fetch user by SSN: {}", ssn);
-        return ResponseEntity.ok(userService.getUserBySSN(ssn));
+        List<String> selected = userService.resolveFields(fields, profile);
+        if (selected != null) {
+            return ResponseEntity.ok(userService.getUserBySsnProjected(ssn, selected));
+        }
+        return ResponseEntity.ok(userService.getUserBySSN(ssn, cache));
+    }
+
+    /**
+     * Get user by username.
+     */
+    @GetMapping("/username/{username}")
+    @Operation(summary = "Get user by username", description = "Fetches a user using their username")
+    public User getUserByUsername(@PathVariable String username) {
+        log.debug("Received request to fetch user by username: {}", username);
+        return userService.getUserByUsername(username);
+    }
+
+    /**
+     * Get user by email address.
+     */
+    @GetMapping("/email/{email:.+}")
+    @Operation(summary = "Get user by email", description = "Fetches a user using their email address")
+    public User getUserByEmail(@PathVariable String email) {
+        log.debug("Received request to fetch user by email: {}", email);
+        return userService.getUserByEmail(email);
+    }
+
+    /**
+     * Get many users by ID or SSN in one call.
+     */
+    @PostMapping("/batch")
+    @Operation(summary = "Get users by IDs or SSNs",
+            description = "Looks up a list of IDs or a list of SSNs in one call and returns the users found plus the keys that were not, in request order")
+    public ResponseEntity<BatchLookupResponse<?>> getUsersInBatch(@RequestBody BatchLookupRequest request,
+                                                                  @RequestParam(defaultValue = "true") boolean cache) {
+        boolean byId = request.getIds() != null;
+        if (byId == (request.getSsns() != null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Provide either 'ids' or 'ssns'");
+        }
+        int keys = byId ? request.getIds().size() : request.getSsns().size();
+        if (keys > maxBatchKeys) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + maxBatchKeys + " keys per request");
+        }
+        log.debug("Received request to fetch {} users by {}", keys, byId ? "ID" : "SSN");
+        return ResponseEntity.ok(byId
+                ? userService.getUsersByIds(request.getIds(), cache)
+                : userService.getUsersBySsns(request.getSsns(), cache));
+    }
+
+    private int pageLimit(Integer limit) {
+        if (limit == null) {
+            return defaultPageLimit;
+        }
+        if (limit < 1 || limit > maxPageLimit) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + maxPageLimit);
+        }
+        return limit;
+    }
+
+    /**
+     * Advertise the next page both as a bare cursor header and as an RFC 8288 Link.
+     */
+    private static ResponseEntity.BodyBuilder withNextCursor(ResponseEntity.BodyBuilder response, String nextCursor,
+                                                             String cursorParam) {
+        if (nextCursor == null) {
+            return response;
+        }
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam(cursorParam, nextCursor)
+                .toUriString();
+        return response.header(NEXT_CURSOR_HEADER, nextCursor)
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
     }
 }
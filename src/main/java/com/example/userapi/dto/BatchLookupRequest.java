@@ -0,0 +1,18 @@
+package com.example.userapi.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Keys for a bulk lookup. Exactly one of {@code ids} or {@code ssns} must be given.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class BatchLookupRequest {
+    private List<Long> ids;
+    private List<String> ssns;
+}
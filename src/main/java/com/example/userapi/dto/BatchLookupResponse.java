@@ -0,0 +1,16 @@
+package com.example.userapi.dto;
+
+import com.example.userapi.model.User;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Result of a bulk lookup: the users found and the keys that were not, both in request order.
+ */
+@Value
+public class BatchLookupResponse<K> {
+    List<User> users;
+    List<K> notFound;
+}
@@ -0,0 +1,14 @@
+package com.example.userapi.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * One keyset page of results. {@code nextCursor} is null on the last page.
+ */
+@Value
+public class CursorPage<T> {
+    List<T> items;
+    String nextCursor;
+}
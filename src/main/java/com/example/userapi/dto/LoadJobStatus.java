@@ -0,0 +1,27 @@
+package com.example.userapi.dto;
+
+import com.example.userapi.service.LoadMode;
+import com.example.userapi.service.ingest.IngestionResult;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Where a background load stands. {@code source} is {@code upstream}, or {@code file:<name>} for an import.
+ * {@code progress} is live while the job runs and final once it ends; {@code error} is only set for failed jobs.
+ */
+@Value
+public class LoadJobStatus {
+
+    public enum State { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    String jobId;
+    LoadMode mode;
+    String source;
+    State state;
+    Instant submittedAt;
+    Instant startedAt;
+    Instant finishedAt;
+    IngestionResult progress;
+    String error;
+}
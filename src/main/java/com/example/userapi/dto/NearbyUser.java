@@ -0,0 +1,13 @@
+package com.example.userapi.dto;
+
+import com.example.userapi.model.User;
+import lombok.Value;
+
+/**
+ * A user returned by a distance query, with its great-circle distance from the query point.
+ */
+@Value
+public class NearbyUser {
+    double distanceKm;
+    User user;
+}
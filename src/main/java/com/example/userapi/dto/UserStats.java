@@ -0,0 +1,19 @@
+package com.example.userapi.dto;
+
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * User counts per role, company department and address state, largest group first.
+ * Users without a value are counted under {@code "unknown"}.
+ */
+@Value
+public class UserStats {
+    long totalUsers;
+    Map<String, Long> byRole;
+    Map<String, Long> byDepartment;
+    Map<String, Long> byState;
+    Instant computedAt;
+}
@@ -0,0 +1,39 @@
+package com.example.userapi.event;
+
+import com.example.userapi.service.ingest.IngestionResult;
+
+import lombok.Value;
+
+import java.util.Set;
+
+/**
+ * Published after every {@code loadUsers} run, once its writes have committed. Also published when
+ * a run fails part way, since some chunks may already have been written; {@code result} is then null.
+ * {@code DatasetVersion} publishes one without a result when another instance has loaded.
+ * <p>
+ * A successful delta load also lists the ids it inserted or updated and the ids it deleted, so
+ * listeners can refresh just those. Both are null after a full or failed load, meaning any user
+ * may have changed.
+ */
+@Value
+public class UsersLoadedEvent {
+    boolean successful;
+    IngestionResult result;
+    Set<Long> changedIds;
+    Set<Long> deletedIds;
+
+    public UsersLoadedEvent(boolean successful, IngestionResult result) {
+        this(successful, result, null, null);
+    }
+
+    public UsersLoadedEvent(boolean successful, IngestionResult result, Set<Long> changedIds, Set<Long> deletedIds) {
+        this.successful = successful;
+        this.result = result;
+        this.changedIds = changedIds;
+        this.deletedIds = deletedIds;
+    }
+
+    public boolean isDelta() {
+        return changedIds != null;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.userapi.event;
+
+import com.example.userapi.model.User;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Published by {@code UserBulkRepository} just before it writes {@code users}, on the writing thread.
+ * Listeners that must never be behind the table, such as the key filter, take the new keys here;
+ * {@link UsersWrittenEvent} follows once the write has finished.
+ */
+@Value
+public class UsersWritingEvent {
+    List<User> users;
+}
@@ -0,0 +1,39 @@
+package com.example.userapi.event;
+
+import com.example.userapi.model.User;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Published by {@code UserBulkRepository} after each bulk write or delete, on the writing thread. An
+ * upsert publishes it even when it fails, as some of its batches may have committed. Bulk writes go
+ * around Hibernate, so this is how anything holding users learns what changed underneath it.
+ */
+@Value
+public class UsersWrittenEvent {
+    List<User> upserted;
+    List<Long> deletedIds;
+
+    public static UsersWrittenEvent upserted(List<User> users) {
+        return new UsersWrittenEvent(users, List.of());
+    }
+
+    public static UsersWrittenEvent deleted(List<Long> ids) {
+        return new UsersWrittenEvent(List.of(), ids);
+    }
+
+    /**
+     * Ids of every user upserted or deleted.
+     */
+    public List<Long> ids() {
+        List<Long> ids = new ArrayList<>(upserted.size() + deletedIds.size());
+        for (User user : upserted) {
+            ids.add(user.getId());
+        }
+        ids.addAll(deletedIds);
+        return ids;
+    }
+}
@@ -4,6 +4,11 @@ package com.example.userapi.exception;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ResponseStatus;
 
+/**
+ * A lookup found no user. Thrown for every miss, including the many from clients probing for keys,
+ * and only ever turned into a 404, so it records no stack trace: filling one in walks a hundred-odd
+ * frames of filter chain and proxies, which costs more than the rest of answering the miss.
+ */
 @ResponseStatus(HttpStatus.NOT_FOUND)
 public class UserNotFoundException extends RuntimeException {
     /**
@@ -12,6 +17,6 @@ public class UserNotFoundException extends RuntimeException {
 	private static final long serialVersionUID = 1L;
 
 	public UserNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
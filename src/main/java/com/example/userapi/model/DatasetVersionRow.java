@@ -0,0 +1,27 @@
+package com.example.userapi.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * The one row of {@code dataset_version}: the version of the user data, shared by every instance on
+ * the database and moved on by each load. Read and written with plain JDBC by
+ * {@code DatasetVersionRepository}; mapped here so the table is created with the rest of the schema.
+ */
+@Entity
+@Table(name = "dataset_version")
+@Getter
+@Setter
+@NoArgsConstructor
+public class DatasetVersionRow {
+
+    @Id
+    private Integer id;
+
+    private long version;
+}
@@ -3,24 +3,37 @@ package com.example.userapi.model;
 import javax.persistence.*;
 import javax.validation.constraints.*;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.format.annotation.DateTimeFormat;
 
 import com.example.userapi.config.LocalDateDeserializer;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 
 import lombok.*;
 
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        @Index(name = "idx_users_birth_date_id", columnList = "birthDate, id"),
+        @Index(name = "idx_users_role_id", columnList = "role, id")
+})
+// Written only by bulk JDBC, whose write events evict the region, so reads need no soft locks.
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = User.CACHE_REGION)
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class User {
 
+    /** Hibernate second-level cache region holding users. */
+    public static final String CACHE_REGION = "users";
+
     @Id
     private Long id; // Unique user ID
 
@@ -104,4 +117,14 @@ public class User {
 
     @NotBlank(message = "Role is required")
     private String role;
+
+    // Hash of every other column, written by the bulk upsert; delta loads skip rows whose hash is unchanged
+    @JsonIgnore
+    private Long contentHash;
+
+    // Database time of the last insert or bulk write; a delta load deletes only users not written since it began
+    @JsonIgnore
+    @Column(insertable = false, updatable = false,
+            columnDefinition = "timestamp with time zone default current_timestamp")
+    private OffsetDateTime writtenAt;
 }
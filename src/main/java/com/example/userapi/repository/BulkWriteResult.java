@@ -0,0 +1,23 @@
+package com.example.userapi.repository;
+
+import lombok.Value;
+
+/**
+ * Row counts from a bulk upsert.
+ */
+@Value
+public class BulkWriteResult {
+
+    public static final BulkWriteResult EMPTY = new BulkWriteResult(0, 0);
+
+    long inserted;
+    long updated;
+
+    public BulkWriteResult plus(BulkWriteResult other) {
+        return new BulkWriteResult(inserted + other.inserted, updated + other.updated);
+    }
+
+    public long getTotal() {
+        return inserted + updated;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.userapi.repository;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * The shared dataset version in {@code dataset_version}, a single row that only ever grows.
+ */
+@Repository
+public class DatasetVersionRepository {
+
+    private static final String FIND_SQL = "SELECT version FROM dataset_version WHERE id = 1";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public DatasetVersionRepository(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * The stored version, or 0 before any load has recorded one.
+     */
+    public long find() {
+        List<Long> versions = jdbcTemplate.queryForList(FIND_SQL, Long.class);
+        return versions.isEmpty() ? 0 : versions.get(0);
+    }
+
+    /**
+     * Move the version past both its stored value and {@code atLeast}, and return the new one. Callers pass
+     * the clock, so a database that was reset never hands out a version that was already in use.
+     */
+    public long advance(long atLeast) {
+        try {
+            return transactionTemplate.execute(status -> {
+                if (jdbcTemplate.update("UPDATE dataset_version SET version = GREATEST(version + 1, ?) WHERE id = 1",
+                        atLeast) == 0) {
+                    jdbcTemplate.update("INSERT INTO dataset_version (id, version) VALUES (1, ?)", atLeast);
+                }
+                // Still holding the row lock, so this reads our own write.
+                return find();
+            });
+        } catch (DuplicateKeyException e) {
+            // Another instance inserted the row first; it exists now.
+            return advance(atLeast);
+        }
+    }
+}
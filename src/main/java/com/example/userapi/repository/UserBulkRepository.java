@@ -0,0 +1,344 @@
+package com.example.userapi.repository;
+
+import com.example.userapi.event.UsersWritingEvent;
+import com.example.userapi.event.UsersWrittenEvent;
+import com.example.userapi.model.User;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+/**
+ * Plain-JDBC bulk writes for {@link User}.
+ * <p>
+ * {@code UserRepository.saveAll} merges one entity at a time, and because ids are assigned by the
+ * upstream every row costs a SELECT before its INSERT. This repository instead writes
+ * {@code users.bulk.batch-size} rows per multi-row statement, {@code INSERT ... ON CONFLICT (id) DO UPDATE}
+ * on PostgreSQL/CockroachDB and {@code MERGE ... KEY (id)} on H2, with up to
+ * {@code users.bulk.max-in-flight} statements running concurrently, each in its own transaction.
+ * A batch that breaks a constraint, typically an email, username or SSN the upstream moved to another id,
+ * is rolled back and written again one row at a time; rows that still fail are logged and skipped.
+ * Every row written is stamped with the database's time in {@code written_at}.
+ * Each upsert publishes a {@link UsersWritingEvent} before it writes and a {@link UsersWrittenEvent} after,
+ * as does each batch of deletes, so that the key filter and caches above can keep up with writes made
+ * around Hibernate.
+ */
+@Slf4j
+@Repository
+public class UserBulkRepository {
+
+    // Older PostgreSQL JDBC drivers reject statements with more than 32767 bind parameters.
+    private static final int MAX_PARAMETERS = 32_767;
+    // Ids read per query while looking for users to delete.
+    private static final int SCAN_PAGE = 10_000;
+    private static final String SCAN_SQL = "SELECT id FROM " + UserTable.NAME
+            + " WHERE id > ? AND (written_at IS NULL OR written_at < ?) ORDER BY id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final ExecutorService batchExecutor;
+    private final Map<Integer, String> upsertSql = new ConcurrentHashMap<>();
+    private final Map<Integer, String> existingIdsSql = new ConcurrentHashMap<>();
+    private final Map<Integer, String> contentHashSql = new ConcurrentHashMap<>();
+    private final Map<Integer, String> lockStaleSql = new ConcurrentHashMap<>();
+    private final Map<Integer, String> deleteSql = new ConcurrentHashMap<>();
+    private volatile Boolean h2;
+
+    public UserBulkRepository(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                              ApplicationEventPublisher eventPublisher,
+                              @Value("${users.bulk.batch-size:250}") int batchSize,
+                              @Value("${users.bulk.max-in-flight:2}") int maxInFlight) {
+        if (batchSize < 1 || batchSize * UserTable.COLUMNS.size() > MAX_PARAMETERS) {
+            throw new IllegalArgumentException("users.bulk.batch-size must be between 1 and "
+                    + MAX_PARAMETERS / UserTable.COLUMNS.size());
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.batchExecutor = maxInFlight > 1 ? Executors.newFixedThreadPool(maxInFlight, runnable -> {
+            Thread thread = new Thread(runnable, "user-bulk-write");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Insert or update every user, keyed by id. Returns once all batches have committed.
+     * Duplicate ids within one call are written once, last one wins.
+     */
+    public BulkWriteResult upsert(List<User> users) {
+        List<User> distinct = dedupeById(users);
+        eventPublisher.publishEvent(new UsersWritingEvent(distinct));
+        try {
+            return write(distinct);
+        } finally {
+            // Even after a failure, some batches may have committed.
+            eventPublisher.publishEvent(UsersWrittenEvent.upserted(distinct));
+        }
+    }
+
+    private BulkWriteResult write(List<User> distinct) {
+        List<List<User>> batches = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += batchSize) {
+            batches.add(distinct.subList(from, Math.min(distinct.size(), from + batchSize)));
+        }
+
+        if (batchExecutor == null || batches.size() < 2) {
+            BulkWriteResult result = BulkWriteResult.EMPTY;
+            for (List<User> batch : batches) {
+                result = result.plus(writeBatch(batch));
+            }
+            return result;
+        }
+
+        List<Future<BulkWriteResult>> pending = batches.stream()
+                .map(batch -> batchExecutor.submit(() -> writeBatch(batch)))
+                .collect(Collectors.toList());
+        BulkWriteResult result = BulkWriteResult.EMPTY;
+        RuntimeException failure = null;
+        for (Future<BulkWriteResult> future : pending) {
+            try {
+                result = result.plus(future.get());
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException
+                            ? (RuntimeException) e.getCause()
+                            : new IllegalStateException(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while writing users", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return result;
+    }
+
+    /**
+     * Stored {@code content_hash} by id for whichever of {@code ids} exist. Rows written before the hash
+     * column existed map to null.
+     */
+    public Map<Long, Long> findContentHashes(List<Long> ids) {
+        Map<Long, Long> hashes = new HashMap<>(ids.size() * 2);
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            List<Long> batch = ids.subList(from, Math.min(ids.size(), from + batchSize));
+            String sql = contentHashSql.computeIfAbsent(batch.size(), size ->
+                    "SELECT id, content_hash FROM " + UserTable.NAME + " WHERE id IN (" + placeholders(size) + ")");
+            jdbcTemplate.query(sql, ps -> {
+                for (int i = 0; i < batch.size(); i++) {
+                    ps.setLong(i + 1, batch.get(i));
+                }
+            }, rs -> {
+                long hash = rs.getLong(2);
+                hashes.put(rs.getLong(1), rs.wasNull() ? null : hash);
+            });
+        }
+        return hashes;
+    }
+
+    /**
+     * The database's current time. Take it before a load writes anything and pass it to {@link #deleteAllExcept}.
+     */
+    public OffsetDateTime databaseTime() {
+        return jdbcTemplate.queryForObject("SELECT CURRENT_TIMESTAMP", OffsetDateTime.class);
+    }
+
+    /**
+     * Delete every user written before {@code writtenBefore} whose id is not in {@code keep}. Ids are scanned
+     * page by page and deleted in batches, each batch locking its rows and checking their {@code written_at}
+     * again, so a user inserted or rewritten since, by this load or any other writer, is never deleted.
+     * Rows carry the start time of the transaction that wrote them, so a write whose transaction began
+     * before {@code writtenBefore} but committed after it still counts as older. Returns the deleted ids.
+     */
+    public List<Long> deleteAllExcept(Set<Long> keep, OffsetDateTime writtenBefore) {
+        List<Long> deleted = new ArrayList<>();
+        long after = Long.MIN_VALUE;
+        List<Long> page;
+        do {
+            page = jdbcTemplate.queryForList(SCAN_SQL, Long.class, after, writtenBefore, SCAN_PAGE);
+            List<Long> stale = new ArrayList<>();
+            for (Long id : page) {
+                if (!keep.contains(id)) {
+                    stale.add(id);
+                }
+            }
+            for (int from = 0; from < stale.size(); from += batchSize) {
+                deleted.addAll(deleteBatch(stale.subList(from, Math.min(stale.size(), from + batchSize)), writtenBefore));
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1);
+            }
+        } while (page.size() == SCAN_PAGE);
+        return deleted;
+    }
+
+    private List<Long> deleteBatch(List<Long> batch, OffsetDateTime writtenBefore) {
+        List<Long> ids = transactionTemplate.execute(status -> {
+            String lockSql = lockStaleSql.computeIfAbsent(batch.size(), size -> "SELECT id FROM " + UserTable.NAME
+                    + " WHERE id IN (" + placeholders(size) + ") AND (written_at IS NULL OR written_at < ?) FOR UPDATE");
+            List<Object> args = new ArrayList<>(batch);
+            args.add(writtenBefore);
+            List<Long> locked = jdbcTemplate.queryForList(lockSql, Long.class, args.toArray());
+            if (!locked.isEmpty()) {
+                String sql = deleteSql.computeIfAbsent(locked.size(), size ->
+                        "DELETE FROM " + UserTable.NAME + " WHERE id IN (" + placeholders(size) + ")");
+                jdbcTemplate.update(sql, locked.toArray());
+            }
+            return locked;
+        });
+        if (!ids.isEmpty()) {
+            eventPublisher.publishEvent(UsersWrittenEvent.deleted(ids));
+        }
+        return ids;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (batchExecutor != null) {
+            batchExecutor.shutdown();
+        }
+    }
+
+    private BulkWriteResult writeBatch(List<User> batch) {
+        try {
+            return writeRows(batch);
+        } catch (DataIntegrityViolationException e) {
+            log.warn("A batch of {} users broke a constraint; writing it row by row: {}", batch.size(),
+                    e.getMostSpecificCause().getMessage());
+            return writeRowByRow(batch);
+        }
+    }
+
+    /**
+     * Write each user in its own transaction. A row may only conflict with one later in the batch that
+     * has yet to move its email or username away, so the failures are retried for as long as a pass
+     * writes anything.
+     */
+    private BulkWriteResult writeRowByRow(List<User> batch) {
+        BulkWriteResult result = BulkWriteResult.EMPTY;
+        List<User> pending = batch;
+        while (true) {
+            List<User> failed = new ArrayList<>();
+            for (User user : pending) {
+                try {
+                    result = result.plus(writeRows(List.of(user)));
+                } catch (DataIntegrityViolationException e) {
+                    failed.add(user);
+                }
+            }
+            if (failed.isEmpty()) {
+                return result;
+            }
+            if (failed.size() == pending.size()) {
+                log.warn("Skipped {} users that still break a constraint; ids {}", failed.size(),
+                        failed.stream().map(User::getId).collect(Collectors.toList()));
+                return result;
+            }
+            pending = failed;
+        }
+    }
+
+    private BulkWriteResult writeRows(List<User> batch) {
+        return transactionTemplate.execute(status -> {
+            Set<Long> existing = existingIds(batch);
+            jdbcTemplate.execute(upsertSql.computeIfAbsent(batch.size(), this::buildUpsertSql),
+                    (PreparedStatement ps) -> {
+                        int offset = 0;
+                        for (User user : batch) {
+                            UserTable.bind(ps, offset, user);
+                            offset += UserTable.COLUMNS.size();
+                        }
+                        return ps.executeUpdate();
+                    });
+            return new BulkWriteResult(batch.size() - existing.size(), existing.size());
+        });
+    }
+
+    private Set<Long> existingIds(List<User> batch) {
+        String sql = existingIdsSql.computeIfAbsent(batch.size(), size ->
+                "SELECT id FROM " + UserTable.NAME + " WHERE id IN (" + placeholders(size) + ")");
+        return jdbcTemplate.execute(sql, (PreparedStatement ps) -> {
+            for (int i = 0; i < batch.size(); i++) {
+                ps.setLong(i + 1, batch.get(i).getId());
+            }
+            Set<Long> ids = new HashSet<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
+            }
+            return ids;
+        });
+    }
+
+    private String buildUpsertSql(int rows) {
+        String row = "(" + placeholders(UserTable.COLUMNS.size()) + ", CURRENT_TIMESTAMP)";
+        String values = String.join(", ", Collections.nCopies(rows, row));
+        String columns = UserTable.COLUMN_LIST + ", written_at";
+        if (isH2()) {
+            return "MERGE INTO " + UserTable.NAME + " (" + columns + ") KEY (id) VALUES " + values;
+        }
+        String updates = UserTable.COLUMNS.stream()
+                .map(UserTable.Column::getName)
+                .filter(name -> !name.equals("id"))
+                .map(name -> name + " = EXCLUDED." + name)
+                .collect(Collectors.joining(", "));
+        return "INSERT INTO " + UserTable.NAME + " (" + columns + ") VALUES " + values
+                + " ON CONFLICT (id) DO UPDATE SET " + updates + ", written_at = EXCLUDED.written_at";
+    }
+
+    private boolean isH2() {
+        if (h2 == null) {
+            h2 = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "H2".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName()));
+        }
+        return h2;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static List<User> dedupeById(List<User> users) {
+        Map<Long, User> byId = new LinkedHashMap<>(users.size() * 2);
+        for (User user : users) {
+            if (user.getId() == null) {
+                throw new IllegalArgumentException("Cannot upsert a user without an id");
+            }
+            byId.put(user.getId(), user);
+        }
+        if (byId.size() != users.size()) {
+            log.warn("Dropped {} duplicate ids from a bulk write of {} users.", users.size() - byId.size(), users.size());
+        }
+        return new ArrayList<>(byId.values());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.userapi.repository;
+
+import com.example.userapi.model.User;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.function.Consumer;
+
+/**
+ * Forward-only reads over the whole {@code users} table that never hold more than one fetch
+ * of rows in memory. PostgreSQL only honours the fetch size inside a transaction, so every
+ * scan runs in a read-only one.
+ */
+@Repository
+public class UserCursorRepository {
+
+    private static final String SELECT_ALL_BY_ID =
+            "SELECT " + UserTable.COLUMN_LIST + " FROM " + UserTable.NAME + " ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public UserCursorRepository(DataSource dataSource, PlatformTransactionManager transactionManager,
+                                @Value("${users.cursor.fetch-size:500}") int fetchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Hand every user to {@code consumer} in id order.
+     */
+    public void forEach(Consumer<User> consumer) {
+        readOnlyTransaction.executeWithoutResult(status ->
+                jdbcTemplate.query(SELECT_ALL_BY_ID, (RowCallbackHandler) rs -> consumer.accept(UserTable.map(rs))));
+    }
+
+    /**
+     * Hand the current row of every user to {@code handler} in id order, reading only {@code columns}
+     * (a comma-separated list). For scans that need a few columns and would waste time mapping whole users.
+     */
+    public void forEachRow(String columns, RowCallbackHandler handler) {
+        readOnlyTransaction.executeWithoutResult(status ->
+                jdbcTemplate.query("SELECT " + columns + " FROM " + UserTable.NAME + " ORDER BY id", handler));
+    }
+
+    /**
+     * As {@link #forEachRow(String, RowCallbackHandler)}, fetching {@code fetchSize} rows per round trip
+     * instead of the default, for scans that would rather trade memory for fewer round trips.
+     */
+    public void forEachRow(String columns, int fetchSize, RowCallbackHandler handler) {
+        readOnlyTransaction.executeWithoutResult(status ->
+                jdbcTemplate.query("SELECT " + columns + " FROM " + UserTable.NAME + " ORDER BY id",
+                        // Runs after JdbcTemplate applies its own fetch size, so this one wins.
+                        ps -> ps.setFetchSize(fetchSize), handler));
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.userapi.repository;
+
+import com.example.userapi.model.User;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Projections of {@code User} onto a caller-chosen set of fields. Only the columns behind the
+ * requested fields appear in the SQL select list. Fields are named by their JSON path,
+ * e.g. {@code firstName} or {@code company.address.city}; rows come back as nested maps
+ * shaped like the full {@code User} JSON.
+ */
+public interface UserProjectionRepository {
+
+    /**
+     * Every field path that may be requested, including embedded objects such as {@code address}
+     * which stand for all of their fields.
+     */
+    Set<String> selectableFields();
+
+    List<Map<String, Object>> findProjectedByIdGreaterThan(List<String> fields, long afterId, int limit);
+
+    List<Map<String, Object>> findProjectedByRole(List<String> fields, String role, long afterId, int limit);
+
+    List<Map<String, Object>> findProjectedById(List<String> fields, Long id);
+
+    List<Map<String, Object>> findProjectedBySsn(List<String> fields, String ssn);
+
+    /**
+     * Project an already loaded user onto {@code fields}, in the same shape the queries return.
+     */
+    Map<String, Object> project(User user, List<String> fields);
+}
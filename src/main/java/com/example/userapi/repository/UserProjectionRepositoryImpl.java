@@ -0,0 +1,185 @@
+package com.example.userapi.repository;
+
+import com.example.userapi.model.User;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import org.springframework.beans.PropertyAccessorFactory;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.ManagedType;
+import javax.persistence.metamodel.SingularAttribute;
+import java.lang.reflect.AnnotatedElement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * Criteria-based implementation of {@link UserProjectionRepository}. The selectable paths are read
+ * from the JPA metamodel once, so new columns on {@code User} or its embeddables become selectable
+ * without touching this class.
+ */
+class UserProjectionRepositoryImpl implements UserProjectionRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile Map<String, List<String>> leavesByField;
+
+    @Override
+    public Set<String> selectableFields() {
+        return Collections.unmodifiableSet(leavesByField().keySet());
+    }
+
+    @Override
+    public List<Map<String, Object>> findProjectedByIdGreaterThan(List<String> fields, long afterId, int limit) {
+        return query(fields, (cb, root) -> cb.greaterThan(root.get("id"), afterId), limit);
+    }
+
+    @Override
+    public List<Map<String, Object>> findProjectedByRole(List<String> fields, String role, long afterId, int limit) {
+        return query(fields, (cb, root) -> cb.and(cb.equal(root.get("role"), role), cb.greaterThan(root.get("id"), afterId)),
+                limit);
+    }
+
+    @Override
+    public List<Map<String, Object>> findProjectedById(List<String> fields, Long id) {
+        return query(fields, (cb, root) -> cb.equal(root.get("id"), id), 1);
+    }
+
+    @Override
+    public List<Map<String, Object>> findProjectedBySsn(List<String> fields, String ssn) {
+        return query(fields, (cb, root) -> cb.equal(root.get("ssn"), ssn), 1);
+    }
+
+    @Override
+    public Map<String, Object> project(User user, List<String> fields) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (String leaf : expand(fields)) {
+            Object value = user;
+            for (String segment : leaf.split("\\.")) {
+                value = value == null ? null : PropertyAccessorFactory.forBeanPropertyAccess(value).getPropertyValue(segment);
+            }
+            put(row, leaf, value);
+        }
+        return row;
+    }
+
+    private List<Map<String, Object>> query(List<String> fields,
+                                            BiFunction<CriteriaBuilder, Root<User>, Predicate> where, int limit) {
+        List<String> leaves = expand(fields);
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<User> root = query.from(User.class);
+        List<Selection<?>> selections = new ArrayList<>(leaves.size());
+        for (String leaf : leaves) {
+            selections.add(path(root, leaf));
+        }
+        query.multiselect(selections)
+                .where(where.apply(cb, root))
+                .orderBy(cb.asc(root.get("id")));
+
+        TypedQuery<Tuple> typed = entityManager.createQuery(query);
+        if (limit > 0) {
+            typed.setMaxResults(limit);
+        }
+
+        List<Tuple> tuples = typed.getResultList();
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < leaves.size(); i++) {
+                put(row, leaves.get(i), tuple.get(i));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Resolve requested fields to leaf columns, always leading with {@code id}.
+     */
+    private List<String> expand(List<String> fields) {
+        Map<String, List<String>> known = leavesByField();
+        Set<String> leaves = new LinkedHashSet<>();
+        leaves.add("id");
+        for (String field : fields) {
+            List<String> expanded = known.get(field);
+            if (expanded == null) {
+                throw new IllegalArgumentException("Unknown field: " + field);
+            }
+            leaves.addAll(expanded);
+        }
+        return new ArrayList<>(leaves);
+    }
+
+    private static Path<Object> path(Root<User> root, String leaf) {
+        Path<Object> path = null;
+        for (String segment : leaf.split("\\.")) {
+            path = path == null ? root.get(segment) : path.get(segment);
+        }
+        return path;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void put(Map<String, Object> row, String leaf, Object value) {
+        String[] segments = leaf.split("\\.");
+        Map<String, Object> target = row;
+        for (int i = 0; i < segments.length - 1; i++) {
+            target = (Map<String, Object>) target.computeIfAbsent(segments[i], key -> new LinkedHashMap<>());
+        }
+        target.put(segments[segments.length - 1], value);
+    }
+
+    private Map<String, List<String>> leavesByField() {
+        if (leavesByField == null) {
+            Map<String, List<String>> fields = new LinkedHashMap<>();
+            collect(entityManager.getMetamodel().entity(User.class), "", fields);
+            leavesByField = Collections.unmodifiableMap(fields);
+        }
+        return leavesByField;
+    }
+
+    private static List<String> collect(ManagedType<?> type, String prefix, Map<String, List<String>> fields) {
+        List<String> leaves = new ArrayList<>();
+        for (Attribute<?, ?> attribute : type.getAttributes()) {
+            if (!(attribute instanceof SingularAttribute) || isHidden(attribute)) {
+                continue;
+            }
+            String name = prefix + attribute.getName();
+            List<String> own;
+            if (attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.EMBEDDED) {
+                ManagedType<?> embedded = (ManagedType<?>) ((SingularAttribute<?, ?>) attribute).getType();
+                own = collect(embedded, name + ".", fields);
+            } else {
+                own = List.of(name);
+            }
+            fields.put(name, own);
+            leaves.addAll(own);
+        }
+        return leaves;
+    }
+
+    /**
+     * Fields kept out of JSON responses (such as the content hash) are not selectable either.
+     */
+    private static boolean isHidden(Attribute<?, ?> attribute) {
+        return attribute.getJavaMember() instanceof AnnotatedElement
+                && ((AnnotatedElement) attribute.getJavaMember()).isAnnotationPresent(JsonIgnore.class);
+    }
+}
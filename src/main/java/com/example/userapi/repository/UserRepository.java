@@ -1,18 +1,70 @@
 package com.example.userapi.repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.userapi.model.User;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
+/**
+ * Finders with the {@code HINT_CACHEABLE} hint keep their results (ids) in Hibernate's query cache and the users
+ * themselves in the second-level cache; see {@code HibernateCacheConfig}.
+ */
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserProjectionRepository {
+
+	@QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+	List<User> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+	/**
+	 * One keyset page of users with the given role, in id order. Backed by the (role, id) index.
+	 */
+	@QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+	List<User> findByRoleAndIdGreaterThanOrderByIdAsc(String role, Long id, Pageable pageable);
 
-	List<User> findByRole(String role);
+	/**
+	 * Youngest first, continuing after ({@code afterDate}, {@code afterId}); pass the upper bound and
+	 * {@code Long.MAX_VALUE} for the first page. Backed by the (birth_date, id) index.
+	 */
+	@QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+	@Query("select u from User u where u.birthDate between :from and :afterDate"
+			+ " and (u.birthDate < :afterDate or u.id < :afterId)"
+			+ " order by u.birthDate desc, u.id desc")
+	List<User> findYoungestFirst(@Param("from") LocalDate from, @Param("afterDate") LocalDate afterDate,
+			@Param("afterId") Long afterId, Pageable pageable);
 
+	/**
+	 * Oldest first, continuing after ({@code afterDate}, {@code afterId}); pass the lower bound and
+	 * {@code Long.MIN_VALUE} for the first page. Backed by the (birth_date, id) index.
+	 */
+	@QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+	@Query("select u from User u where u.birthDate between :afterDate and :to"
+			+ " and (u.birthDate > :afterDate or u.id > :afterId)"
+			+ " order by u.birthDate asc, u.id asc")
+	List<User> findOldestFirst(@Param("afterDate") LocalDate afterDate, @Param("to") LocalDate to,
+			@Param("afterId") Long afterId, Pageable pageable);
+
+	@QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
 	Optional<User> findBySsn(String ssn);
+
+	List<User> findBySsnIn(Collection<String> ssns);
+
+	@QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+	Optional<User> findByUsername(String username);
+
+	@QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
+	Optional<User> findByEmail(String email);
 	
 }
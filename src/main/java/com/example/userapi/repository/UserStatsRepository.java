@@ -0,0 +1,57 @@
+package com.example.userapi.repository;
+
+import com.example.userapi.dto.UserStats;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Grouped counts over the {@code users} table, all three groupings in one round trip.
+ * {@code GROUPING SETS} would read the table once, but CockroachDB and H2 don't both support it,
+ * so the groupings are stitched together with {@code UNION ALL}; the role branch reads only the
+ * (role, id) index.
+ */
+@Repository
+public class UserStatsRepository {
+
+    static final String UNKNOWN = "unknown";
+
+    private static final String COUNTS_SQL =
+            "SELECT 'role' AS dimension, role AS label, COUNT(*) AS user_count FROM " + UserTable.NAME + " GROUP BY role"
+            + " UNION ALL SELECT 'department', department, COUNT(*) FROM " + UserTable.NAME + " GROUP BY department"
+            + " UNION ALL SELECT 'state', user_state, COUNT(*) FROM " + UserTable.NAME + " GROUP BY user_state"
+            + " ORDER BY 1, 3 DESC, 2";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserStatsRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public UserStats countByGroup() {
+        Map<String, Long> byRole = new LinkedHashMap<>();
+        Map<String, Long> byDepartment = new LinkedHashMap<>();
+        Map<String, Long> byState = new LinkedHashMap<>();
+        jdbcTemplate.query(COUNTS_SQL, rs -> {
+            String group = rs.getString(2);
+            Map<String, Long> counts;
+            switch (rs.getString(1)) {
+                case "role":
+                    counts = byRole;
+                    break;
+                case "department":
+                    counts = byDepartment;
+                    break;
+                default:
+                    counts = byState;
+            }
+            counts.merge(group == null ? UNKNOWN : group, rs.getLong(3), Long::sum);
+        });
+        long total = byRole.values().stream().mapToLong(Long::longValue).sum();
+        return new UserStats(total, byRole, byDepartment, byState, Instant.now());
+    }
+}
@@ -0,0 +1,354 @@
+package com.example.userapi.repository;
+
+import com.example.userapi.model.Address;
+import com.example.userapi.model.Bank;
+import com.example.userapi.model.Company;
+import com.example.userapi.model.Coordinates;
+import com.example.userapi.model.Crypto;
+import com.example.userapi.model.Hair;
+import com.example.userapi.model.User;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Flattened column layout of the {@code users} table as mapped by {@link User} and its
+ * embedded {@code Address}, {@code Company}, {@code Bank}, {@code Hair} and {@code Crypto}.
+ * Used by the plain-JDBC paths that bypass Hibernate.
+ */
+public final class UserTable {
+
+    public static final String NAME = "users";
+
+    public static final List<Column> COLUMNS = List.of(
+            new Column("id", Types.BIGINT, User::getId),
+            new Column("first_name", Types.VARCHAR, User::getFirstName),
+            new Column("last_name", Types.VARCHAR, User::getLastName),
+            new Column("maiden_name", Types.VARCHAR, User::getMaidenName),
+            new Column("age", Types.INTEGER, User::getAge),
+            new Column("gender", Types.VARCHAR, User::getGender),
+            new Column("email", Types.VARCHAR, User::getEmail),
+            new Column("phone", Types.VARCHAR, User::getPhone),
+            new Column("username", Types.VARCHAR, User::getUsername),
+            new Column("password", Types.VARCHAR, User::getPassword),
+            new Column("birth_date", Types.DATE, User::getBirthDate),
+            new Column("image", Types.VARCHAR, User::getImage),
+            new Column("blood_group", Types.VARCHAR, User::getBloodGroup),
+            new Column("height", Types.DOUBLE, User::getHeight),
+            new Column("weight", Types.DOUBLE, User::getWeight),
+            new Column("eye_color", Types.VARCHAR, User::getEyeColor),
+            new Column("color", Types.VARCHAR, u -> hair(u, Hair::getColor)),
+            new Column("type", Types.VARCHAR, u -> hair(u, Hair::getType)),
+            new Column("ip", Types.VARCHAR, User::getIp),
+            new Column("user_address", Types.VARCHAR, u -> address(u.getAddress(), Address::getAddress)),
+            new Column("user_city", Types.VARCHAR, u -> address(u.getAddress(), Address::getCity)),
+            new Column("user_state", Types.VARCHAR, u -> address(u.getAddress(), Address::getState)),
+            new Column("user_state_code", Types.VARCHAR, u -> address(u.getAddress(), Address::getStateCode)),
+            new Column("user_postal_code", Types.VARCHAR, u -> address(u.getAddress(), Address::getPostalCode)),
+            new Column("user_country", Types.VARCHAR, u -> address(u.getAddress(), Address::getCountry)),
+            new Column("user_latitude", Types.DOUBLE, u -> coordinates(u.getAddress(), Coordinates::getLat)),
+            new Column("user_longitude", Types.DOUBLE, u -> coordinates(u.getAddress(), Coordinates::getLng)),
+            new Column("mac_address", Types.VARCHAR, User::getMacAddress),
+            new Column("university", Types.VARCHAR, User::getUniversity),
+            new Column("card_expire", Types.VARCHAR, u -> bank(u, Bank::getCardExpire)),
+            new Column("card_number", Types.VARCHAR, u -> bank(u, Bank::getCardNumber)),
+            new Column("card_type", Types.VARCHAR, u -> bank(u, Bank::getCardType)),
+            new Column("currency", Types.VARCHAR, u -> bank(u, Bank::getCurrency)),
+            new Column("iban", Types.VARCHAR, u -> bank(u, Bank::getIban)),
+            new Column("department", Types.VARCHAR, u -> company(u, Company::getDepartment)),
+            new Column("name", Types.VARCHAR, u -> company(u, Company::getName)),
+            new Column("title", Types.VARCHAR, u -> company(u, Company::getTitle)),
+            new Column("company_address", Types.VARCHAR, u -> address(companyAddress(u), Address::getAddress)),
+            new Column("company_city", Types.VARCHAR, u -> address(companyAddress(u), Address::getCity)),
+            new Column("company_state", Types.VARCHAR, u -> address(companyAddress(u), Address::getState)),
+            new Column("company_state_code", Types.VARCHAR, u -> address(companyAddress(u), Address::getStateCode)),
+            new Column("company_postal_code", Types.VARCHAR, u -> address(companyAddress(u), Address::getPostalCode)),
+            new Column("company_country", Types.VARCHAR, u -> address(companyAddress(u), Address::getCountry)),
+            new Column("company_latitude", Types.DOUBLE, u -> coordinates(companyAddress(u), Coordinates::getLat)),
+            new Column("company_longitude", Types.DOUBLE, u -> coordinates(companyAddress(u), Coordinates::getLng)),
+            new Column("ein", Types.VARCHAR, User::getEin),
+            new Column("ssn", Types.VARCHAR, User::getSsn),
+            new Column("user_agent", Types.VARCHAR, User::getUserAgent),
+            new Column("coin", Types.VARCHAR, u -> crypto(u, Crypto::getCoin)),
+            new Column("wallet", Types.VARCHAR, u -> crypto(u, Crypto::getWallet)),
+            new Column("network", Types.VARCHAR, u -> crypto(u, Crypto::getNetwork)),
+            new Column("role", Types.VARCHAR, User::getRole),
+            new Column("content_hash", Types.BIGINT, UserTable::contentHash));
+
+    public static final String COLUMN_LIST = COLUMNS.stream().map(Column::getName).collect(Collectors.joining(", "));
+
+    private static final List<Column> HASHED_COLUMNS = COLUMNS.stream()
+            .filter(column -> !column.name.equals("id") && !column.name.equals("content_hash"))
+            .collect(Collectors.toList());
+
+    /** Built once rather than concatenated for every row mapped. */
+    private static final AddressColumns USER_ADDRESS = new AddressColumns("user_");
+    private static final AddressColumns COMPANY_ADDRESS = new AddressColumns("company_");
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private UserTable() {
+    }
+
+    /**
+     * 64-bit FNV-1a hash of every column except {@code id} and {@code content_hash} itself.
+     * Two users with the same column values always hash alike, however they were built.
+     */
+    public static long contentHash(User user) {
+        long hash = FNV_OFFSET;
+        for (Column column : HASHED_COLUMNS) {
+            Object value = column.getter.apply(user);
+            if (value == null) {
+                hash = (hash ^ '\uffff') * FNV_PRIME;
+            } else {
+                String text = value.toString();
+                for (int i = 0; i < text.length(); i++) {
+                    hash = (hash ^ text.charAt(i)) * FNV_PRIME;
+                }
+            }
+            hash = (hash ^ '\u001f') * FNV_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * Bind every column of {@code user} starting at parameter {@code offset + 1}.
+     */
+    public static void bind(PreparedStatement ps, int offset, User user) throws SQLException {
+        for (int i = 0; i < COLUMNS.size(); i++) {
+            Column column = COLUMNS.get(i);
+            Object value = column.getter.apply(user);
+            if (value == null) {
+                ps.setNull(offset + i + 1, column.sqlType);
+            } else {
+                ps.setObject(offset + i + 1, value);
+            }
+        }
+    }
+
+    /**
+     * Rebuild a {@link User} from the current row of a {@code SELECT} over {@link #COLUMN_LIST}.
+     */
+    public static User map(ResultSet rs) throws SQLException {
+        return map(Row.of(rs));
+    }
+
+    /**
+     * Rebuild a {@link User} from one row of column values, wherever they are kept.
+     */
+    public static User map(Row row) throws SQLException {
+        User user = new User();
+        user.setId(row.getLong("id"));
+        user.setFirstName(row.getString("first_name"));
+        user.setLastName(row.getString("last_name"));
+        user.setMaidenName(row.getString("maiden_name"));
+        user.setAge(row.getInt("age"));
+        user.setGender(row.getString("gender"));
+        user.setEmail(row.getString("email"));
+        user.setPhone(row.getString("phone"));
+        user.setUsername(row.getString("username"));
+        user.setPassword(row.getString("password"));
+        user.setBirthDate(row.getDate("birth_date"));
+        user.setImage(row.getString("image"));
+        user.setBloodGroup(row.getString("blood_group"));
+        user.setHeight(row.getDouble("height"));
+        user.setWeight(row.getDouble("weight"));
+        user.setEyeColor(row.getString("eye_color"));
+        user.setIp(row.getString("ip"));
+        user.setMacAddress(row.getString("mac_address"));
+        user.setUniversity(row.getString("university"));
+        user.setEin(row.getString("ein"));
+        user.setSsn(row.getString("ssn"));
+        user.setUserAgent(row.getString("user_agent"));
+        user.setRole(row.getString("role"));
+        long contentHash = row.getLong("content_hash");
+        user.setContentHash(row.wasNull() ? null : contentHash);
+
+        Hair hair = new Hair();
+        hair.setColor(row.getString("color"));
+        hair.setType(row.getString("type"));
+        user.setHair(hair);
+
+        user.setAddress(mapAddress(row, USER_ADDRESS));
+
+        Bank bank = new Bank();
+        bank.setCardExpire(row.getString("card_expire"));
+        bank.setCardNumber(row.getString("card_number"));
+        bank.setCardType(row.getString("card_type"));
+        bank.setCurrency(row.getString("currency"));
+        bank.setIban(row.getString("iban"));
+        user.setBank(bank);
+
+        Company company = new Company();
+        company.setDepartment(row.getString("department"));
+        company.setName(row.getString("name"));
+        company.setTitle(row.getString("title"));
+        company.setAddress(mapAddress(row, COMPANY_ADDRESS));
+        user.setCompany(company);
+
+        Crypto crypto = new Crypto();
+        crypto.setCoin(row.getString("coin"));
+        crypto.setWallet(row.getString("wallet"));
+        crypto.setNetwork(row.getString("network"));
+        user.setCrypto(crypto);
+        return user;
+    }
+
+    private static Address mapAddress(Row row, AddressColumns columns) throws SQLException {
+        Address address = new Address();
+        address.setAddress(row.getString(columns.address));
+        address.setCity(row.getString(columns.city));
+        address.setState(row.getString(columns.state));
+        address.setStateCode(row.getString(columns.stateCode));
+        address.setPostalCode(row.getString(columns.postalCode));
+        address.setCountry(row.getString(columns.country));
+        double lat = row.getDouble(columns.latitude);
+        boolean latNull = row.wasNull();
+        double lng = row.getDouble(columns.longitude);
+        if (!latNull || !row.wasNull()) {
+            Coordinates coordinates = new Coordinates();
+            coordinates.setLat(lat);
+            coordinates.setLng(lng);
+            address.setCoordinates(coordinates);
+        }
+        return address;
+    }
+
+    private static <T> T hair(User user, Function<Hair, T> getter) {
+        return user.getHair() == null ? null : getter.apply(user.getHair());
+    }
+
+    private static <T> T bank(User user, Function<Bank, T> getter) {
+        return user.getBank() == null ? null : getter.apply(user.getBank());
+    }
+
+    private static <T> T company(User user, Function<Company, T> getter) {
+        return user.getCompany() == null ? null : getter.apply(user.getCompany());
+    }
+
+    private static <T> T crypto(User user, Function<Crypto, T> getter) {
+        return user.getCrypto() == null ? null : getter.apply(user.getCrypto());
+    }
+
+    private static Address companyAddress(User user) {
+        return user.getCompany() == null ? null : user.getCompany().getAddress();
+    }
+
+    private static <T> T address(Address address, Function<Address, T> getter) {
+        return address == null ? null : getter.apply(address);
+    }
+
+    private static Double coordinates(Address address, Function<Coordinates, Double> getter) {
+        return address == null || address.getCoordinates() == null ? null : getter.apply(address.getCoordinates());
+    }
+
+    public static final class Column {
+        private final String name;
+        private final int sqlType;
+        private final Function<User, Object> getter;
+
+        Column(String name, int sqlType, Function<User, Object> getter) {
+            this.name = name;
+            this.sqlType = sqlType;
+            this.getter = getter;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getSqlType() {
+            return sqlType;
+        }
+
+        /**
+         * This column's value for {@code user}; null when it or the object holding it is absent.
+         */
+        public Object valueOf(User user) {
+            return getter.apply(user);
+        }
+    }
+
+    /** Names of the columns of one embedded {@link Address}. */
+    private static final class AddressColumns {
+        private final String address;
+        private final String city;
+        private final String state;
+        private final String stateCode;
+        private final String postalCode;
+        private final String country;
+        private final String latitude;
+        private final String longitude;
+
+        AddressColumns(String prefix) {
+            this.address = prefix + "address";
+            this.city = prefix + "city";
+            this.state = prefix + "state";
+            this.stateCode = prefix + "state_code";
+            this.postalCode = prefix + "postal_code";
+            this.country = prefix + "country";
+            this.latitude = prefix + "latitude";
+            this.longitude = prefix + "longitude";
+        }
+    }
+
+    /**
+     * One row of column values read by name, the subset of {@link ResultSet} that {@link #map(Row)} needs.
+     * Numeric getters return 0 for null; {@link #wasNull()} tells the two apart, as with JDBC.
+     */
+    public interface Row {
+
+        String getString(String column) throws SQLException;
+
+        int getInt(String column) throws SQLException;
+
+        long getLong(String column) throws SQLException;
+
+        double getDouble(String column) throws SQLException;
+
+        LocalDate getDate(String column) throws SQLException;
+
+        boolean wasNull() throws SQLException;
+
+        static Row of(ResultSet rs) {
+            return new Row() {
+                @Override
+                public String getString(String column) throws SQLException {
+                    return rs.getString(column);
+                }
+
+                @Override
+                public int getInt(String column) throws SQLException {
+                    return rs.getInt(column);
+                }
+
+                @Override
+                public long getLong(String column) throws SQLException {
+                    return rs.getLong(column);
+                }
+
+                @Override
+                public double getDouble(String column) throws SQLException {
+                    return rs.getDouble(column);
+                }
+
+                @Override
+                public LocalDate getDate(String column) throws SQLException {
+                    return rs.getObject(column, LocalDate.class);
+                }
+
+                @Override
+                public boolean wasNull() throws SQLException {
+                    return rs.wasNull();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.userapi.service;
+
+import com.example.userapi.event.UsersLoadedEvent;
+import com.example.userapi.repository.DatasetVersionRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Names the state of the user data the read endpoints serve, for use as an HTTP validator. The version
+ * lives in the database ({@code dataset_version}), so every instance behind a load balancer hands out
+ * the same tags for the same data.
+ * <p>
+ * {@link UserService#loadUsers} {@link #advance advances} it after every load, once the {@code UsersLoadedEvent}
+ * listeners have emptied the caches and rebuilt the snapshot and indexes, so a response is never labelled
+ * with a version newer than the data in it. Every {@code users.dataset.poll-interval} the stored version is
+ * checked; when another instance has moved it on, a {@code UsersLoadedEvent} is published here too, and only
+ * once its listeners have caught up is the new version taken. Until the first check, and while the database
+ * cannot be read, a tag unique to this process is used, which no client can hold. A load whose advance fails
+ * keeps that tag, and the advance is retried at each check until it succeeds. A stored version no newer than
+ * the last one served is never taken, as it may still name the data from before such a load.
+ */
+@Slf4j
+@Component
+public class DatasetVersion {
+
+    private final DatasetVersionRepository datasetVersionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration pollInterval;
+    private final String bootTag = "boot-" + Long.toString(System.currentTimeMillis(), 36);
+    private ScheduledExecutorService poller;
+    private volatile long version = -1;
+    /** Highest version handed out so far; guarded by {@code this}. */
+    private long lastServed = -1;
+    /** A load by this instance has yet to be recorded in the database; guarded by {@code this}. */
+    private boolean advancePending;
+
+    public DatasetVersion(DatasetVersionRepository datasetVersionRepository, ApplicationEventPublisher eventPublisher,
+                          @Value("${users.dataset.poll-interval:5s}") Duration pollInterval) {
+        this.datasetVersionRepository = datasetVersionRepository;
+        this.eventPublisher = eventPublisher;
+        this.pollInterval = pollInterval;
+    }
+
+    public String current() {
+        long current = version;
+        return current < 0 ? bootTag : Long.toString(current, 36);
+    }
+
+    /**
+     * Record a load by this instance, whose listeners have already run.
+     */
+    public synchronized void advance() {
+        advancePending = true;
+        tryAdvance();
+    }
+
+    /**
+     * Catch up with a load by another instance, if there has been one since the last check, or retry
+     * recording one by this instance.
+     */
+    public synchronized void refresh() {
+        if (advancePending) {
+            tryAdvance();
+            return;
+        }
+        long stored;
+        try {
+            stored = datasetVersionRepository.find();
+        } catch (RuntimeException e) {
+            log.warn("Could not read the dataset version: {}", e.getMessage());
+            return;
+        }
+        if (stored <= lastServed) {
+            return;
+        }
+        if (version >= 0) {
+            log.info("Dataset version moved from {} to {} elsewhere; refreshing.", version, stored);
+            eventPublisher.publishEvent(new UsersLoadedEvent(true, null));
+        }
+        take(stored);
+    }
+
+    private void tryAdvance() {
+        try {
+            take(datasetVersionRepository.advance(System.currentTimeMillis()));
+            advancePending = false;
+        } catch (RuntimeException e) {
+            // Without the shared version, only a tag of our own is sure not to name older data.
+            version = -1;
+            log.warn("Could not advance the dataset version; sending a process-local ETag and retrying at the next check: {}",
+                    e.getMessage());
+        }
+    }
+
+    private void take(long stored) {
+        version = stored;
+        lastServed = Math.max(lastServed, stored);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+        if (!pollInterval.isZero()) {
+            poller = Executors.newSingleThreadScheduledExecutor(WorkerThreads.platform().factory("dataset-version-"));
+            poller.scheduleWithFixedDelay(this::refresh, pollInterval.toMillis(), pollInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.userapi.service;
+
+import com.example.userapi.dto.LoadJobStatus;
+import com.example.userapi.dto.LoadJobStatus.State;
+import com.example.userapi.service.ingest.IngestionProgress;
+import com.example.userapi.service.ingest.IngestionResult;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.annotation.PreDestroy;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Runs {@link UserService#loadUsers} and {@link UserService#importUsers} as background jobs on a small
+ * dedicated pool, away from the request threads. Only one load runs at a time: asking for another while one is queued or running
+ * returns that job instead of starting a second. The last {@code users.load.job-history} jobs can be
+ * looked up by id.
+ */
+@Slf4j
+@Service
+public class LoadJobService {
+
+    private static final String UPSTREAM = "upstream";
+
+    private final UserService userService;
+    private final ThreadPoolExecutor jobExecutor;
+    private final Map<String, LoadJob> jobs;
+    private LoadJob current;
+
+    public LoadJobService(UserService userService, WorkerThreads workerThreads,
+                          @Value("${users.load.job-history:20}") int jobHistory) {
+        this.userService = userService;
+        // One worker, plus room for a job submitted while the previous one's thread is winding down.
+        this.jobExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(1),
+                workerThreads.factory("user-load-job-"));
+        this.jobs = Collections.synchronizedMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, LoadJob> eldest) {
+                return size() > jobHistory;
+            }
+        });
+    }
+
+    /**
+     * Start a load, or return the one already queued or running (whatever its mode).
+     */
+    public LoadJobStatus submit(LoadMode mode) {
+        return submit(mode, UPSTREAM, progress -> userService.loadUsers(progress, mode));
+    }
+
+    /**
+     * Start importing {@code fileName} from the import directory at byte {@code fromOffset}, or return the
+     * load or import already queued or running. The file is checked before anything is queued.
+     */
+    public LoadJobStatus submitImport(LoadMode mode, String fileName, long fromOffset) {
+        Path file = userService.resolveImportFile(fileName, fromOffset, mode);
+        return submit(mode, "file:" + fileName,
+                progress -> userService.importUsers(progress, mode, file, fromOffset));
+    }
+
+    private synchronized LoadJobStatus submit(LoadMode mode, String source, Function<IngestionProgress, IngestionResult> task) {
+        if (current != null && !current.isDone()) {
+            log.info("Load job {} is already {}; not starting another.", current.id, current.state);
+            return current.status();
+        }
+
+        LoadJob job = new LoadJob(UUID.randomUUID().toString(), mode, source, task);
+        try {
+            jobExecutor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Load job queue is full, try again shortly");
+        }
+        jobs.put(job.id, job);
+        current = job;
+        log.info("Queued {} load job {} from {}.", mode, job.id, source);
+        return job.status();
+    }
+
+    public Optional<LoadJobStatus> getStatus(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(LoadJob::status);
+    }
+
+    private void run(LoadJob job) {
+        job.startedAt = Instant.now();
+        job.progress = new IngestionProgress();
+        job.state = State.RUNNING;
+        State outcome = State.FAILED;
+        try {
+            job.task.apply(job.progress);
+            outcome = State.SUCCEEDED;
+            log.info("Load job {} finished.", job.id);
+        } catch (RuntimeException e) {
+            job.error = e.getMessage();
+            log.error("Load job {} failed: {}", job.id, e.getMessage());
+        } finally {
+            job.finishedAt = Instant.now();
+            job.state = outcome;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        jobExecutor.shutdownNow();
+    }
+
+    private static final class LoadJob {
+        private final String id;
+        private final LoadMode mode;
+        private final String source;
+        private final Function<IngestionProgress, IngestionResult> task;
+        private final Instant submittedAt = Instant.now();
+        private volatile IngestionProgress progress;
+        private volatile State state = State.QUEUED;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        LoadJob(String id, LoadMode mode, String source, Function<IngestionProgress, IngestionResult> task) {
+            this.id = id;
+            this.mode = mode;
+            this.source = source;
+            this.task = task;
+        }
+
+        boolean isDone() {
+            return state == State.SUCCEEDED || state == State.FAILED;
+        }
+
+        LoadJobStatus status() {
+            IngestionProgress running = progress;
+            return new LoadJobStatus(id, mode, source, state, submittedAt, startedAt, finishedAt,
+                    running == null ? null : running.snapshot(), error);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.userapi.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Locale;
+
+/**
+ * How a load writes what it fetched.
+ */
+public enum LoadMode {
+    /** Upsert every upstream user. */
+    FULL,
+    /** Write only new or changed users (by content hash) and delete users the upstream no longer has. */
+    DELTA;
+
+    public static LoadMode parse(String mode) {
+        try {
+            return valueOf(mode.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown load mode '" + mode + "', expected full or delta");
+        }
+    }
+}
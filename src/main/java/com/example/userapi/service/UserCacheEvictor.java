@@ -0,0 +1,58 @@
+package com.example.userapi.service;
+
+import com.example.userapi.config.CacheConfig;
+import com.example.userapi.event.UsersLoadedEvent;
+import com.example.userapi.event.UsersWrittenEvent;
+import com.example.userapi.model.User;
+import lombok.extern.slf4j.Slf4j;
+
+import org.hibernate.SessionFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Drops every cached user once a load has written new data, so cached reads are never older than the last load.
+ * <p>
+ * Hibernate's second-level and query caches are also kept in step with writes it does not see: every
+ * {@link UsersWrittenEvent} from the bulk repository evicts the users it wrote or deleted along with every cached
+ * query result. A read racing a write can still put the old row back, so both are emptied again after the load.
+ */
+@Slf4j
+@Component
+public class UserCacheEvictor {
+
+    private final CacheManager cacheManager;
+    private final org.hibernate.Cache hibernateCache;
+
+    public UserCacheEvictor(CacheManager cacheManager, EntityManagerFactory entityManagerFactory) {
+        this.cacheManager = cacheManager;
+        this.hibernateCache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    /**
+     * Evict the second-level entries of users just written or deleted outside Hibernate, and every cached query result.
+     */
+    @EventListener
+    public void onUsersWritten(UsersWrittenEvent event) {
+        for (Long id : event.ids()) {
+            hibernateCache.evictEntityData(User.class, id);
+        }
+        hibernateCache.evictQueryRegions();
+    }
+
+    @EventListener
+    public void onUsersLoaded(UsersLoadedEvent event) {
+        for (String name : new String[] {CacheConfig.USERS_BY_ID, CacheConfig.USERS_BY_SSN}) {
+            Cache cache = cacheManager.getCache(name);
+            if (cache != null) {
+                cache.invalidate();
+            }
+        }
+        hibernateCache.evictAllRegions();
+        log.info("Invalidated user caches after load (successful: {}).", event.isSuccessful());
+    }
+}
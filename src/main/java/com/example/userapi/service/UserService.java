@@ -1,67 +1,172 @@
 package com.example.userapi.service;
 
+import com.example.userapi.config.CacheConfig;
+import com.example.userapi.dto.BatchLookupResponse;
+import com.example.userapi.dto.CursorPage;
+import com.example.userapi.event.UsersLoadedEvent;
 import com.example.userapi.exception.UserNotFoundException;
 import com.example.userapi.model.User;
+import com.example.userapi.repository.BulkWriteResult;
+import com.example.userapi.repository.UserBulkRepository;
+import com.example.userapi.repository.UserCursorRepository;
 import com.example.userapi.repository.UserRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.userapi.repository.UserTable;
+import com.example.userapi.service.ingest.IngestionProgress;
+import com.example.userapi.service.ingest.IngestionResult;
+import com.example.userapi.service.ingest.UserChunkWriter;
+import com.example.userapi.service.ingest.UserFileImporter;
+import com.example.userapi.service.ingest.UserIngestionPipeline;
+import com.example.userapi.service.lookup.UserKeyFilter;
+import com.example.userapi.service.snapshot.UserSnapshot;
+import com.example.userapi.service.snapshot.UserSnapshotService;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.util.Comparator;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 @Slf4j
 @Service
 public class UserService {
-	private final RestTemplate restTemplate;
+	private static final LocalDate EARLIEST_BIRTH_DATE = LocalDate.of(1, 1, 1);
+	private static final LocalDate LATEST_BIRTH_DATE = LocalDate.of(9999, 12, 31);
+	private static final char AGE_CURSOR_SEPARATOR = '_';
+	/** Timer name for service methods; tagged with class and method by the {@code TimedAspect}. */
+	public static final String SERVICE_TIMER = "users.service";
+
+	/**
+	 * Named field sets for the {@code profile} request parameter.
+	 */
+	private static final Map<String, List<String>> FIELD_PROFILES = Map.of(
+			"summary", List.of("id", "firstName", "lastName", "email", "role"),
+			"contact", List.of("id", "firstName", "lastName", "email", "phone", "address"),
+			"employment", List.of("id", "firstName", "lastName", "role", "company.name", "company.department", "company.title"));
+
+	private final UserIngestionPipeline ingestionPipeline;
+	private final UserFileImporter userFileImporter;
 	private final UserRepository userRepository;
-	private final ObjectMapper objectMapper;
+	private final UserBulkRepository userBulkRepository;
+	private final UserCursorRepository userCursorRepository;
+	private final UserSnapshotService userSnapshotService;
+	private final UserKeyFilter userKeyFilter;
+	private final DatasetVersion datasetVersion;
+	private final ApplicationEventPublisher eventPublisher;
+	private final CacheManager cacheManager;
+	private final Counter usersFetched;
+	private final Counter usersConverted;
+	private final Counter usersSaved;
 	@Value("${external.api.users.url}") // Fetch URL from application.properties
 	private String externalApiUrl;
+	@Value("${users.batch.chunk-size:1000}") // Keys per IN (...) query
+	private int batchLookupChunkSize;
 
-	public UserService(RestTemplate restTemplate, UserRepository userRepository, ObjectMapper objectMapper) {
-		this.restTemplate = restTemplate;
+	public UserService(UserIngestionPipeline ingestionPipeline, UserFileImporter userFileImporter, UserRepository userRepository,
+			UserBulkRepository userBulkRepository, UserCursorRepository userCursorRepository,
+			UserSnapshotService userSnapshotService, UserKeyFilter userKeyFilter, DatasetVersion datasetVersion,
+			ApplicationEventPublisher eventPublisher, CacheManager cacheManager, MeterRegistry meterRegistry) {
+		this.ingestionPipeline = ingestionPipeline;
+		this.userFileImporter = userFileImporter;
 		this.userRepository = userRepository;
-		this.objectMapper = objectMapper;
+		this.userBulkRepository = userBulkRepository;
+		this.userCursorRepository = userCursorRepository;
+		this.userSnapshotService = userSnapshotService;
+		this.userKeyFilter = userKeyFilter;
+		this.datasetVersion = datasetVersion;
+		this.eventPublisher = eventPublisher;
+		this.cacheManager = cacheManager;
+		this.usersFetched = Counter.builder("users.load.fetched")
+				.description("Users read from the upstream API or an import file").register(meterRegistry);
+		this.usersConverted = Counter.builder("users.load.converted")
+				.description("Users parsed into entities and handed to the database writer").register(meterRegistry);
+		this.usersSaved = Counter.builder("users.load.saved")
+				.description("Users inserted or updated by loads and imports").register(meterRegistry);
 	}
 
-	public List<User> loadUsers() {
-		log.info("Fetching users from external API: {}", externalApiUrl);
-
-		try {
-			// Fetch API response
-			ResponseEntity<Map> responseEntity = restTemplate.getForEntity(externalApiUrl, Map.class);
-			Map<String, Object> responseBody = responseEntity.getBody();
-
-			// Validate response
-			if (responseBody == null || !responseBody.containsKey("users")) {
-				log.warn("External API returned no users.");
-				throw new IllegalStateException("Invalid API response, no users found.");
-			}
+	/**
+	 * Stream every upstream page into the database, chunk by chunk, reporting into {@code progress} as it goes.
+	 * In {@link LoadMode#DELTA} only new or changed users are written, and users the upstream no longer
+	 * has are deleted once every page has arrived.
+	 */
+	@Timed(SERVICE_TIMER)
+	public IngestionResult loadUsers(IngestionProgress progress, LoadMode mode) {
+		log.info("Fetching users from external API: {} ({} load)", externalApiUrl, mode);
+		return load(progress, mode, writer -> ingestionPipeline.run(writer, progress));
+	}
 
-			// Convert API response to List<User>
-			List<User> users = objectMapper.convertValue(responseBody.get("users"),
-					objectMapper.getTypeFactory().constructCollectionType(List.class, User.class));
+	/**
+	 * Same as {@link #loadUsers}, reading a local dump from the import directory instead of the upstream API,
+	 * starting at byte {@code fromOffset}. In {@link LoadMode#DELTA} the file must be read whole, as users it
+	 * does not list are deleted.
+	 */
+	@Timed(SERVICE_TIMER)
+	public IngestionResult importUsers(IngestionProgress progress, LoadMode mode, Path file, long fromOffset) {
+		log.info("Importing users from {} at byte {} ({} load)", file, fromOffset, mode);
+		return load(progress, mode, writer -> userFileImporter.importFile(file, fromOffset, writer, progress));
+	}
 
-			log.info("Fetched {} users from API. Saving to database...", users.size());
-			log.debug("User data: {}", users);
+	/**
+	 * Check an import request before it is queued: {@code name} must be a readable file in the import directory,
+	 * {@code fromOffset} inside it, and a delta import must start at the beginning.
+	 */
+	public Path resolveImportFile(String name, long fromOffset, LoadMode mode) {
+		if (mode == LoadMode.DELTA && fromOffset != 0) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+					"A delta import deletes users missing from the file, so it cannot resume mid-file; use mode=full");
+		}
+		return userFileImporter.resolve(name, fromOffset);
+	}
 
-			// Save users to database
-			List<User> savedUsers = userRepository.saveAll(users);
-			log.info("Successfully saved {} users to H2 database.", savedUsers.size());
+	private IngestionResult load(IngestionProgress progress, LoadMode mode, Function<UserChunkWriter, IngestionResult> source) {
+		Set<Long> seenIds = new HashSet<>();
+		Set<Long> changedIds = new HashSet<>();
+		Set<Long> deletedIds = null;
+		IngestionResult result = null;
+		try {
+			// Users written after this, by anyone, are newer than the load and must survive its deletes.
+			OffsetDateTime started = mode == LoadMode.DELTA ? userBulkRepository.databaseTime() : null;
+			result = source.apply(chunk -> {
+				usersConverted.increment(chunk.size());
+				List<User> toWrite = mode == LoadMode.DELTA ? changedUsers(chunk, seenIds, changedIds) : chunk;
+				BulkWriteResult written = toWrite.isEmpty() ? BulkWriteResult.EMPTY : userBulkRepository.upsert(toWrite);
+				usersSaved.increment(written.getTotal());
+				return written;
+			});
 
-			return savedUsers;
+			if (mode == LoadMode.DELTA) {
+				deletedIds = deleteMissingUsers(seenIds, result.getExpectedUsers(), started);
+				progress.recordDeleted(deletedIds.size());
+				result = progress.snapshot();
+			}
+			log.info("Successfully saved {} users to the database ({} inserted, {} updated, {} unchanged, {} deleted).",
+					result.getUsersWritten(), result.getUsersInserted(), result.getUsersUpdated(),
+					result.getUsersUnchanged(), result.getUsersDeleted());
+			return result;
 
 		} catch (HttpClientErrorException e) {
 			log.error("HTTP Error while fetching users: {}", e.getMessage(), e);
@@ -72,78 +177,206 @@ public class UserService {
 		} catch (Exception e) {
 			log.error("Unexpected error while loading users: {}", e.getMessage(), e);
 			throw new RuntimeException("Unexpected error occurred: " + e.getMessage());
+		} finally {
+			usersFetched.increment(progress.snapshot().getUsersFetched());
+			boolean successful = result != null;
+			eventPublisher.publishEvent(successful && mode == LoadMode.DELTA
+					? new UsersLoadedEvent(true, result, changedIds, deletedIds)
+					: new UsersLoadedEvent(successful, result));
+			// Listeners run synchronously, so everything serving reads has caught up with the load by now.
+			datasetVersion.advance();
+		}
+	}
+
+	/**
+	 * Keep the users of {@code chunk} whose content hash differs from the stored one (or that are not stored yet).
+	 * Runs on the pipeline's single writer thread, so the id sets need no locking.
+	 */
+	private List<User> changedUsers(List<User> chunk, Set<Long> seenIds, Set<Long> changedIds) {
+		List<Long> ids = new ArrayList<>(chunk.size());
+		for (User user : chunk) {
+			ids.add(user.getId());
+		}
+		Map<Long, Long> storedHashes = userBulkRepository.findContentHashes(ids);
+
+		List<User> changed = new ArrayList<>();
+		for (User user : chunk) {
+			seenIds.add(user.getId());
+			Long stored = storedHashes.get(user.getId());
+			if (stored == null || stored != UserTable.contentHash(user)) {
+				changed.add(user);
+				changedIds.add(user.getId());
+			}
+		}
+		return changed;
+	}
+
+	/**
+	 * Delete users the upstream no longer lists, leaving any written since the load {@code started}.
+	 * Skipped when fewer users arrived than the upstream reported, so a short or truncated response can
+	 * never wipe rows.
+	 */
+	private Set<Long> deleteMissingUsers(Set<Long> seenIds, long expectedUsers, OffsetDateTime started) {
+		if (seenIds.size() < expectedUsers) {
+			log.warn("Delta load saw {} of {} upstream users; not deleting anything this run.", seenIds.size(), expectedUsers);
+			return Set.of();
 		}
+		Set<Long> deleted = new HashSet<>(userBulkRepository.deleteAllExcept(seenIds, started));
+		if (!deleted.isEmpty()) {
+			log.info("Deleted {} users no longer present upstream.", deleted.size());
+		}
+		return deleted;
 	}
 
 	/**
-	 * Get all users from the database
+	 * Get one keyset page of users ordered by id, starting after {@code afterId}.
+	 * Reads one row past the page to know whether a next cursor is needed.
 	 */
-	public List<User> getAllUsers() {
-		log.debug("Retrieving all users from H2 database...");
-		List<User> users = userRepository.findAll();
-		log.info("Exiting users: Found {} users: {}", users.size());
-		return users;
+	@Timed(SERVICE_TIMER)
+	public CursorPage<User> getUsersPage(Long afterId, int limit) {
+		log.debug("Retrieving up to {} users after id {}...", limit, afterId);
+		UserSnapshot snapshot = userSnapshotService.current();
+		List<User> users = snapshot != null
+				? snapshot.page(afterId == null ? Long.MIN_VALUE : afterId, limit + 1)
+				: userRepository.findByIdGreaterThanOrderByIdAsc(
+						afterId == null ? Long.MIN_VALUE : afterId, PageRequest.of(0, limit + 1));
+
+		String nextCursor = null;
+		if (users.size() > limit) {
+			users = users.subList(0, limit);
+			nextCursor = String.valueOf(users.get(limit - 1).getId());
+		}
+		log.info("Exiting getUsersPage: Found {} users, next cursor {}", users.size(), nextCursor);
+		return new CursorPage<>(users, nextCursor);
 	}
 
 	/**
-	 * Get users by role
+	 * Hand every user to {@code consumer} in id order, from the snapshot or straight from a database cursor.
 	 */
-	public List<User> getUsersByRole(String role) {
-		log.info("Fetching users with role: {}", role);
+	@Timed(SERVICE_TIMER)
+	public void streamAllUsers(Consumer<User> consumer) {
+		log.debug("Streaming all users...");
+		UserSnapshot snapshot = userSnapshotService.current();
+		if (snapshot != null) {
+			snapshot.forEach(consumer);
+		} else {
+			userCursorRepository.forEach(consumer);
+		}
+	}
 
-		List<User> users = userRepository.findByRole(role);
+	/**
+	 * Get one keyset page of users with the given role, ordered by id, starting after {@code afterId}.
+	 */
+	@Timed(SERVICE_TIMER)
+	public CursorPage<User> getUsersByRole(String role, Long afterId, int limit) {
+		log.info("Fetching up to {} users with role: {} after id {}", limit, role, afterId);
+
+		UserSnapshot snapshot = userSnapshotService.current();
+		List<User> users = snapshot != null
+				? snapshot.pageByRole(role, afterId == null ? Long.MIN_VALUE : afterId, limit + 1)
+				: userRepository.findByRoleAndIdGreaterThanOrderByIdAsc(
+						role, afterId == null ? Long.MIN_VALUE : afterId, PageRequest.of(0, limit + 1));
 
+		String nextCursor = null;
+		if (users.size() > limit) {
+			users = users.subList(0, limit);
+			nextCursor = String.valueOf(users.get(limit - 1).getId());
+		}
 		log.info("Exiting getUsersByRole: Found {} users with role: {}", users.size(), role);
-		return users;
+		return new CursorPage<>(users, nextCursor);
 	}
 
 	
 	/**
-     * Get all users sorted by age in ascending or descending order.
+     * Get one page of users ordered by age, optionally limited to an age range.
+     * "asc" returns the youngest first. Users without a birth date are left out.
      */
-    public List<User> getUsersSortedByAge(String order) {
-        log.info("Fetching users sorted by age in {} order", order);
+    @Timed(SERVICE_TIMER)
+    public CursorPage<User> getUsersSortedByAge(String order, Integer minAge, Integer maxAge, String after, int limit) {
+        log.info("Fetching users sorted by age in {} order (age {}..{}, after {}, limit {})",
+                order, minAge, maxAge, after, limit);
 
-        List<User> users = userRepository.findAll();
+        LocalDate today = LocalDate.now();
+        LocalDate from = maxAge == null ? EARLIEST_BIRTH_DATE : today.minusYears(maxAge + 1L).plusDays(1);
+        LocalDate to = minAge == null ? LATEST_BIRTH_DATE : today.minusYears(minAge);
+        boolean oldestFirst = order.equalsIgnoreCase("desc");
+        PageRequest page = PageRequest.of(0, limit + 1);
+        UserSnapshot snapshot = userSnapshotService.current();
 
-        if (users.isEmpty()) {
+        List<User> users;
+        if (oldestFirst) {
+            LocalDate afterDate = after == null ? from : parseAgeCursorDate(after);
+            long afterId = after == null ? Long.MIN_VALUE : parseAgeCursorId(after);
+            users = snapshot != null
+                    ? snapshot.oldestFirst(afterDate, afterId, to, limit + 1)
+                    : userRepository.findOldestFirst(afterDate, to, afterId, page);
+        } else {
+            LocalDate afterDate = after == null ? to : parseAgeCursorDate(after);
+            long afterId = after == null ? Long.MAX_VALUE : parseAgeCursorId(after);
+            users = snapshot != null
+                    ? snapshot.youngestFirst(from, afterDate, afterId, limit + 1)
+                    : userRepository.findYoungestFirst(from, afterDate, afterId, page);
+        }
+
+        if (users.isEmpty() && after == null) {
             log.warn("No users found in the database.");
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No users found");
         }
 
-        List<User> sortedUsers = users.stream()
-                .sorted(order.equalsIgnoreCase("desc")
-                        ? Comparator.comparing(User::getBirthDate).reversed()
-                        : Comparator.comparing(User::getBirthDate))
-                .collect(Collectors.toList());
+        String nextCursor = null;
+        if (users.size() > limit) {
+            users = users.subList(0, limit);
+            User last = users.get(limit - 1);
+            nextCursor = last.getBirthDate().toString() + AGE_CURSOR_SEPARATOR + last.getId();
+        }
 
-        log.info("Returning {} users sorted by age in {} order.", sortedUsers.size(), order);
-        return sortedUsers;
+        log.info("Returning {} users sorted by age in {} order.", users.size(), order);
+        return new CursorPage<>(users, nextCursor);
     }
 
     /**
-     * Find a specific user by ID.
+     * Find a specific user by ID. Served from the snapshot when there is one, otherwise from the
+     * {@code usersById} cache unless {@code useCache} is false. Ids the key filter rules out are
+     * answered without either.
      */
-    public User getUserById(Long id) {
+    @Timed(SERVICE_TIMER)
+    @Cacheable(cacheNames = CacheConfig.USERS_BY_ID, key = "#id", condition = "#useCache && !@userSnapshotService.active")
+    public User getUserById(Long id, boolean useCache) {
        
         log.info("Fetching user with ID: {}", id);
+        if (!userKeyFilter.mightContainId(id)) {
+            throw new UserNotFoundException("User not found with ID: " + id);
+        }
 
-        return userRepository.findById(id)
+        UserSnapshot snapshot = userSnapshotService.current();
+        return (snapshot != null ? Optional.ofNullable(snapshot.byId(id)) : userRepository.findById(id))
                 .orElseThrow(() -> {
+                    userKeyFilter.idNotFound();
                     log.warn("User with ID {} not found", id);
                     throw new UserNotFoundException("User not found with ID: " + id);
                 });
     }
 
     /**
-     * Find a specific user by SSN.
+     * Find a specific user by SSN. Served from the snapshot when there is one, otherwise from the
+     * {@code usersBySsn} cache unless {@code useCache} is false. SSNs the key filter rules out are
+     * answered without either.
      */
-    public User getUserBySSN(String ssn) {
+    @Timed(SERVICE_TIMER)
+    @Cacheable(cacheNames = CacheConfig.USERS_BY_SSN, key = "#ssn", condition = "#useCache && !@userSnapshotService.active")
+    public User getUserBySSN(String ssn, boolean useCache) {
         log.info("Fetching user with SSN: {}", ssn);
+        if (!userKeyFilter.mightContainSsn(ssn)) {
+            throw new UserNotFoundException("User not found with SSN: " + ssn);
+        }
 
-        Optional<User> userOptional = userRepository.findBySsn(ssn);
+        UserSnapshot snapshot = userSnapshotService.current();
+        Optional<User> userOptional = snapshot != null
+                ? Optional.ofNullable(snapshot.bySsn(ssn))
+                : userRepository.findBySsn(ssn);
 
         if (userOptional.isEmpty()) {
+            userKeyFilter.ssnNotFound();
             log.warn("User with SSN {} not found", ssn);
             throw new UserNotFoundException("User not found with SSN: " + ssn);
         }
@@ -151,7 +384,252 @@ public class UserService {
         log.info("User with SSN {} found: {}", ssn, userOptional.get());
         return userOptional.get();
     }
-	
 
-	
+    /**
+     * Find a specific user by username.
+     */
+    @Timed(SERVICE_TIMER)
+    public User getUserByUsername(String username) {
+        log.info("Fetching user with username: {}", username);
+        UserSnapshot snapshot = userSnapshotService.current();
+        return (snapshot != null ? Optional.ofNullable(snapshot.byUsername(username)) : userRepository.findByUsername(username))
+                .orElseThrow(() -> new UserNotFoundException("User not found with username: " + username));
+    }
+
+    /**
+     * Find a specific user by email address.
+     */
+    @Timed(SERVICE_TIMER)
+    public User getUserByEmail(String email) {
+        log.info("Fetching user with email: {}", email);
+        UserSnapshot snapshot = userSnapshotService.current();
+        return (snapshot != null ? Optional.ofNullable(snapshot.byEmail(email)) : userRepository.findByEmail(email))
+                .orElseThrow(() -> new UserNotFoundException("User not found with email: " + email));
+    }
+
+    /**
+     * Look up many users by id with one IN query per chunk, reusing the {@code usersById} cache.
+     * Ids the key filter rules out are not queried.
+     */
+    @Timed(SERVICE_TIMER)
+    public BatchLookupResponse<Long> getUsersByIds(List<Long> ids, boolean useCache) {
+        log.info("Fetching {} users by ID", ids.size());
+        UserSnapshot snapshot = userSnapshotService.current();
+        if (snapshot != null) {
+            return lookupInSnapshot(ids, snapshot::byId);
+        }
+        return lookupMany(ids, CacheConfig.USERS_BY_ID, useCache, userKeyFilter::mightContainId,
+                userKeyFilter::idNotFound, userRepository::findAllById, User::getId);
+    }
+
+    /**
+     * Look up many users by SSN with one IN query per chunk, reusing the {@code usersBySsn} cache.
+     * SSNs the key filter rules out are not queried.
+     */
+    @Timed(SERVICE_TIMER)
+    public BatchLookupResponse<String> getUsersBySsns(List<String> ssns, boolean useCache) {
+        log.info("Fetching {} users by SSN", ssns.size());
+        UserSnapshot snapshot = userSnapshotService.current();
+        if (snapshot != null) {
+            return lookupInSnapshot(ssns, snapshot::bySsn);
+        }
+        return lookupMany(ssns, CacheConfig.USERS_BY_SSN, useCache, userKeyFilter::mightContainSsn,
+                userKeyFilter::ssnNotFound, userRepository::findBySsnIn, User::getSsn);
+    }
+
+    private <K> BatchLookupResponse<K> lookupMany(List<K> keys, String cacheName, boolean useCache,
+                                                  Predicate<K> mightExist, Runnable falsePositive,
+                                                  Function<List<K>, List<User>> query, Function<User, K> keyOf) {
+        List<K> distinct = new ArrayList<>(new LinkedHashSet<>(keys));
+        Map<K, User> found = new HashMap<>(distinct.size() * 2);
+        Cache cache = useCache ? cacheManager.getCache(cacheName) : null;
+
+        List<K> missing = new ArrayList<>();
+        for (K key : distinct) {
+            User cached = cache == null || key == null ? null : cache.get(key, User.class);
+            if (cached != null) {
+                found.put(key, cached);
+            } else if (key != null && mightExist.test(key)) {
+                missing.add(key);
+            }
+        }
+        int cacheHits = found.size();
+
+        for (int from = 0; from < missing.size(); from += batchLookupChunkSize) {
+            List<K> chunk = missing.subList(from, Math.min(missing.size(), from + batchLookupChunkSize));
+            for (User user : query.apply(chunk)) {
+                K key = keyOf.apply(user);
+                found.put(key, user);
+                if (cache != null) {
+                    cache.put(key, user);
+                }
+            }
+        }
+        for (K key : missing) {
+            if (!found.containsKey(key)) {
+                falsePositive.run();
+            }
+        }
+
+        List<User> users = new ArrayList<>(found.size());
+        List<K> notFound = new ArrayList<>();
+        for (K key : distinct) {
+            User user = key == null ? null : found.get(key);
+            if (user != null) {
+                users.add(user);
+            } else {
+                notFound.add(key);
+            }
+        }
+        log.info("Exiting lookupMany: {} keys, {} found ({} from cache), {} not found",
+                distinct.size(), users.size(), cacheHits, notFound.size());
+        return new BatchLookupResponse<>(users, notFound);
+    }
+
+    private static <K> BatchLookupResponse<K> lookupInSnapshot(List<K> keys, Function<K, User> lookup) {
+        List<User> users = new ArrayList<>();
+        List<K> notFound = new ArrayList<>();
+        for (K key : new LinkedHashSet<>(keys)) {
+            User user = key == null ? null : lookup.apply(key);
+            if (user != null) {
+                users.add(user);
+            } else {
+                notFound.add(key);
+            }
+        }
+        return new BatchLookupResponse<>(users, notFound);
+    }
+
+    /**
+     * Turn the {@code fields} and {@code profile} request parameters into the list of fields to select,
+     * or null when the caller wants the full user.
+     */
+    public List<String> resolveFields(String fields, String profile) {
+        if (fields == null && profile == null) {
+            return null;
+        }
+        Set<String> resolved = new LinkedHashSet<>();
+        if (profile != null) {
+            List<String> profileFields = FIELD_PROFILES.get(profile);
+            if (profileFields == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Unknown profile '" + profile + "'. Known profiles: " + FIELD_PROFILES.keySet());
+            }
+            resolved.addAll(profileFields);
+        }
+        if (fields != null) {
+            Set<String> selectable = userRepository.selectableFields();
+            for (String field : fields.split(",")) {
+                String trimmed = field.trim();
+                if (trimmed.isEmpty()) {
+                    continue;
+                }
+                if (!selectable.contains(trimmed)) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown field: " + trimmed);
+                }
+                resolved.add(trimmed);
+            }
+        }
+        return new ArrayList<>(resolved);
+    }
+
+    /**
+     * Same as {@link #getUsersPage} but selecting only the given fields.
+     */
+    @Timed(SERVICE_TIMER)
+    public CursorPage<Map<String, Object>> getUsersPageProjected(List<String> fields, Long afterId, int limit) {
+        log.debug("Retrieving up to {} users after id {} with fields {}...", limit, afterId, fields);
+        UserSnapshot snapshot = userSnapshotService.current();
+        List<Map<String, Object>> users = snapshot != null
+                ? project(snapshot.page(afterId == null ? Long.MIN_VALUE : afterId, limit + 1), fields)
+                : userRepository.findProjectedByIdGreaterThan(fields, afterId == null ? Long.MIN_VALUE : afterId, limit + 1);
+
+        String nextCursor = null;
+        if (users.size() > limit) {
+            users = users.subList(0, limit);
+            nextCursor = String.valueOf(users.get(limit - 1).get("id"));
+        }
+        return new CursorPage<>(users, nextCursor);
+    }
+
+    /**
+     * Same as {@link #getUsersByRole} but selecting only the given fields.
+     */
+    @Timed(SERVICE_TIMER)
+    public CursorPage<Map<String, Object>> getUsersByRoleProjected(String role, List<String> fields, Long afterId, int limit) {
+        log.info("Fetching up to {} users with role: {} after id {} and fields {}", limit, role, afterId, fields);
+        UserSnapshot snapshot = userSnapshotService.current();
+        List<Map<String, Object>> users = snapshot != null
+                ? project(snapshot.pageByRole(role, afterId == null ? Long.MIN_VALUE : afterId, limit + 1), fields)
+                : userRepository.findProjectedByRole(fields, role, afterId == null ? Long.MIN_VALUE : afterId, limit + 1);
+
+        String nextCursor = null;
+        if (users.size() > limit) {
+            users = users.subList(0, limit);
+            nextCursor = String.valueOf(users.get(limit - 1).get("id"));
+        }
+        return new CursorPage<>(users, nextCursor);
+    }
+
+    /**
+     * Same as {@link #getUserById} but selecting only the given fields. Not cached.
+     */
+    @Timed(SERVICE_TIMER)
+    public Map<String, Object> getUserByIdProjected(Long id, List<String> fields) {
+        log.info("Fetching user with ID: {} and fields {}", id, fields);
+        if (!userKeyFilter.mightContainId(id)) {
+            throw new UserNotFoundException("User not found with ID: " + id);
+        }
+        UserSnapshot snapshot = userSnapshotService.current();
+        if (snapshot != null) {
+            return project(Optional.ofNullable(snapshot.byId(id)), fields)
+                    .orElseThrow(() -> new UserNotFoundException("User not found with ID: " + id));
+        }
+        return userRepository.findProjectedById(fields, id).stream().findFirst()
+                .orElseThrow(() -> new UserNotFoundException("User not found with ID: " + id));
+    }
+
+    /**
+     * Same as {@link #getUserBySSN} but selecting only the given fields. Not cached.
+     */
+    @Timed(SERVICE_TIMER)
+    public Map<String, Object> getUserBySsnProjected(String ssn, List<String> fields) {
+        log.info("Fetching user with SSN: {} and fields {}", ssn, fields);
+        if (!userKeyFilter.mightContainSsn(ssn)) {
+            throw new UserNotFoundException("User not found with SSN: " + ssn);
+        }
+        UserSnapshot snapshot = userSnapshotService.current();
+        if (snapshot != null) {
+            return project(Optional.ofNullable(snapshot.bySsn(ssn)), fields)
+                    .orElseThrow(() -> new UserNotFoundException("User not found with SSN: " + ssn));
+        }
+        return userRepository.findProjectedBySsn(fields, ssn).stream().findFirst()
+                .orElseThrow(() -> new UserNotFoundException("User not found with SSN: " + ssn));
+    }
+
+    private List<Map<String, Object>> project(List<User> users, List<String> fields) {
+        List<Map<String, Object>> rows = new ArrayList<>(users.size());
+        users.forEach(user -> rows.add(userRepository.project(user, fields)));
+        return rows;
+    }
+
+    private Optional<Map<String, Object>> project(Optional<User> user, List<String> fields) {
+        return user.map(found -> userRepository.project(found, fields));
+    }
+
+    private static LocalDate parseAgeCursorDate(String cursor) {
+        try {
+            return LocalDate.parse(cursor.substring(0, cursor.indexOf(AGE_CURSOR_SEPARATOR)));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
+        }
+    }
+
+    private static Long parseAgeCursorId(String cursor) {
+        try {
+            return Long.valueOf(cursor.substring(cursor.indexOf(AGE_CURSOR_SEPARATOR) + 1));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
+        }
+    }
 }
@@ -0,0 +1,53 @@
+package com.example.userapi.service;
+
+import com.example.userapi.dto.UserStats;
+import com.example.userapi.event.UsersLoadedEvent;
+import com.example.userapi.repository.UserStatsRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Serves {@link UserStats} from memory. The counts only change when a load writes, so they are
+ * recomputed once after each load rather than per request.
+ */
+@Slf4j
+@Service
+public class UserStatsService {
+
+    private final UserStatsRepository userStatsRepository;
+    private volatile UserStats stats;
+
+    public UserStatsService(UserStatsRepository userStatsRepository) {
+        this.userStatsRepository = userStatsRepository;
+    }
+
+    public UserStats getStats() {
+        UserStats current = stats;
+        if (current == null) {
+            synchronized (this) {
+                current = stats;
+                if (current == null) {
+                    current = userStatsRepository.countByGroup();
+                    stats = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    @EventListener
+    public void onUsersLoaded(UsersLoadedEvent event) {
+        try {
+            synchronized (this) {
+                stats = userStatsRepository.countByGroup();
+            }
+            log.info("Refreshed user stats after load: {} users.", stats.getTotalUsers());
+        } catch (RuntimeException e) {
+            // Never fail the load over this; the next request recomputes.
+            stats = null;
+            log.warn("Could not refresh user stats after load: {}", e.getMessage());
+        }
+    }
+}
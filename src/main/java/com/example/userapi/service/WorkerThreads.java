@@ -0,0 +1,96 @@
+package com.example.userapi.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Where the blocking work runs: request handling (see {@code VirtualThreadConfig}), load jobs and the
+ * ingestion pipeline's fetcher and writer threads. With {@code users.threads.virtual=true} they are
+ * virtual threads, which park instead of pinning an OS thread while they wait on JDBC or HTTP.
+ * <p>
+ * The build targets Java 17, so {@code Thread.ofVirtual()} is looked up reflectively. On a JVM
+ * without it (before 21, or 19/20 without {@code --enable-preview}) turning the setting on fails
+ * startup rather than quietly running on platform threads. The regular build runs on 17; the
+ * {@code java21} Maven profile runs the tests that exercise virtual threads.
+ */
+@Slf4j
+@Component
+public class WorkerThreads {
+
+    private static final Method OF_VIRTUAL;
+    private static final Method NAME;
+    private static final Method FACTORY;
+
+    static {
+        Method ofVirtual = null;
+        Method name = null;
+        Method factory = null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            name = builder.getMethod("name", String.class, long.class);
+            factory = builder.getMethod("factory");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            // Throws on 19/20 unless preview features are enabled.
+            ofVirtual.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            ofVirtual = null;
+        }
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        FACTORY = factory;
+    }
+
+    private final boolean virtual;
+
+    public WorkerThreads(@Value("${users.threads.virtual:false}") boolean virtual) {
+        if (virtual && OF_VIRTUAL == null) {
+            throw new IllegalStateException("users.threads.virtual is set, but Java " + Runtime.version().feature()
+                    + " has no virtual threads; run on Java 21 or later, or turn it off.");
+        }
+        this.virtual = virtual;
+    }
+
+    /**
+     * Whether this JVM can run virtual threads.
+     */
+    public static boolean virtualThreadsSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Daemon platform threads regardless of configuration, for code constructed outside Spring.
+     */
+    public static WorkerThreads platform() {
+        return new WorkerThreads(false);
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    /**
+     * Threads named {@code prefix1}, {@code prefix2}, ...; virtual ones when enabled, daemon platform
+     * threads otherwise.
+     */
+    public ThreadFactory factory(String prefix) {
+        if (virtual) {
+            try {
+                return (ThreadFactory) FACTORY.invoke(NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 1L));
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Could not create a virtual thread factory", e);
+            }
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
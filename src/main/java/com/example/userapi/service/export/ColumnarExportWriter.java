@@ -0,0 +1,240 @@
+package com.example.userapi.service.export;
+
+import com.example.userapi.repository.UserTable;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact binary format in the spirit of Parquet: rows are cut into groups of
+ * {@value #GROUP_ROWS}, and each group is written column by column, so a reader can skip the
+ * columns it does not need and similar values sit together for gzip. Only one group is ever held
+ * in memory. Numbers are big-endian (as {@link DataOutputStream} writes them); a varint is an
+ * unsigned LEB128.
+ * <pre>
+ * file    = "UCOL" version:u8=1 columnCount:i32 column{columnCount} group* end:i32=0
+ * column  = name:(DataOutput.writeUTF) type:u8   1 BIGINT, 2 INTEGER, 3 DOUBLE, 4 DATE, 5 VARCHAR
+ * group   = rowCount:i32 chunk{columnCount}
+ * chunk   = nulls:u8[(rowCount + 7) / 8]         bit (row % 8) of byte (row / 8) set when null
+ *           then, for each non-null row in order:
+ *             BIGINT i64 | INTEGER i32 | DOUBLE f64 | DATE i32 (epoch day)
+ *             VARCHAR: once per chunk an encoding:u8, then
+ *               0 plain:      per row, length:varint and UTF-8 bytes
+ *               1 dictionary: size:varint, size x (length:varint, UTF-8 bytes), then per row code:u8
+ * </pre>
+ * A VARCHAR chunk is dictionary-encoded when it has at most 255 distinct values.
+ */
+class ColumnarExportWriter implements ExportWriter {
+
+    static final String MEDIA_TYPE = "application/vnd.user-directory.columnar";
+    static final int GROUP_ROWS = 8192;
+
+    private static final byte[] MAGIC = {'U', 'C', 'O', 'L'};
+    private static final int VERSION = 1;
+    private static final int PLAIN = 0;
+    private static final int DICTIONARY = 1;
+
+    private final DataOutputStream out;
+    private final int[] types;
+    private final long[][] longs;
+    private final int[][] ints;
+    private final double[][] doubles;
+    private final String[][] strings;
+    private final byte[][] nulls;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private int rows;
+
+    ColumnarExportWriter(OutputStream out, List<UserTable.Column> columns) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        int count = columns.size();
+        this.types = new int[count];
+        this.longs = new long[count][];
+        this.ints = new int[count][];
+        this.doubles = new double[count][];
+        this.strings = new String[count][];
+        this.nulls = new byte[count][(GROUP_ROWS + 7) / 8];
+
+        this.out.write(MAGIC);
+        this.out.writeByte(VERSION);
+        this.out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            UserTable.Column column = columns.get(i);
+            types[i] = column.getSqlType();
+            switch (types[i]) {
+                case Types.BIGINT:
+                    longs[i] = new long[GROUP_ROWS];
+                    break;
+                case Types.INTEGER:
+                case Types.DATE:
+                    ints[i] = new int[GROUP_ROWS];
+                    break;
+                case Types.DOUBLE:
+                    doubles[i] = new double[GROUP_ROWS];
+                    break;
+                default:
+                    strings[i] = new String[GROUP_ROWS];
+            }
+            this.out.writeUTF(column.getName());
+            this.out.writeByte(typeCode(types[i]));
+        }
+    }
+
+    private static int typeCode(int sqlType) {
+        switch (sqlType) {
+            case Types.BIGINT:
+                return 1;
+            case Types.INTEGER:
+                return 2;
+            case Types.DOUBLE:
+                return 3;
+            case Types.DATE:
+                return 4;
+            default:
+                return 5;
+        }
+    }
+
+    @Override
+    public void write(ResultSet rs) throws SQLException, IOException {
+        int row = rows;
+        for (int i = 0; i < types.length; i++) {
+            int column = i + 1;
+            boolean isNull;
+            switch (types[i]) {
+                case Types.BIGINT:
+                    longs[i][row] = rs.getLong(column);
+                    isNull = rs.wasNull();
+                    break;
+                case Types.INTEGER:
+                    ints[i][row] = rs.getInt(column);
+                    isNull = rs.wasNull();
+                    break;
+                case Types.DOUBLE:
+                    doubles[i][row] = rs.getDouble(column);
+                    isNull = rs.wasNull();
+                    break;
+                case Types.DATE: {
+                    LocalDate value = rs.getObject(column, LocalDate.class);
+                    isNull = value == null;
+                    ints[i][row] = isNull ? 0 : Math.toIntExact(value.toEpochDay());
+                    break;
+                }
+                default:
+                    strings[i][row] = rs.getString(column);
+                    isNull = strings[i][row] == null;
+            }
+            if (isNull) {
+                nulls[i][row >>> 3] |= (byte) (1 << (row & 7));
+            }
+        }
+        if (++rows == GROUP_ROWS) {
+            writeGroup();
+        }
+    }
+
+    private void writeGroup() throws IOException {
+        out.writeInt(rows);
+        int bitmapBytes = (rows + 7) / 8;
+        for (int i = 0; i < types.length; i++) {
+            byte[] nullBits = nulls[i];
+            out.write(nullBits, 0, bitmapBytes);
+            switch (types[i]) {
+                case Types.BIGINT:
+                    for (int row = 0; row < rows; row++) {
+                        if (!isNull(nullBits, row)) {
+                            out.writeLong(longs[i][row]);
+                        }
+                    }
+                    break;
+                case Types.INTEGER:
+                case Types.DATE:
+                    for (int row = 0; row < rows; row++) {
+                        if (!isNull(nullBits, row)) {
+                            out.writeInt(ints[i][row]);
+                        }
+                    }
+                    break;
+                case Types.DOUBLE:
+                    for (int row = 0; row < rows; row++) {
+                        if (!isNull(nullBits, row)) {
+                            out.writeDouble(doubles[i][row]);
+                        }
+                    }
+                    break;
+                default:
+                    writeStrings(strings[i], nullBits);
+                    Arrays.fill(strings[i], 0, rows, null);
+            }
+            Arrays.fill(nullBits, 0, bitmapBytes, (byte) 0);
+        }
+        rows = 0;
+    }
+
+    private void writeStrings(String[] values, byte[] nullBits) throws IOException {
+        dictionary.clear();
+        for (int row = 0; row < rows && dictionary.size() <= 255; row++) {
+            if (!isNull(nullBits, row)) {
+                dictionary.putIfAbsent(values[row], dictionary.size());
+            }
+        }
+        if (dictionary.size() > 255) {
+            out.writeByte(PLAIN);
+            for (int row = 0; row < rows; row++) {
+                if (!isNull(nullBits, row)) {
+                    writeString(values[row]);
+                }
+            }
+            return;
+        }
+        out.writeByte(DICTIONARY);
+        String[] entries = new String[dictionary.size()];
+        dictionary.forEach((value, code) -> entries[code] = value);
+        writeVarint(entries.length);
+        for (String entry : entries) {
+            writeString(entry);
+        }
+        for (int row = 0; row < rows; row++) {
+            if (!isNull(nullBits, row)) {
+                out.writeByte(dictionary.get(values[row]));
+            }
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeVarint(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static boolean isNull(byte[] nullBits, int row) {
+        return (nullBits[row >>> 3] & (1 << (row & 7))) != 0;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (rows > 0) {
+            writeGroup();
+        }
+        out.writeInt(0);
+        out.flush();
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.userapi.service.export;
+
+import com.example.userapi.repository.UserTable;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * RFC 4180 CSV: a header row of column names, CRLF line ends, and fields quoted only when they
+ * hold a comma, quote or line break. Null is an empty field; the empty string is {@code ""}.
+ */
+class CsvExportWriter implements ExportWriter {
+
+    private final Writer out;
+    private final int[] types;
+
+    CsvExportWriter(OutputStream out, List<UserTable.Column> columns) throws IOException {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        this.types = new int[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            types[i] = columns.get(i).getSqlType();
+            if (i > 0) {
+                this.out.write(',');
+            }
+            this.out.write(columns.get(i).getName());
+        }
+        this.out.write("\r\n");
+    }
+
+    @Override
+    public void write(ResultSet rs) throws SQLException, IOException {
+        for (int i = 0; i < types.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            int column = i + 1;
+            switch (types[i]) {
+                case Types.BIGINT: {
+                    long value = rs.getLong(column);
+                    if (!rs.wasNull()) {
+                        out.write(Long.toString(value));
+                    }
+                    break;
+                }
+                case Types.INTEGER: {
+                    int value = rs.getInt(column);
+                    if (!rs.wasNull()) {
+                        out.write(Integer.toString(value));
+                    }
+                    break;
+                }
+                case Types.DOUBLE: {
+                    double value = rs.getDouble(column);
+                    if (!rs.wasNull()) {
+                        out.write(Double.toString(value));
+                    }
+                    break;
+                }
+                case Types.DATE: {
+                    LocalDate value = rs.getObject(column, LocalDate.class);
+                    if (value != null) {
+                        out.write(value.toString());
+                    }
+                    break;
+                }
+                default:
+                    writeText(rs.getString(column));
+            }
+        }
+        out.write("\r\n");
+    }
+
+    private void writeText(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (!value.isEmpty() && !needsQuotes(value)) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        out.flush();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.userapi.service.export;
+
+import com.example.userapi.repository.UserTable;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * File formats of a full export. All three are flat: one field per {@link UserTable} column,
+ * named after it, with the embedded address, company, bank, hair and crypto columns inline.
+ */
+public enum ExportFormat {
+    /** RFC 4180 CSV with a header row; null is an empty field, the empty string is {@code ""}. */
+    CSV("text/csv", "csv"),
+    /** One flat JSON object per line. */
+    NDJSON("application/x-ndjson", "ndjson"),
+    /** Binary row groups stored column by column; see {@link ColumnarExportWriter}. */
+    COLUMNAR(ColumnarExportWriter.MEDIA_TYPE, "ucol");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ExportFormat(String mediaType, String extension) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * A writer of this format on {@code out}, for rows of a {@code SELECT} over {@code columns} in that order.
+     */
+    public ExportWriter open(OutputStream out, List<UserTable.Column> columns) throws IOException {
+        switch (this) {
+            case CSV:
+                return new CsvExportWriter(out, columns);
+            case NDJSON:
+                return new NdjsonExportWriter(out, columns);
+            default:
+                return new ColumnarExportWriter(out, columns);
+        }
+    }
+
+    public static ExportFormat parse(String format) {
+        try {
+            return valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unknown export format '" + format + "', expected csv, ndjson or columnar");
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.userapi.service.export;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Writes rows of a result set to a stream in one {@link ExportFormat}, holding at most a bounded
+ * number of rows however many are written.
+ */
+public interface ExportWriter {
+
+    /**
+     * Write the current row of {@code rs}.
+     */
+    void write(ResultSet rs) throws SQLException, IOException;
+
+    /**
+     * Write anything still buffered and the format's trailer, and flush. Does not close the stream.
+     */
+    void finish() throws IOException;
+}
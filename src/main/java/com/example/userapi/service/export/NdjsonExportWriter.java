@@ -0,0 +1,96 @@
+package com.example.userapi.service.export;
+
+import com.example.userapi.repository.UserTable;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * One flat JSON object per line, keyed by column name. Written field by field with a bare
+ * generator, so no {@code User} or map is built per row.
+ */
+class NdjsonExportWriter implements ExportWriter {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final JsonGenerator generator;
+    private final SerializedString[] names;
+    private final int[] types;
+    private boolean empty = true;
+
+    NdjsonExportWriter(OutputStream out, List<UserTable.Column> columns) throws IOException {
+        this.generator = JSON.createGenerator(out, JsonEncoding.UTF8);
+        this.generator.setRootValueSeparator(new SerializedString("\n"));
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.names = new SerializedString[columns.size()];
+        this.types = new int[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            names[i] = new SerializedString(columns.get(i).getName());
+            types[i] = columns.get(i).getSqlType();
+        }
+    }
+
+    @Override
+    public void write(ResultSet rs) throws SQLException, IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < types.length; i++) {
+            generator.writeFieldName(names[i]);
+            int column = i + 1;
+            switch (types[i]) {
+                case Types.BIGINT: {
+                    long value = rs.getLong(column);
+                    if (rs.wasNull()) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeNumber(value);
+                    }
+                    break;
+                }
+                case Types.INTEGER: {
+                    int value = rs.getInt(column);
+                    if (rs.wasNull()) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeNumber(value);
+                    }
+                    break;
+                }
+                case Types.DOUBLE: {
+                    double value = rs.getDouble(column);
+                    if (rs.wasNull()) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeNumber(value);
+                    }
+                    break;
+                }
+                case Types.DATE: {
+                    LocalDate value = rs.getObject(column, LocalDate.class);
+                    generator.writeString(value == null ? null : value.toString());
+                    break;
+                }
+                default:
+                    generator.writeString(rs.getString(column));
+            }
+        }
+        generator.writeEndObject();
+        empty = false;
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (!empty) {
+            generator.writeRaw('\n');
+        }
+        generator.close();
+    }
+}
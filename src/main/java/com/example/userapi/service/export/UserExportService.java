@@ -0,0 +1,98 @@
+package com.example.userapi.service.export;
+
+import com.example.userapi.repository.UserCursorRepository;
+import com.example.userapi.repository.UserTable;
+import com.example.userapi.service.UserService;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Full dumps of the directory for downstream jobs. Rows go straight from a forward-only JDBC
+ * cursor to the format writer, without mapping a {@code User}, so memory use is one fetch of
+ * rows plus the writer's buffer (one row group for {@link ExportFormat#COLUMNAR}) however large
+ * the table is. Every column except the internal {@code content_hash} is exported.
+ */
+@Slf4j
+@Service
+public class UserExportService {
+
+    public static final List<UserTable.Column> COLUMNS = UserTable.COLUMNS.stream()
+            .filter(column -> !column.getName().equals("content_hash"))
+            .collect(Collectors.toList());
+
+    private static final String COLUMN_LIST = COLUMNS.stream().map(UserTable.Column::getName)
+            .collect(Collectors.joining(", "));
+
+    private final UserCursorRepository userCursorRepository;
+    private final int fetchSize;
+    private final int gzipLevel;
+    private final Counter rowsExported;
+
+    public UserExportService(UserCursorRepository userCursorRepository, MeterRegistry meterRegistry,
+                             @Value("${users.export.fetch-size:5000}") int fetchSize,
+                             @Value("${users.export.gzip-level:1}") int gzipLevel) {
+        this.userCursorRepository = userCursorRepository;
+        this.fetchSize = fetchSize;
+        this.gzipLevel = gzipLevel;
+        this.rowsExported = Counter.builder("users.export.rows")
+                .description("Rows written by exports").register(meterRegistry);
+    }
+
+    /**
+     * Write every user to {@code out} in {@code format}, gzip-compressed when {@code gzip} is set.
+     * Leaves {@code out} open.
+     *
+     * @return the number of users written
+     */
+    @Timed(UserService.SERVICE_TIMER)
+    public long export(ExportFormat format, OutputStream out, boolean gzip) throws IOException {
+        long start = System.nanoTime();
+        GZIPOutputStream compressed = gzip ? gzip(out) : null;
+        ExportWriter writer = format.open(compressed != null ? compressed : out, COLUMNS);
+        long[] rows = {0};
+        try {
+            userCursorRepository.forEachRow(COLUMN_LIST, fetchSize, rs -> {
+                try {
+                    writer.write(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                rows[0]++;
+            });
+        } catch (UncheckedIOException e) {
+            // Most likely the client went away; nothing more to write.
+            throw e.getCause();
+        } finally {
+            rowsExported.increment(rows[0]);
+        }
+        writer.finish();
+        if (compressed != null) {
+            compressed.finish();
+        }
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("Exported {} users as {}{} in {} ms ({} rows/s)", rows[0], format, gzip ? " (gzip)" : "",
+                millis, rows[0] * 1000 / millis);
+        return rows[0];
+    }
+
+    private GZIPOutputStream gzip(OutputStream out) throws IOException {
+        return new GZIPOutputStream(out, 1 << 16) {
+            {
+                def.setLevel(gzipLevel);
+            }
+        };
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.userapi.service.geo;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Locale;
+
+/**
+ * Which of a user's coordinates a spatial query runs against.
+ */
+public enum AddressKind {
+    HOME("user_latitude", "user_longitude"),
+    COMPANY("company_latitude", "company_longitude");
+
+    private final String latitudeColumn;
+    private final String longitudeColumn;
+
+    AddressKind(String latitudeColumn, String longitudeColumn) {
+        this.latitudeColumn = latitudeColumn;
+        this.longitudeColumn = longitudeColumn;
+    }
+
+    String latitudeColumn() {
+        return latitudeColumn;
+    }
+
+    String longitudeColumn() {
+        return longitudeColumn;
+    }
+
+    public static AddressKind parse(String value) {
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "address must be 'home' or 'company'");
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.example.userapi.service.geo;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Immutable fixed-grid spatial index over user coordinates.
+ * <p>
+ * The globe is cut into {@code cellDegrees} squares of latitude and longitude. Points are stored
+ * sorted by cell (and by id within a cell) in parallel primitive arrays, with {@code cellStart}
+ * giving each cell's slice, so a query only reads the cells its area overlaps. Radius queries
+ * check the exact haversine distance of the points in those cells; k-nearest doubles the radius
+ * until at least k points fall inside, which keeps it exact. Longitudes wrap at the antimeridian,
+ * and a circle reaching a pole covers every longitude.
+ */
+public final class GeoGridIndex {
+
+    static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+    private static final double HALF_CIRCUMFERENCE_KM = Math.PI * EARTH_RADIUS_KM;
+
+    private final double cellDegrees;
+    private final int rows;
+    private final int columns;
+    /** Points in cell c are at positions cellStart[c] .. cellStart[c + 1]; cells are row-major from (-90, -180). */
+    private final int[] cellStart;
+    private final long[] ids;
+    private final double[] latitudes;
+    private final double[] longitudes;
+
+    private GeoGridIndex(double cellDegrees, int[] cellStart, long[] ids, double[] latitudes, double[] longitudes) {
+        this.cellDegrees = cellDegrees;
+        this.rows = rows(cellDegrees);
+        this.columns = columns(cellDegrees);
+        this.cellStart = cellStart;
+        this.ids = ids;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+    }
+
+    /**
+     * Receives one indexed point.
+     */
+    @FunctionalInterface
+    public interface PointSink {
+        void accept(long id, double latitude, double longitude);
+    }
+
+    /**
+     * Build an index over the points handed to the sink. Points should arrive in id order so each
+     * cell lists its users in id order; points outside valid latitude/longitude ranges are skipped.
+     */
+    public static GeoGridIndex build(double cellDegrees, Consumer<PointSink> points) {
+        if (!(cellDegrees > 0 && cellDegrees <= 90)) {
+            throw new IllegalArgumentException("cellDegrees must be in (0, 90]: " + cellDegrees);
+        }
+        int columns = columns(cellDegrees);
+        int rows = rows(cellDegrees);
+        long[][] idsHolder = {new long[1024]};
+        double[][] coordinatesHolder = {new double[2048]};
+        int[][] cellsHolder = {new int[1024]};
+        int[] size = {0};
+        points.accept((id, latitude, longitude) -> {
+            if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+                return;
+            }
+            int n = size[0];
+            if (n == idsHolder[0].length) {
+                idsHolder[0] = Arrays.copyOf(idsHolder[0], n * 2);
+                coordinatesHolder[0] = Arrays.copyOf(coordinatesHolder[0], n * 4);
+                cellsHolder[0] = Arrays.copyOf(cellsHolder[0], n * 2);
+            }
+            idsHolder[0][n] = id;
+            coordinatesHolder[0][2 * n] = latitude;
+            coordinatesHolder[0][2 * n + 1] = longitude;
+            cellsHolder[0][n] = row(latitude, cellDegrees, rows) * columns + column(longitude, cellDegrees, columns);
+            size[0] = n + 1;
+        });
+
+        // Counting sort by cell; stable, so ids stay in arrival order within a cell.
+        int n = size[0];
+        int[] cells = cellsHolder[0];
+        int[] cellStart = new int[rows * columns + 1];
+        for (int i = 0; i < n; i++) {
+            cellStart[cells[i] + 1]++;
+        }
+        for (int c = 0; c < rows * columns; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] fill = Arrays.copyOf(cellStart, rows * columns);
+        long[] ids = new long[n];
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        for (int i = 0; i < n; i++) {
+            int at = fill[cells[i]]++;
+            ids[at] = idsHolder[0][i];
+            latitudes[at] = coordinatesHolder[0][2 * i];
+            longitudes[at] = coordinatesHolder[0][2 * i + 1];
+        }
+        return new GeoGridIndex(cellDegrees, cellStart, ids, latitudes, longitudes);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Points within {@code radiusKm} of the given point, nearest first (ties by id), at most {@code limit}.
+     */
+    public List<GeoHit> withinRadius(double latitude, double longitude, double radiusKm, int limit) {
+        // Max-heap on (distance, id): the head is the worst hit kept so far.
+        PriorityQueue<GeoHit> nearest = new PriorityQueue<>(limit + 1, (a, b) -> {
+            int byDistance = Double.compare(b.getDistanceKm(), a.getDistanceKm());
+            return byDistance != 0 ? byDistance : Long.compare(b.getUserId(), a.getUserId());
+        });
+        double latitudeDelta = radiusKm / KM_PER_DEGREE;
+        double minLatitude = latitude - latitudeDelta;
+        double maxLatitude = latitude + latitudeDelta;
+        double longitudeDelta = 180;
+        if (minLatitude > -90 && maxLatitude < 90) {
+            // Widest longitude span of the circle, reached away from the centre's parallel.
+            double ratio = Math.sin(radiusKm / EARTH_RADIUS_KM) / Math.cos(Math.toRadians(latitude));
+            if (radiusKm < HALF_CIRCUMFERENCE_KM / 2 && ratio < 1) {
+                longitudeDelta = Math.toDegrees(Math.asin(ratio));
+            }
+        }
+        double latitudeRadians = Math.toRadians(latitude);
+        double cosLatitude = Math.cos(latitudeRadians);
+        forEachCell(minLatitude, maxLatitude, longitude - longitudeDelta, longitude + longitudeDelta, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                double distance = haversineKm(latitudeRadians, cosLatitude, longitude, latitudes[i], longitudes[i]);
+                if (distance > radiusKm) {
+                    continue;
+                }
+                if (nearest.size() < limit) {
+                    nearest.add(new GeoHit(ids[i], distance));
+                } else {
+                    GeoHit worst = nearest.peek();
+                    if (distance < worst.getDistanceKm()
+                            || (distance == worst.getDistanceKm() && ids[i] < worst.getUserId())) {
+                        nearest.poll();
+                        nearest.add(new GeoHit(ids[i], distance));
+                    }
+                }
+            }
+        });
+        GeoHit[] hits = new GeoHit[nearest.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            hits[i] = nearest.poll();
+        }
+        return Arrays.asList(hits);
+    }
+
+    /**
+     * The {@code k} points nearest to the given point, nearest first.
+     */
+    public List<GeoHit> nearest(double latitude, double longitude, int k) {
+        double radiusKm = cellDegrees * KM_PER_DEGREE;
+        while (true) {
+            List<GeoHit> hits = withinRadius(latitude, longitude, radiusKm, k);
+            // Every point within the radius was considered, so k hits inside it are the true k nearest.
+            if (hits.size() == k || radiusKm >= HALF_CIRCUMFERENCE_KM) {
+                return hits;
+            }
+            radiusKm = Math.min(radiusKm * 2, HALF_CIRCUMFERENCE_KM);
+        }
+    }
+
+    /**
+     * Ids of the points inside the box, in id order, after {@code afterId}, at most {@code limit}.
+     * A box with {@code minLongitude > maxLongitude} crosses the antimeridian.
+     */
+    public long[] withinBox(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude,
+                            long afterId, int limit) {
+        boolean wraps = minLongitude > maxLongitude;
+        double east = wraps ? maxLongitude + 360 : maxLongitude;
+        // Max-heap of ids: the head is the largest id kept so far.
+        PriorityQueue<Long> lowest = new PriorityQueue<>(limit + 1, (a, b) -> Long.compare(b, a));
+        forEachCell(minLatitude, maxLatitude, minLongitude, east, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                double lat = latitudes[i];
+                double lng = longitudes[i];
+                boolean inside = lat >= minLatitude && lat <= maxLatitude
+                        && (wraps ? lng >= minLongitude || lng <= maxLongitude
+                                  : lng >= minLongitude && lng <= maxLongitude);
+                if (!inside || ids[i] <= afterId) {
+                    continue;
+                }
+                if (lowest.size() < limit) {
+                    lowest.add(ids[i]);
+                } else if (ids[i] < lowest.peek()) {
+                    lowest.poll();
+                    lowest.add(ids[i]);
+                }
+            }
+        });
+        long[] result = new long[lowest.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = lowest.poll();
+        }
+        return result;
+    }
+
+    /**
+     * Hand each cell overlapping the latitude/longitude range to {@code slice} as its point range.
+     * The longitude range may run past ±180 and wraps; each cell is visited at most once.
+     */
+    private void forEachCell(double minLatitude, double maxLatitude, double westLongitude, double eastLongitude,
+                             CellSlice slice) {
+        int firstRow = row(Math.max(-90, minLatitude), cellDegrees, rows);
+        int lastRow = row(Math.min(90, maxLatitude), cellDegrees, rows);
+        if (eastLongitude - westLongitude >= 360) {
+            forEachCell(firstRow, lastRow, 0, columns - 1, slice);
+            return;
+        }
+        double west = westLongitude - 360 * Math.floor((westLongitude + 180) / 360);
+        double east = west + (eastLongitude - westLongitude);
+        if (east < 180) {
+            forEachCell(firstRow, lastRow, column(west, cellDegrees, columns), column(east, cellDegrees, columns), slice);
+        } else {
+            forEachCell(firstRow, lastRow, column(west, cellDegrees, columns), columns - 1, slice);
+            forEachCell(firstRow, lastRow, 0, column(east - 360, cellDegrees, columns), slice);
+        }
+    }
+
+    private void forEachCell(int firstRow, int lastRow, int firstColumn, int lastColumn, CellSlice slice) {
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                int cell = row * columns + column;
+                if (cellStart[cell] != cellStart[cell + 1]) {
+                    slice.accept(cellStart[cell], cellStart[cell + 1]);
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface CellSlice {
+        void accept(int from, int to);
+    }
+
+    static double haversineKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double radians = Math.toRadians(latitude1);
+        return haversineKm(radians, Math.cos(radians), longitude1, latitude2, longitude2);
+    }
+
+    private static double haversineKm(double latitude1Radians, double cosLatitude1, double longitude1,
+                                      double latitude2, double longitude2) {
+        double latitude2Radians = Math.toRadians(latitude2);
+        double sinLatitude = Math.sin((latitude2Radians - latitude1Radians) / 2);
+        double sinLongitude = Math.sin(Math.toRadians(longitude2 - longitude1) / 2);
+        double a = sinLatitude * sinLatitude + cosLatitude1 * Math.cos(latitude2Radians) * sinLongitude * sinLongitude;
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static int rows(double cellDegrees) {
+        return (int) Math.ceil(180 / cellDegrees);
+    }
+
+    private static int columns(double cellDegrees) {
+        return (int) Math.ceil(360 / cellDegrees);
+    }
+
+    private static int row(double latitude, double cellDegrees, int rows) {
+        return Math.min(rows - 1, Math.max(0, (int) Math.floor((latitude + 90) / cellDegrees)));
+    }
+
+    private static int column(double longitude, double cellDegrees, int columns) {
+        // +180 is the same meridian as -180.
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), columns);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.userapi.service.geo;
+
+import lombok.Value;
+
+/**
+ * A user found by a spatial query and its great-circle distance from the query point.
+ */
+@Value
+public class GeoHit {
+    long userId;
+    double distanceKm;
+}
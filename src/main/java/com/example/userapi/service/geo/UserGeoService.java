@@ -0,0 +1,159 @@
+package com.example.userapi.service.geo;
+
+import com.example.userapi.dto.CursorPage;
+import com.example.userapi.dto.NearbyUser;
+import com.example.userapi.event.UsersLoadedEvent;
+import com.example.userapi.model.User;
+import com.example.userapi.repository.UserCursorRepository;
+import com.example.userapi.service.UserService;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Radius, nearest-neighbour and bounding-box queries over users' home or company coordinates,
+ * answered from a {@link GeoGridIndex} per address kind. Each index is built on its first query
+ * and rebuilt after every load; queries keep using the previous one until the new one is ready.
+ */
+@Slf4j
+@Service
+public class UserGeoService {
+
+    private final UserCursorRepository userCursorRepository;
+    private final UserService userService;
+    private final Map<AddressKind, GeoGridIndex> indexes = new ConcurrentHashMap<>();
+
+    @Value("${users.geo.cell-degrees:0.5}") // Grid cell size; about 55 km at the equator
+    private double cellDegrees;
+
+    public UserGeoService(UserCursorRepository userCursorRepository, UserService userService) {
+        this.userCursorRepository = userCursorRepository;
+        this.userService = userService;
+    }
+
+    /**
+     * Users within {@code radiusKm} of the point, nearest first.
+     */
+    @Timed(UserService.SERVICE_TIMER)
+    public List<NearbyUser> getUsersWithinRadius(AddressKind kind, double latitude, double longitude,
+                                                 double radiusKm, int limit) {
+        checkPoint(latitude, longitude);
+        if (!(radiusKm > 0)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "radiusKm must be positive");
+        }
+        return withUsers(index(kind).withinRadius(latitude, longitude, radiusKm, limit));
+    }
+
+    /**
+     * The {@code k} users nearest to the point, nearest first.
+     */
+    @Timed(UserService.SERVICE_TIMER)
+    public List<NearbyUser> getNearestUsers(AddressKind kind, double latitude, double longitude, int k) {
+        checkPoint(latitude, longitude);
+        return withUsers(index(kind).nearest(latitude, longitude, k));
+    }
+
+    /**
+     * One id-ordered page of the users inside the box. {@code minLongitude > maxLongitude} means the
+     * box crosses the antimeridian.
+     */
+    @Timed(UserService.SERVICE_TIMER)
+    public CursorPage<User> getUsersWithinBox(AddressKind kind, double minLatitude, double minLongitude,
+                                              double maxLatitude, double maxLongitude, Long afterId, int limit) {
+        checkPoint(minLatitude, minLongitude);
+        checkPoint(maxLatitude, maxLongitude);
+        if (minLatitude > maxLatitude) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "minLat must not be greater than maxLat");
+        }
+        long[] ids = index(kind).withinBox(minLatitude, minLongitude, maxLatitude, maxLongitude,
+                afterId == null ? Long.MIN_VALUE : afterId, limit + 1);
+        String nextCursor = null;
+        int count = ids.length;
+        if (count > limit) {
+            count = limit;
+            nextCursor = String.valueOf(ids[limit - 1]);
+        }
+        List<Long> pageIds = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            pageIds.add(ids[i]);
+        }
+        return new CursorPage<>(userService.getUsersByIds(pageIds, false).getUsers(), nextCursor);
+    }
+
+    @EventListener
+    public void onUsersLoaded(UsersLoadedEvent event) {
+        for (AddressKind kind : indexes.keySet()) {
+            try {
+                indexes.put(kind, buildIndex(kind));
+            } catch (RuntimeException e) {
+                // Never fail the load over this; the next query rebuilds.
+                indexes.remove(kind);
+                log.warn("Could not rebuild the {} location index after load: {}", kind, e.getMessage());
+            }
+        }
+    }
+
+    private GeoGridIndex index(AddressKind kind) {
+        return indexes.computeIfAbsent(kind, this::buildIndex);
+    }
+
+    private GeoGridIndex buildIndex(AddressKind kind) {
+        long start = System.nanoTime();
+        String latitude = kind.latitudeColumn();
+        String longitude = kind.longitudeColumn();
+        GeoGridIndex built = GeoGridIndex.build(cellDegrees, sink -> userCursorRepository.forEachRow(
+                "id, " + latitude + ", " + longitude, rs -> {
+                    double lat = rs.getDouble(latitude);
+                    if (rs.wasNull()) {
+                        return;
+                    }
+                    double lng = rs.getDouble(longitude);
+                    if (!rs.wasNull()) {
+                        sink.accept(rs.getLong("id"), lat, lng);
+                    }
+                }));
+        log.info("Built {} location index over {} users in {} ms", kind, built.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return built;
+    }
+
+    private List<NearbyUser> withUsers(List<GeoHit> hits) {
+        List<Long> ids = new ArrayList<>(hits.size());
+        hits.forEach(hit -> ids.add(hit.getUserId()));
+        Map<Long, User> found = findAllById(ids);
+        List<NearbyUser> users = new ArrayList<>(hits.size());
+        for (GeoHit hit : hits) {
+            // Deleted since the index was built: leave it out rather than fail the request.
+            User user = found.get(hit.getUserId());
+            if (user != null) {
+                users.add(new NearbyUser(hit.getDistanceKm(), user));
+            }
+        }
+        return users;
+    }
+
+    private Map<Long, User> findAllById(List<Long> ids) {
+        Map<Long, User> found = new HashMap<>();
+        userService.getUsersByIds(ids, false).getUsers().forEach(user -> found.put(user.getId(), user));
+        return found;
+    }
+
+    private static void checkPoint(double latitude, double longitude) {
+        if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Latitude must be within [-90, 90] and longitude within [-180, 180]");
+        }
+    }
+}
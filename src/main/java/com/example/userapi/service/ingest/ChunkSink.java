@@ -0,0 +1,19 @@
+package com.example.userapi.service.ingest;
+
+import com.example.userapi.model.User;
+
+import java.util.List;
+
+/**
+ * The writer's bounded queue, as seen by a {@link UserSource}. Blocks while the queue is full.
+ */
+@FunctionalInterface
+interface ChunkSink {
+
+    /**
+     * Queue {@code users} for writing; {@code onWritten} runs on the writer thread once they are committed.
+     * Chunks are written in the order they are queued, so callbacks of one producer thread run in order.
+     * An empty chunk writes nothing but still runs its callback in turn.
+     */
+    void put(List<User> users, Runnable onWritten) throws InterruptedException;
+}
@@ -0,0 +1,75 @@
+package com.example.userapi.service.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal circuit breaker for the upstream users API.
+ * <p>
+ * After {@code failureThreshold} consecutive failures the circuit opens and calls are refused for
+ * {@code openDuration}. The first call after that is let through as a trial: success closes the
+ * circuit, failure opens it again for another {@code openDuration}.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicBoolean trialInFlight = new AtomicBoolean();
+    private volatile long openedAt;
+    private volatile boolean open;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+    }
+
+    /**
+     * Whether a call may go ahead now. Every permitted call must be followed by
+     * {@link #onSuccess()} or {@link #onFailure()}.
+     */
+    public boolean tryAcquire() {
+        if (!open) {
+            return true;
+        }
+        if (System.nanoTime() - openedAt < openNanos) {
+            return false;
+        }
+        return trialInFlight.compareAndSet(false, true);
+    }
+
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+        if (open) {
+            open = false;
+            log.info("Upstream circuit closed after a successful trial call.");
+        }
+        trialInFlight.set(false);
+    }
+
+    public void onFailure() {
+        int failures = consecutiveFailures.incrementAndGet();
+        if (open || failures >= failureThreshold) {
+            openedAt = System.nanoTime();
+            if (!open) {
+                log.warn("Upstream circuit opened after {} consecutive failures; refusing calls for {} ms.",
+                        failures, openNanos / 1_000_000);
+            }
+            open = true;
+        }
+        trialInFlight.set(false);
+    }
+
+    public State getState() {
+        if (!open) {
+            return State.CLOSED;
+        }
+        return System.nanoTime() - openedAt < openNanos ? State.OPEN : State.HALF_OPEN;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.userapi.service.ingest;
+
+import com.example.userapi.repository.BulkWriteResult;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Live, thread-safe counters for one ingestion run. Fetch workers and the writer
+ * thread update it concurrently; {@link #snapshot()} can be taken at any time.
+ */
+public class IngestionProgress {
+
+    private final long startNanos = System.nanoTime();
+    private final AtomicLong expectedUsers = new AtomicLong(-1);
+    private final AtomicLong pagesFetched = new AtomicLong();
+    private final AtomicLong usersFetched = new AtomicLong();
+    private final AtomicLong fetchNanos = new AtomicLong();
+    private final AtomicLong chunksWritten = new AtomicLong();
+    private final AtomicLong usersWritten = new AtomicLong();
+    private final AtomicLong usersInserted = new AtomicLong();
+    private final AtomicLong usersUpdated = new AtomicLong();
+    private final AtomicLong writeNanos = new AtomicLong();
+    private final AtomicLong usersDeleted = new AtomicLong();
+    private volatile LongSupplier committedOffset;
+    private volatile long endNanos;
+
+    void expect(long total) {
+        expectedUsers.set(total);
+    }
+
+    void recordPage(int users, long nanos) {
+        pagesFetched.incrementAndGet();
+        usersFetched.addAndGet(users);
+        fetchNanos.addAndGet(nanos);
+    }
+
+    void recordChunk(int users, BulkWriteResult written, long nanos) {
+        chunksWritten.incrementAndGet();
+        usersWritten.addAndGet(users);
+        usersInserted.addAndGet(written.getInserted());
+        usersUpdated.addAndGet(written.getUpdated());
+        writeNanos.addAndGet(nanos);
+    }
+
+    /**
+     * Record users removed because the upstream no longer has them (delta loads only).
+     */
+    public void recordDeleted(long users) {
+        usersDeleted.addAndGet(users);
+    }
+
+    /**
+     * For file imports: where everything before has been written.
+     */
+    void trackOffset(LongSupplier committedOffset) {
+        this.committedOffset = committedOffset;
+    }
+
+    void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    public IngestionResult snapshot() {
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        LongSupplier offset = committedOffset;
+        return new IngestionResult(
+                expectedUsers.get(),
+                pagesFetched.get(),
+                usersFetched.get(),
+                chunksWritten.get(),
+                usersWritten.get(),
+                usersInserted.get(),
+                usersUpdated.get(),
+                usersWritten.get() - usersInserted.get() - usersUpdated.get(),
+                usersDeleted.get(),
+                offset == null ? null : offset.getAsLong(),
+                TimeUnit.NANOSECONDS.toMillis(end - startNanos),
+                perSecond(usersFetched.get(), fetchNanos.get()),
+                perSecond(usersWritten.get(), writeNanos.get()),
+                perSecond(usersWritten.get(), end - startNanos));
+    }
+
+    private static double perSecond(long count, long nanos) {
+        return nanos <= 0 ? 0 : count * 1_000_000_000d / nanos;
+    }
+}
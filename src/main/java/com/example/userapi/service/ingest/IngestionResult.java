@@ -0,0 +1,35 @@
+package com.example.userapi.service.ingest;
+
+import lombok.Value;
+
+/**
+ * Point-in-time view of an ingestion run.
+ * <p>
+ * Stage throughputs are users per second of time spent inside that stage, summed across
+ * its workers, so {@code fetchUsersPerSecond} is per fetch worker rather than aggregate;
+ * {@code overallUsersPerSecond} is users written per second of wall-clock time.
+ * <p>
+ * {@code usersWritten} counts users handed to the writer; each is then inserted, updated or, on a
+ * delta load, left unchanged. {@code usersDeleted} is only non-zero for delta loads.
+ * <p>
+ * For a file import a "page" is one parsed chunk, and {@code committedOffset} is the byte offset in the
+ * file before which every user has been written: after a failure, resume the import from there. It is
+ * null for upstream loads.
+ */
+@Value
+public class IngestionResult {
+    long expectedUsers;
+    long pagesFetched;
+    long usersFetched;
+    long chunksWritten;
+    long usersWritten;
+    long usersInserted;
+    long usersUpdated;
+    long usersUnchanged;
+    long usersDeleted;
+    Long committedOffset;
+    long elapsedMillis;
+    double fetchUsersPerSecond;
+    double writeUsersPerSecond;
+    double overallUsersPerSecond;
+}
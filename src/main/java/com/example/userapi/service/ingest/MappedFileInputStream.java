@@ -0,0 +1,63 @@
+package com.example.userapi.service.ingest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads a byte range of a file through read-only memory mappings, one window of at most
+ * {@value #WINDOW} bytes at a time (a single mapping cannot exceed 2 GB). Pages are faulted in
+ * by the OS as the parser reaches them; nothing is copied into the heap beyond the caller's buffer.
+ */
+final class MappedFileInputStream extends InputStream {
+
+    private static final long WINDOW = 1L << 30;
+
+    private final FileChannel channel;
+    private final long end;
+    private long next;
+    private MappedByteBuffer window;
+
+    MappedFileInputStream(FileChannel channel, long start, long end) {
+        this.channel = channel;
+        this.next = start;
+        this.end = end;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return ensureWindow() ? window.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureWindow()) {
+            return -1;
+        }
+        int n = Math.min(len, window.remaining());
+        window.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return window == null ? 0 : window.remaining();
+    }
+
+    private boolean ensureWindow() throws IOException {
+        if (window != null && window.hasRemaining()) {
+            return true;
+        }
+        if (next >= end) {
+            return false;
+        }
+        long size = Math.min(WINDOW, end - next);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, next, size);
+        next += size;
+        return true;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.userapi.service.ingest;
+
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries upstream calls that fail with an I/O error, a 5xx or a 429, sleeping a random
+ * ("full jitter") backoff between attempts so parallel page fetchers don't retry in lockstep.
+ * A {@code Retry-After} header in seconds is honoured up to {@code maxBackoff}.
+ * <p>
+ * Every attempt is reported to the {@link CircuitBreaker}; while it is open, calls fail fast with
+ * {@link UpstreamUnavailableException}. Must be the last interceptor on the {@code RestTemplate},
+ * since each retry re-executes the rest of the chain.
+ */
+@Slf4j
+public class UpstreamRetryInterceptor implements ClientHttpRequestInterceptor {
+
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final CircuitBreaker circuitBreaker;
+
+    public UpstreamRetryInterceptor(int maxAttempts, Duration initialBackoff, Duration maxBackoff,
+                                    CircuitBreaker circuitBreaker) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            if (!circuitBreaker.tryAcquire()) {
+                throw new UpstreamUnavailableException("Upstream circuit is open, not calling " + request.getURI());
+            }
+
+            ClientHttpResponse response;
+            try {
+                response = execution.execute(request, body);
+            } catch (IOException e) {
+                circuitBreaker.onFailure();
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.warn("Upstream call {} failed (attempt {}/{}): {}", request.getURI(), attempt, maxAttempts,
+                        e.getMessage());
+                sleep(backoffMillis(attempt, -1));
+                continue;
+            }
+
+            int status = response.getRawStatusCode();
+            if (!isRetryable(status)) {
+                circuitBreaker.onSuccess();
+                return response;
+            }
+            circuitBreaker.onFailure();
+            if (attempt >= maxAttempts) {
+                return response;
+            }
+            long retryAfter = retryAfterMillis(response.getHeaders());
+            response.close();
+            log.warn("Upstream call {} returned {} (attempt {}/{}), retrying.", request.getURI(), status, attempt,
+                    maxAttempts);
+            sleep(backoffMillis(attempt, retryAfter));
+        }
+    }
+
+    private static boolean isRetryable(int status) {
+        return status >= 500 || status == HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private long backoffMillis(int attempt, long retryAfterMillis) {
+        if (retryAfterMillis >= 0) {
+            return Math.min(retryAfterMillis, maxBackoffMillis);
+        }
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static long retryAfterMillis(HttpHeaders headers) {
+        String retryAfter = headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (retryAfter == null) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(retryAfter.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            return -1;   // HTTP-date form; fall back to our own backoff
+        }
+    }
+
+    private static void sleep(long millis) throws InterruptedIOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while backing off from the upstream API");
+        }
+    }
+}
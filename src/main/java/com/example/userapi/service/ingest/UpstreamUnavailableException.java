@@ -0,0 +1,15 @@
+package com.example.userapi.service.ingest;
+
+import org.springframework.web.client.RestClientException;
+
+/**
+ * Thrown without calling the upstream users API while its circuit breaker is open.
+ */
+public class UpstreamUnavailableException extends RestClientException {
+
+    private static final long serialVersionUID = 1L;
+
+    public UpstreamUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.userapi.service.ingest;
+
+import com.example.userapi.model.User;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads one {@code limit}/{@code skip} page of the upstream users API and parses it
+ * straight from the response stream, so a page is never held as a raw {@code Map}.
+ */
+@Slf4j
+@Component
+public class UpstreamUserClient {
+
+    private final RestTemplate restTemplate;
+    private final ObjectReader userReader;
+    private final String externalApiUrl;
+    private final String pageUrlTemplate;
+
+    public UpstreamUserClient(RestTemplate restTemplate, ObjectMapper objectMapper,
+                              @Value("${external.api.users.url}") String externalApiUrl) {
+        this.restTemplate = restTemplate;
+        this.userReader = objectMapper.readerFor(User.class);
+        this.externalApiUrl = externalApiUrl;
+        this.pageUrlTemplate = externalApiUrl + (externalApiUrl.contains("?") ? "&" : "?") + "limit={limit}&skip={skip}";
+    }
+
+    /**
+     * Fetch the page starting at {@code skip}, holding at most {@code limit} users.
+     */
+    public UserPage fetchPage(long skip, int limit) {
+        log.debug("Fetching upstream page: {}?limit={}&skip={}", externalApiUrl, limit, skip);
+
+        // Passed as a template so http.client.requests is tagged with one uri, not one per page.
+        UserPage page = restTemplate.execute(pageUrlTemplate, HttpMethod.GET, null,
+                response -> parsePage(response.getBody(), limit), limit, skip);
+        if (page == null) {
+            throw new IllegalStateException("Invalid API response, no users found.");
+        }
+        return page;
+    }
+
+    /**
+     * Parse a {@code {"users": [...], "total": n}} body, reading users one at a time off the stream.
+     */
+    public UserPage parsePage(InputStream body, int expectedSize) throws IOException {
+        List<User> users = new ArrayList<>(expectedSize);
+        long total = -1;
+        boolean sawUsers = false;
+
+        try (JsonParser parser = userReader.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object from the users API");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("users".equals(field) && value == JsonToken.START_ARRAY) {
+                    sawUsers = true;
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        users.add(userReader.readValue(parser));
+                    }
+                } else if ("total".equals(field) && value.isNumeric()) {
+                    total = parser.getLongValue();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        if (!sawUsers) {
+            throw new IllegalStateException("Invalid API response, no users found.");
+        }
+        return new UserPage(total < 0 ? users.size() : total, users);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.userapi.service.ingest;
+
+import com.example.userapi.model.User;
+import com.example.userapi.repository.BulkWriteResult;
+
+import java.util.List;
+
+/**
+ * Persistence stage of the ingestion pipeline. Called from a single writer thread
+ * with chunks of at most {@code users.ingest.chunk-size} users.
+ */
+@FunctionalInterface
+public interface UserChunkWriter {
+
+    BulkWriteResult write(List<User> chunk);
+}
@@ -0,0 +1,274 @@
+package com.example.userapi.service.ingest;
+
+import com.example.userapi.model.User;
+import com.example.userapi.service.WorkerThreads;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Imports a local dump of users instead of fetching them from the upstream API: either a JSON array
+ * of user objects or NDJSON (one object per line), in the same shape the upstream serves. Files are
+ * only read from {@code users.import.directory}; without it, imports are disabled.
+ * <p>
+ * The file is read through memory mappings by streaming parsers. An NDJSON file is cut at line
+ * breaks into up to {@code users.import.parallelism} ranges parsed in parallel; a JSON array is parsed
+ * by one thread. Users go through the same chunked writer stage as an upstream load.
+ * <p>
+ * Each written chunk advances {@link IngestionResult#getCommittedOffset()}, the offset before which
+ * everything has been written. An import that failed can be restarted from there; users between
+ * that offset and the point of failure are written again, which the upsert makes harmless.
+ */
+@Slf4j
+@Component
+public class UserFileImporter {
+
+    private static final int MIN_RANGE_BYTES = 1 << 20;
+    private static final byte[] OPEN_ARRAY = {'['};
+
+    private final UserIngestionPipeline pipeline;
+    private final WorkerThreads workerThreads;
+    private final ObjectReader userReader;
+    private final Path directory;
+    private final int chunkSize;
+    private final int parallelism;
+
+    public UserFileImporter(UserIngestionPipeline pipeline, WorkerThreads workerThreads, ObjectMapper objectMapper,
+                            @Value("${users.import.directory:}") String directory,
+                            @Value("${users.ingest.chunk-size:500}") int chunkSize,
+                            @Value("${users.import.parallelism:0}") int parallelism) {
+        this.pipeline = pipeline;
+        this.workerThreads = workerThreads;
+        this.userReader = objectMapper.readerFor(User.class);
+        this.directory = directory.isBlank() ? null : Paths.get(directory).toAbsolutePath().normalize();
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * The file called {@code name} in the import directory, checked to be a readable file there that is
+     * at least {@code fromOffset} bytes long.
+     */
+    public Path resolve(String name, long fromOffset) {
+        if (directory == null) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "File imports are disabled; set users.import.directory");
+        }
+        Path file = directory.resolve(name).normalize();
+        try {
+            // Real paths, so neither ".." nor a symlink leads outside the directory.
+            if (!file.startsWith(directory) || !file.toRealPath().startsWith(directory.toRealPath())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Import files must be inside the import directory");
+            }
+            if (!Files.isRegularFile(file) || !Files.isReadable(file)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No readable import file: " + name);
+            }
+            if (fromOffset < 0 || fromOffset > Files.size(file)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Offset " + fromOffset + " is outside " + name + " (" + Files.size(file) + " bytes)");
+            }
+        } catch (IOException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No readable import file: " + name);
+        }
+        return file;
+    }
+
+    /**
+     * Import {@code file} from byte {@code fromOffset} (0, or a committed offset of an earlier attempt),
+     * reporting into {@code progress}. Failures are rethrown once parsing and writing have stopped.
+     */
+    public IngestionResult importFile(Path file, long fromOffset, UserChunkWriter writer, IngestionProgress progress) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            boolean array = firstByte(channel, 0, size) == '[';
+            List<Range> ranges = array ? List.of(arrayRange(channel, fromOffset, size)) : split(channel, fromOffset, size);
+            progress.trackOffset(() -> committedOffset(ranges, size));
+            log.info("Importing {} ({} bytes, {}) from byte {} with {} parsers.", file.getFileName(), size,
+                    array ? "JSON array" : "NDJSON", fromOffset, ranges.size());
+            return pipeline.run((sink, p) -> parse(file, channel, array, ranges, sink, p), writer, progress);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read " + file.getFileName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void parse(Path file, FileChannel channel, boolean array, List<Range> ranges, ChunkSink sink,
+                       IngestionProgress progress) throws Exception {
+        if (ranges.size() == 1) {
+            parse(file, channel, array, ranges.get(0), sink, progress);
+            return;
+        }
+        ExecutorService parsers = Executors.newFixedThreadPool(ranges.size(), workerThreads.factory("user-import-parse-"));
+        try {
+            List<Future<?>> parsed = new ArrayList<>();
+            for (Range range : ranges) {
+                parsed.add(parsers.submit(() -> {
+                    parse(file, channel, false, range, sink, progress);
+                    return null;
+                }));
+            }
+            for (Future<?> future : parsed) {
+                future.get();
+            }
+        } finally {
+            parsers.shutdownNow();
+        }
+    }
+
+    /**
+     * Parse one range, handing over a chunk each {@code chunkSize} users. A resumed JSON array starts
+     * mid-array, so its parser is given the opening bracket first.
+     */
+    private void parse(Path file, FileChannel channel, boolean array, Range range, ChunkSink sink,
+                       IngestionProgress progress) throws IOException, InterruptedException {
+        boolean resumedArray = array && range.start > 0;
+        if (resumedArray && range.start == range.end) {
+            return;
+        }
+        InputStream mapped = new MappedFileInputStream(channel, range.start, range.end);
+        long base = range.start - (resumedArray ? OPEN_ARRAY.length : 0);
+        try (JsonParser parser = userReader.getFactory().createParser(resumedArray
+                ? new SequenceInputStream(new ByteArrayInputStream(OPEN_ARRAY), mapped) : mapped)) {
+            if (array && parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of users");
+            }
+            List<User> users = new ArrayList<>(chunkSize);
+            long started = System.nanoTime();
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                users.add(userReader.readValue(parser));
+                if (users.size() == chunkSize) {
+                    progress.recordPage(users.size(), System.nanoTime() - started);
+                    long offset = base + parser.getCurrentLocation().getByteOffset();
+                    sink.put(users, () -> range.committed = offset);
+                    users = new ArrayList<>(chunkSize);
+                    started = System.nanoTime();
+                }
+            }
+            if (token != (array ? JsonToken.END_ARRAY : null)) {
+                throw new IOException("Expected " + (array ? "a user object or ]" : "one user object per line")
+                        + " at byte " + (base + parser.getTokenLocation().getByteOffset()));
+            }
+            progress.recordPage(users.size(), System.nanoTime() - started);
+            sink.put(users, () -> range.committed = range.end);
+        } catch (JsonProcessingException e) {
+            JsonLocation location = e.getLocation();
+            throw new IOException("Invalid user JSON in " + file.getFileName()
+                    + (location == null ? "" : " at byte " + (base + location.getByteOffset())) + ": "
+                    + e.getOriginalMessage(), e);
+        }
+    }
+
+    /**
+     * Up to {@code parallelism} ranges of at least {@value #MIN_RANGE_BYTES} bytes, each ending just after a line break.
+     */
+    private List<Range> split(FileChannel channel, long from, long size) throws IOException {
+        int count = (int) Math.max(1, Math.min(parallelism, (size - from) / MIN_RANGE_BYTES));
+        List<Range> ranges = new ArrayList<>(count);
+        long start = from;
+        for (int i = 1; i < count && start < size; i++) {
+            long end = lineEnd(channel, Math.max(start, from + (size - from) * i / count), size);
+            if (end > start) {
+                ranges.add(new Range(start, end));
+                start = end;
+            }
+        }
+        ranges.add(new Range(start, size));
+        return ranges;
+    }
+
+    /**
+     * A resumed array range starts at the next object, past the separating comma.
+     */
+    private static Range arrayRange(FileChannel channel, long from, long size) throws IOException {
+        if (from == 0) {
+            return new Range(0, size);
+        }
+        long start = from;
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        while (start < size) {
+            buffer.clear();
+            channel.read(buffer, start);
+            byte b = buffer.get(0);
+            if (b != ',' && !Character.isWhitespace(b)) {
+                break;
+            }
+            start++;
+        }
+        return new Range(start, size);
+    }
+
+    /** The offset just after the first line break at or after {@code position}, or {@code size}. */
+    private static long lineEnd(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    private static int firstByte(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        for (; position < size; position++) {
+            buffer.clear();
+            channel.read(buffer, position);
+            if (!Character.isWhitespace(buffer.get(0))) {
+                return buffer.get(0);
+            }
+        }
+        return -1;
+    }
+
+    private static long committedOffset(List<Range> ranges, long size) {
+        // Ranges are in file order, and each commits front to back.
+        for (Range range : ranges) {
+            if (range.committed < range.end) {
+                return range.committed;
+            }
+        }
+        return size;
+    }
+
+    private static final class Range {
+        private final long start;
+        private final long end;
+        private volatile long committed;
+
+        Range(long start, long end) {
+            this.start = start;
+            this.end = end;
+            this.committed = start;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.userapi.service.ingest;
+
+import com.example.userapi.model.User;
+import com.example.userapi.repository.BulkWriteResult;
+import com.example.userapi.service.WorkerThreads;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Pulls every page of the upstream users API and streams the users into a {@link UserChunkWriter}.
+ * <p>
+ * The first page is fetched on the calling thread to learn the upstream total; the remaining
+ * pages are fetched by a fixed pool of {@code users.ingest.concurrency} workers. Parsed users are
+ * regrouped into chunks of {@code users.ingest.chunk-size} and handed through a bounded queue to a
+ * single writer thread, so persistence overlaps with downloading and a slow database pushes back on
+ * the fetchers instead of letting pages pile up on the heap. Both run on {@link WorkerThreads}, so on
+ * virtual threads when {@code users.threads.virtual} is set.
+ */
+@Slf4j
+@Component
+public class UserIngestionPipeline {
+
+    private static final Chunk END_OF_STREAM = new Chunk(Collections.emptyList(), null);
+    private static final Runnable NOTHING = () -> { };
+
+    private final UpstreamUserClient upstreamUserClient;
+    private final WorkerThreads workerThreads;
+    private final int pageSize;
+    private final int concurrency;
+    private final int chunkSize;
+    private final int queueCapacity;
+
+    public UserIngestionPipeline(UpstreamUserClient upstreamUserClient, WorkerThreads workerThreads,
+                                 @Value("${users.ingest.page-size:100}") int pageSize,
+                                 @Value("${users.ingest.concurrency:4}") int concurrency,
+                                 @Value("${users.ingest.chunk-size:500}") int chunkSize,
+                                 @Value("${users.ingest.queue-capacity:4}") int queueCapacity) {
+        this.upstreamUserClient = upstreamUserClient;
+        this.workerThreads = workerThreads;
+        this.pageSize = pageSize;
+        this.concurrency = concurrency;
+        this.chunkSize = chunkSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    public IngestionResult run(UserChunkWriter writer) {
+        return run(writer, new IngestionProgress());
+    }
+
+    /**
+     * Run a full ingestion, reporting into the supplied progress as it goes.
+     * Upstream and writer failures are rethrown unchanged once both stages have stopped.
+     */
+    public IngestionResult run(UserChunkWriter writer, IngestionProgress progress) {
+        return run(this::fetchAll, writer, progress);
+    }
+
+    /**
+     * Run {@code source} in place of the upstream fetchers, with the same writer stage.
+     */
+    IngestionResult run(UserSource source, UserChunkWriter writer, IngestionProgress progress) {
+        BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(queueCapacity);
+        ChunkWriterTask writerTask = new ChunkWriterTask(chunks, writer, progress);
+        Thread writerThread = workerThreads.factory("user-ingest-writer-").newThread(writerTask);
+        writerThread.start();
+
+        RuntimeException failure = null;
+        try {
+            source.produce((users, onWritten) -> chunks.put(new Chunk(users, onWritten)), progress);
+        } catch (ExecutionException e) {
+            failure = asRuntime(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = new IllegalStateException("Interrupted while loading users", e);
+        } catch (Exception e) {
+            failure = asRuntime(e);
+        } finally {
+            endStream(chunks);
+            joinQuietly(writerThread);
+            progress.finish();
+        }
+
+        if (failure == null && writerTask.failure != null) {
+            failure = asRuntime(writerTask.failure);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+
+        IngestionResult result = progress.snapshot();
+        log.info("Ingested {} users ({} inserted, {} updated) in {} ms: {} pages, {} chunks; "
+                        + "fetch {} users/s/worker, write {} users/s, overall {} users/s.",
+                result.getUsersWritten(), result.getUsersInserted(), result.getUsersUpdated(),
+                result.getElapsedMillis(), result.getPagesFetched(), result.getChunksWritten(),
+                Math.round(result.getFetchUsersPerSecond()), Math.round(result.getWriteUsersPerSecond()),
+                Math.round(result.getOverallUsersPerSecond()));
+        return result;
+    }
+
+    private void fetchAll(ChunkSink sink, IngestionProgress progress) throws InterruptedException, ExecutionException {
+        ExecutorService fetchers = Executors.newFixedThreadPool(concurrency, workerThreads.factory("user-ingest-fetch-"));
+        ChunkBuffer buffer = new ChunkBuffer(sink);
+        try {
+            UserPage first = fetch(0, pageSize, progress);
+            progress.expect(first.getTotal());
+            buffer.add(first.getUsers());
+
+            // Some upstreams cap the page size; step by what they actually returned.
+            int step = first.getUsers().isEmpty() ? pageSize : Math.min(pageSize, first.getUsers().size());
+            log.info("Upstream reports {} users; fetching in pages of {} with {} workers.",
+                    first.getTotal(), step, concurrency);
+
+            List<Future<?>> pages = new ArrayList<>();
+            for (long skip = first.getUsers().size(); skip < first.getTotal(); skip += step) {
+                long pageSkip = skip;
+                pages.add(fetchers.submit(() -> {
+                    buffer.add(fetch(pageSkip, step, progress).getUsers());
+                    return null;
+                }));
+            }
+            for (Future<?> page : pages) {
+                page.get();
+            }
+            buffer.flush();
+        } finally {
+            fetchers.shutdownNow();
+        }
+    }
+
+    private UserPage fetch(long skip, int limit, IngestionProgress progress) {
+        long start = System.nanoTime();
+        UserPage page = upstreamUserClient.fetchPage(skip, limit);
+        progress.recordPage(page.getUsers().size(), System.nanoTime() - start);
+        return page;
+    }
+
+    private static RuntimeException asRuntime(Throwable t) {
+        return t instanceof RuntimeException ? (RuntimeException) t : new IllegalStateException(t.getMessage(), t);
+    }
+
+    private static void joinQuietly(Thread thread) {
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Regroups pages of arbitrary size into fixed-size chunks for the writer.
+     */
+    private final class ChunkBuffer {
+        private final ChunkSink sink;
+        private List<User> current = new ArrayList<>(chunkSize);
+
+        ChunkBuffer(ChunkSink sink) {
+            this.sink = sink;
+        }
+
+        void add(List<User> users) throws InterruptedException {
+            List<List<User>> full = new ArrayList<>();
+            synchronized (this) {
+                for (User user : users) {
+                    current.add(user);
+                    if (current.size() == chunkSize) {
+                        full.add(current);
+                        current = new ArrayList<>(chunkSize);
+                    }
+                }
+            }
+            for (List<User> chunk : full) {
+                sink.put(chunk, NOTHING);
+            }
+        }
+
+        void flush() throws InterruptedException {
+            List<User> rest;
+            synchronized (this) {
+                rest = current;
+                current = new ArrayList<>(chunkSize);
+            }
+            if (!rest.isEmpty()) {
+                sink.put(rest, NOTHING);
+            }
+        }
+    }
+
+    private static void endStream(BlockingQueue<Chunk> chunks) {
+        // The writer keeps draining after a failure, so this cannot block for long.
+        boolean interrupted = Thread.interrupted();
+        while (true) {
+            try {
+                chunks.put(END_OF_STREAM);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Users for the writer, and what to run once they are committed.
+     */
+    private static final class Chunk {
+        private final List<User> users;
+        private final Runnable onWritten;
+
+        Chunk(List<User> users, Runnable onWritten) {
+            this.users = users;
+            this.onWritten = onWritten;
+        }
+    }
+
+    /**
+     * Drains chunks until end of stream. After a write failure it keeps draining
+     * (and discarding) so blocked fetchers are released.
+     */
+    private static final class ChunkWriterTask implements Runnable {
+        private final BlockingQueue<Chunk> chunks;
+        private final UserChunkWriter writer;
+        private final IngestionProgress progress;
+        private volatile Throwable failure;
+
+        ChunkWriterTask(BlockingQueue<Chunk> chunks, UserChunkWriter writer, IngestionProgress progress) {
+            this.chunks = chunks;
+            this.writer = writer;
+            this.progress = progress;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Chunk chunk;
+                try {
+                    chunk = chunks.take();
+                } catch (InterruptedException e) {
+                    failure = e;
+                    return;
+                }
+                if (chunk == END_OF_STREAM) {
+                    return;
+                }
+                if (failure != null) {
+                    continue;
+                }
+                long start = System.nanoTime();
+                try {
+                    if (!chunk.users.isEmpty()) {
+                        BulkWriteResult written = writer.write(chunk.users);
+                        progress.recordChunk(chunk.users.size(), written, System.nanoTime() - start);
+                    }
+                    chunk.onWritten.run();
+                } catch (Throwable t) {
+                    log.error("Failed to write chunk of {} users: {}", chunk.users.size(), t.getMessage(), t);
+                    failure = t;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.userapi.service.ingest;
+
+import com.example.userapi.model.User;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * One page of users as returned by the upstream API, with the upstream's reported total.
+ */
+@Value
+public class UserPage {
+    long total;
+    List<User> users;
+}
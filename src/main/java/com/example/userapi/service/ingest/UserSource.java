@@ -0,0 +1,11 @@
+package com.example.userapi.service.ingest;
+
+/**
+ * Producer stage of the ingestion pipeline: reads users from somewhere and hands them to the
+ * writer in chunks. Returns once every chunk has been handed over; the pipeline waits for the writer.
+ */
+@FunctionalInterface
+interface UserSource {
+
+    void produce(ChunkSink sink, IngestionProgress progress) throws Exception;
+}
@@ -0,0 +1,99 @@
+package com.example.userapi.service.lookup;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A Bloom filter over 64-bit keys: {@link #mightContain} never answers false for a key that was
+ * {@link #add added}, and answers true for a key that was not with a probability that grows as the
+ * filter fills. Sized for {@code expectedKeys} at {@code falsePositiveRate}, it takes about
+ * {@code -ln(rate) / ln(2)^2} bits per key (9.6 at 1%) and probes {@code -log2(rate)} bits per lookup.
+ * <p>
+ * Probe positions come from one 64-bit hash split in two (Kirsch and Mitzenmacher's double hashing),
+ * so a lookup costs one hash and no allocation. Adds may run concurrently with each other and with
+ * lookups; a lookup that starts after an add returns sees its bits.
+ */
+public final class BloomFilter {
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] words;
+    private final long bits;
+    private final int probes;
+
+    public BloomFilter(long expectedKeys, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+        long keys = Math.max(1, expectedKeys);
+        long wanted = (long) Math.ceil(-keys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.words = new long[(int) Math.min(Integer.MAX_VALUE - 8, (wanted + 63) >>> 6)];
+        this.bits = (long) words.length << 6;
+        this.probes = Math.max(1, (int) Math.round((double) bits / keys * Math.log(2)));
+    }
+
+    public void add(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= probes; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+            WORDS.getAndBitwiseOrRelease(words, (int) (bit >>> 6), 1L << bit);
+        }
+    }
+
+    public boolean mightContain(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= probes; i++) {
+            long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+            if (((long) WORDS.getAcquire(words, (int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The chance that a key never added is reported as present, estimated from the share of bits set:
+     * {@code (set / bits) ^ probes}. Counts every bit, so it is meant for metrics, not the request path.
+     */
+    public double expectedFalsePositiveRate() {
+        long set = 0;
+        for (int i = 0; i < words.length; i++) {
+            set += Long.bitCount((long) WORDS.getAcquire(words, i));
+        }
+        return Math.pow((double) set / bits, probes);
+    }
+
+    public long sizeInBytes() {
+        return (long) words.length * Long.BYTES;
+    }
+
+    public int probes() {
+        return probes;
+    }
+
+    /**
+     * A well-mixed 64-bit hash of {@code key} (the finalizer of MurmurHash3).
+     */
+    public static long hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * A 64-bit hash of {@code key}'s characters (FNV-1a, then mixed), computed without encoding it.
+     */
+    public static long hash(CharSequence key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return hash(h);
+    }
+}
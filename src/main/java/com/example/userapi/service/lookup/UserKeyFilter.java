@@ -0,0 +1,261 @@
+package com.example.userapi.service.lookup;
+
+import com.example.userapi.event.UsersLoadedEvent;
+import com.example.userapi.event.UsersWritingEvent;
+import com.example.userapi.event.UsersWrittenEvent;
+import com.example.userapi.model.User;
+import com.example.userapi.repository.UserCursorRepository;
+import com.example.userapi.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers "definitely not stored" for user ids and SSNs without a database round trip, so lookups of
+ * keys that do not exist (scanners, stale links) end in-process. One {@link BloomFilter} per key,
+ * built at startup and again after every load from a scan of the two columns, then swapped in.
+ * Off by default ({@code users.key-filter.enabled}); while off, or until the first build finishes, every key might exist.
+ * <p>
+ * A "no" must never be wrong, so the keys of every bulk write are {@link #add added} both before the
+ * write ({@link UsersWritingEvent}: no reader sees a row the filter lacks) and after it commits
+ * ({@link UsersWrittenEvent}: a rebuild scanning concurrently cannot miss it). Writes still in flight
+ * when a rebuild finishes are added to it before it is swapped in. Deleted users keep their bits until
+ * the next rebuild, which only costs false positives.
+ * <p>
+ * That only covers writes made by this process. Loads by other instances on the same database are
+ * picked up when {@code DatasetVersion} notices them, which can be up to {@code users.dataset.poll-interval}
+ * after they finish; until then their new users are answered "not found" here. Rows written by anything
+ * other than a load are not seen until the next rebuild at all. Enable the filter only where one instance
+ * does all the writing, or where keys appearing that late is acceptable.
+ * <p>
+ * Filters are sized for {@code users.key-filter.headroom} times the rows at build time,
+ * so a load can add that many new users before the rate climbs much past {@code users.key-filter.false-positive-rate}.
+ * <p>
+ * {@code users.key.filter.checks} counts answers by key and result, {@code users.key.filter.false.positives}
+ * the "maybe" answers the database then did not find; {@code users.key.filter.expected.fpp} and
+ * {@code users.key.filter.memory} report each filter's estimated false-positive rate and size.
+ */
+@Slf4j
+@Component
+public class UserKeyFilter {
+
+    private static final long MIN_CAPACITY = 1_024;
+
+    private final UserCursorRepository userCursorRepository;
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final double falsePositiveRate;
+    private final double headroom;
+    private final Counter idAbsent;
+    private final Counter idMaybe;
+    private final Counter idFalsePositives;
+    private final Counter ssnAbsent;
+    private final Counter ssnMaybe;
+    private final Counter ssnFalsePositives;
+    private final Set<List<User>> inFlight = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+    private volatile Keys current;
+    private volatile Keys pending;
+
+    public UserKeyFilter(UserCursorRepository userCursorRepository, UserRepository userRepository, MeterRegistry meterRegistry,
+                         @Value("${users.key-filter.enabled:false}") boolean enabled,
+                         @Value("${users.key-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                         @Value("${users.key-filter.headroom:1.5}") double headroom) {
+        this.userCursorRepository = userCursorRepository;
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.falsePositiveRate = falsePositiveRate;
+        this.headroom = Math.max(1, headroom);
+        this.idAbsent = checks(meterRegistry, "id", "absent");
+        this.idMaybe = checks(meterRegistry, "id", "maybe");
+        this.ssnAbsent = checks(meterRegistry, "ssn", "absent");
+        this.ssnMaybe = checks(meterRegistry, "ssn", "maybe");
+        this.idFalsePositives = falsePositives(meterRegistry, "id");
+        this.ssnFalsePositives = falsePositives(meterRegistry, "ssn");
+        for (String key : new String[] {"id", "ssn"}) {
+            boolean ids = key.equals("id");
+            Gauge.builder("users.key.filter.expected.fpp", this,
+                            filter -> filter.current == null ? 1 : filter.current.of(ids).expectedFalsePositiveRate())
+                    .description("Estimated chance that a key never stored passes the filter (1 while there is none)")
+                    .tag("key", key)
+                    .register(meterRegistry);
+            Gauge.builder("users.key.filter.memory", this,
+                            filter -> filter.current == null ? 0 : filter.current.of(ids).sizeInBytes())
+                    .description("Heap held by the filter's bit array")
+                    .tag("key", key)
+                    .baseUnit("bytes")
+                    .register(meterRegistry);
+        }
+    }
+
+    private static Counter checks(MeterRegistry meterRegistry, String key, String result) {
+        return Counter.builder("users.key.filter.checks")
+                .description("Lookups answered by the key filter, by whether the key might be stored")
+                .tag("key", key)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Counter falsePositives(MeterRegistry meterRegistry, String key) {
+        return Counter.builder("users.key.filter.false.positives")
+                .description("Keys the filter passed that the lookup then did not find")
+                .tag("key", key)
+                .register(meterRegistry);
+    }
+
+    /**
+     * False only if no user has this id.
+     */
+    public boolean mightContainId(long id) {
+        Keys keys = current;
+        if (keys == null) {
+            return true;
+        }
+        boolean maybe = keys.ids.mightContain(BloomFilter.hash(id));
+        (maybe ? idMaybe : idAbsent).increment();
+        return maybe;
+    }
+
+    /**
+     * False only if no user has this SSN.
+     */
+    public boolean mightContainSsn(String ssn) {
+        Keys keys = current;
+        if (keys == null) {
+            return true;
+        }
+        boolean maybe = keys.ssns.mightContain(BloomFilter.hash(ssn));
+        (maybe ? ssnMaybe : ssnAbsent).increment();
+        return maybe;
+    }
+
+    /**
+     * Record that an id {@link #mightContainId passed} but was not found.
+     */
+    public void idNotFound() {
+        if (current != null) {
+            idFalsePositives.increment();
+        }
+    }
+
+    /**
+     * Record that an SSN {@link #mightContainSsn passed} but was not found.
+     */
+    public void ssnNotFound() {
+        if (current != null) {
+            ssnFalsePositives.increment();
+        }
+    }
+
+    /**
+     * Add the keys of users about to be, or just, written.
+     */
+    public void add(Collection<User> users) {
+        // Pending first: a rebuild finishing in between then shows up as the new current one.
+        Keys building = pending;
+        Keys keys = current;
+        if (keys == null && building == null) {
+            return;
+        }
+        for (User user : users) {
+            if (keys != null) {
+                keys.add(user.getId(), user.getSsn());
+            }
+            if (building != null) {
+                building.add(user.getId(), user.getSsn());
+            }
+        }
+    }
+
+    @EventListener
+    public void onUsersWriting(UsersWritingEvent event) {
+        // Registered before the keys are added, so a rebuild swapping in after this point sweeps them up.
+        inFlight.add(event.getUsers());
+        add(event.getUsers());
+    }
+
+    @EventListener
+    public void onUsersWritten(UsersWrittenEvent event) {
+        add(event.getUpserted());
+        inFlight.remove(event.getUpserted());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    @EventListener
+    public void onUsersLoaded(UsersLoadedEvent event) {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    private synchronized void rebuild() {
+        try {
+            long start = System.nanoTime();
+            long capacity = Math.max(MIN_CAPACITY, (long) (userRepository.count() * headroom));
+            Keys built = new Keys(capacity, falsePositiveRate);
+            // Published before the scan starts, so writes it misses are added to it directly.
+            pending = built;
+            userCursorRepository.forEachRow("id, ssn", rs -> built.add(rs.getLong(1), rs.getString(2)));
+            // A write that committed after the scan passed its rows may not have added them back yet.
+            synchronized (inFlight) {
+                for (List<User> users : inFlight) {
+                    for (User user : users) {
+                        built.add(user.getId(), user.getSsn());
+                    }
+                }
+            }
+            current = built;
+            log.info("Swapped in key filters sized for {} users ({} KB each, {} probes) in {} ms",
+                    capacity, built.ids.sizeInBytes() >> 10, built.ids.probes(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (RuntimeException e) {
+            // Without a complete filter every key has to go to the database.
+            current = null;
+            log.warn("Could not build the user key filters; lookups go to the database until the next load: {}",
+                    e.getMessage());
+        } finally {
+            pending = null;
+        }
+    }
+
+    private static final class Keys {
+        private final BloomFilter ids;
+        private final BloomFilter ssns;
+
+        Keys(long capacity, double falsePositiveRate) {
+            this.ids = new BloomFilter(capacity, falsePositiveRate);
+            this.ssns = new BloomFilter(capacity, falsePositiveRate);
+        }
+
+        void add(Long id, String ssn) {
+            if (id != null) {
+                ids.add(BloomFilter.hash(id));
+            }
+            if (ssn != null) {
+                ssns.add(BloomFilter.hash(ssn));
+            }
+        }
+
+        BloomFilter of(boolean ids) {
+            return ids ? this.ids : ssns;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.userapi.service.search;
+
+import com.example.userapi.model.User;
+import lombok.Value;
+
+/**
+ * The searchable fields of one user.
+ */
+@Value
+public class SearchDocument {
+    long id;
+    String firstName;
+    String lastName;
+    String username;
+    String email;
+    String companyName;
+
+    public static SearchDocument of(User user) {
+        return new SearchDocument(user.getId(), user.getFirstName(), user.getLastName(), user.getUsername(),
+                user.getEmail(), user.getCompany() == null ? null : user.getCompany().getName());
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.userapi.service.search;
+
+import lombok.Value;
+
+/**
+ * One ranked match: the user's id and how well it matched (higher is better).
+ */
+@Value
+public class SearchHit {
+    long userId;
+    int score;
+}
@@ -0,0 +1,577 @@
+package com.example.userapi.service.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Immutable in-memory inverted index over {@code firstName}, {@code lastName}, {@code username},
+ * {@code email} and {@code company.name}.
+ * <p>
+ * Field values are lower-cased and split on anything that isn't a letter or digit, so
+ * {@code emily.johnson@x.dummyjson.com} yields {@code emily}, {@code johnson}, {@code x},
+ * {@code dummyjson} and {@code com}. The sorted term dictionary answers exact and prefix lookups by
+ * binary search; a trigram index over the terms finds typo candidates, which are then checked with
+ * a bounded edit distance. Users are numbered in id order, so posting lists, candidate bitsets and
+ * ties in the ranking all run in id order too.
+ * <p>
+ * Every query term must match some field. Each term scores its best match in the user:
+ * exact 3, prefix 2, typo 1, times the field weight (names 3, username and email 2, company 1),
+ * and a user's score is the sum over the query terms. Changes produce a new index
+ * ({@link #withChanges}); readers of the old one are unaffected.
+ */
+public final class UserSearchIndex {
+
+    static final int FIRST_NAME = 0;
+    static final int LAST_NAME = 1;
+    static final int USERNAME = 2;
+    static final int EMAIL = 3;
+    static final int COMPANY = 4;
+    private static final int[] FIELD_WEIGHTS = {3, 3, 2, 2, 1};
+    private static final int FIELD_BITS = 3;
+    private static final int FIELD_MASK = (1 << FIELD_BITS) - 1;
+
+    private static final int EXACT = 3;
+    private static final int PREFIX = 2;
+    private static final int TYPO = 1;
+
+    /** Terms a single prefix may expand to; keeps one- or two-letter prefixes bounded. */
+    static final int MAX_PREFIX_TERMS = 2_048;
+    static final int MAX_QUERY_TERMS = 8;
+    /** Dictionary terms one token's typo lookup may check; bounds the cost of tokens made of common trigrams. */
+    static final int MAX_TYPO_SCAN = 50_000;
+
+    private static final int[] NO_INTS = new int[0];
+
+    /** User id per document, ascending; the document number is the index. */
+    private final long[] userIds;
+    /** Document d's (term << FIELD_BITS | field) entries are docEntries[docStart[d] .. docStart[d + 1]). */
+    private final int[] docStart;
+    private final int[] docEntries;
+    private final String[] terms;
+    /** Documents containing each term, ascending. */
+    private final int[][] postings;
+    /** Bit f is set if the term occurs in field f of some document. */
+    private final byte[] termFields;
+    private final Map<String, int[]> termsByTrigram;
+
+    private UserSearchIndex(long[] userIds, int[] docStart, int[] docEntries, String[] terms, int[][] postings,
+                            byte[] termFields, Map<String, int[]> termsByTrigram) {
+        this.userIds = userIds;
+        this.docStart = docStart;
+        this.docEntries = docEntries;
+        this.terms = terms;
+        this.postings = postings;
+        this.termFields = termFields;
+        this.termsByTrigram = termsByTrigram;
+    }
+
+    public static UserSearchIndex empty() {
+        return new Builder().build();
+    }
+
+    /**
+     * Build an index over {@code documents}, which must arrive in ascending id order.
+     */
+    public static UserSearchIndex build(Consumer<Consumer<SearchDocument>> documents) {
+        Builder builder = new Builder();
+        documents.accept(builder::add);
+        return builder.build();
+    }
+
+    public int size() {
+        return userIds.length;
+    }
+
+    public int termCount() {
+        return terms.length;
+    }
+
+    /**
+     * A new index with {@code changed} added or replaced and {@code deleted} removed. Unchanged users are
+     * carried over from this index's own entries, so nothing else needs to be re-read.
+     */
+    public UserSearchIndex withChanges(Collection<SearchDocument> changed, Set<Long> deleted) {
+        List<SearchDocument> updates = new ArrayList<>(changed);
+        updates.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+
+        Builder builder = new Builder();
+        int next = 0;
+        for (int doc = 0; doc < userIds.length; doc++) {
+            long id = userIds[doc];
+            while (next < updates.size() && updates.get(next).getId() < id) {
+                builder.add(updates.get(next++));
+            }
+            if (next < updates.size() && updates.get(next).getId() == id) {
+                builder.add(updates.get(next++));
+                continue;
+            }
+            if (deleted.contains(id)) {
+                continue;
+            }
+            builder.startDocument(id);
+            for (int e = docStart[doc]; e < docStart[doc + 1]; e++) {
+                builder.addTerm(terms[docEntries[e] >>> FIELD_BITS], docEntries[e] & FIELD_MASK);
+            }
+        }
+        while (next < updates.size()) {
+            builder.add(updates.get(next++));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Best matches for {@code query}, ranked by score and then id, starting after the hit
+     * ({@code afterScore}, {@code afterId}); pass {@code Integer.MAX_VALUE} and any id for the first page.
+     * Returns up to {@code limit + 1} hits so callers can tell whether there is a next page.
+     */
+    public List<SearchHit> search(String query, int afterScore, long afterId, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || userIds.length == 0) {
+            return List.of();
+        }
+        if (tokens.size() > MAX_QUERY_TERMS) {
+            tokens = tokens.subList(0, MAX_QUERY_TERMS);
+        }
+
+        TermMatches[] matches = new TermMatches[tokens.size()];
+        int driver = 0;
+        for (int i = 0; i < matches.length; i++) {
+            matches[i] = match(tokens.get(i));
+            if (matches[i].isEmpty()) {
+                return List.of();
+            }
+            if (matches[i].postingCount < matches[driver].postingCount) {
+                driver = i;
+            }
+        }
+
+        // Candidates are the documents of the rarest query term, in id order; the others are checked per document.
+        int[] driverTerms = matches[driver].terms;
+        DocIterator candidates;
+        if (driverTerms.length == 1) {
+            int[] docs = postings[driverTerms[0]];
+            candidates = new DocIterator() {
+                private int next;
+
+                @Override
+                public int next() {
+                    return next < docs.length ? docs[next++] : -1;
+                }
+            };
+        } else {
+            BitSet union = new BitSet(userIds.length);
+            for (int term : driverTerms) {
+                for (int doc : postings[term]) {
+                    union.set(doc);
+                }
+            }
+            candidates = new DocIterator() {
+                private int next = union.nextSetBit(0);
+
+                @Override
+                public int next() {
+                    int doc = next;
+                    if (doc >= 0) {
+                        next = union.nextSetBit(doc + 1);
+                    }
+                    return doc;
+                }
+            };
+        }
+
+        int bestPossible = 0;
+        for (TermMatches match : matches) {
+            bestPossible += match.bestScore;
+        }
+        int ceiling = Math.min(bestPossible, afterScore);
+
+        int keep = limit + 1;
+        PriorityQueue<Long> top = new PriorityQueue<>(keep + 1);
+        for (int doc = candidates.next(); doc >= 0; doc = candidates.next()) {
+            int score = score(doc, matches);
+            if (score == 0 || score > afterScore || (score == afterScore && userIds[doc] <= afterId)) {
+                continue;
+            }
+            // Larger key ranks higher: score first, then the lower document (= lower id).
+            long key = ((long) score << 32) | (0xFFFFFFFFL - doc);
+            if (top.size() < keep) {
+                top.add(key);
+            } else if (key > top.peek()) {
+                top.poll();
+                top.add(key);
+            }
+            // Candidates arrive in id order, so once every kept hit has the highest score still
+            // possible, nothing later can displace them.
+            if (top.size() == keep && (top.peek() >>> 32) == ceiling) {
+                break;
+            }
+        }
+
+        SearchHit[] hits = new SearchHit[top.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            long key = top.poll();
+            int doc = (int) (0xFFFFFFFFL - (key & 0xFFFFFFFFL));
+            hits[i] = new SearchHit(userIds[doc], (int) (key >>> 32));
+        }
+        return Arrays.asList(hits);
+    }
+
+    private int score(int doc, TermMatches[] matches) {
+        int total = 0;
+        for (TermMatches match : matches) {
+            int best = 0;
+            for (int e = docStart[doc]; e < docStart[doc + 1]; e++) {
+                int entry = docEntries[e];
+                int quality = match.quality(entry >>> FIELD_BITS);
+                if (quality > 0) {
+                    best = Math.max(best, quality * FIELD_WEIGHTS[entry & FIELD_MASK]);
+                }
+            }
+            if (best == 0) {
+                return 0;
+            }
+            total += best;
+        }
+        return total;
+    }
+
+    /**
+     * Terms matching one query token: itself, terms it prefixes, and terms within typo distance.
+     */
+    private TermMatches match(String token) {
+        Map<Integer, Integer> quality = new HashMap<>();
+        int from = lowerBound(token);
+        int to = Math.min(terms.length, from + MAX_PREFIX_TERMS);
+        for (int term = from; term < to && terms[term].startsWith(token); term++) {
+            quality.put(term, terms[term].length() == token.length() ? EXACT : PREFIX);
+        }
+
+        int maxEdits = token.length() < 4 ? 0 : token.length() < 7 ? 1 : 2;
+        addTypos(token, maxEdits, quality);
+        return new TermMatches(quality, postings, termFields);
+    }
+
+    /**
+     * Add the terms within {@code maxEdits} of {@code token} that aren't matched already. One edit
+     * touches at most three padded trigrams, so such a term shares all but {@code 3 * maxEdits} of the
+     * token's trigrams and must appear in at least one of its {@code 3 * maxEdits + 1} rarest ones.
+     * When even those list more than {@link #MAX_TYPO_SCAN} terms, fewer edits are allowed, or none.
+     */
+    private void addTypos(String token, int maxEdits, Map<Integer, Integer> quality) {
+        if (maxEdits == 0) {
+            return;
+        }
+        List<String> grams = trigrams(token);
+        int[][] lists = new int[grams.size()][];
+        for (int i = 0; i < lists.length; i++) {
+            lists[i] = termsByTrigram.getOrDefault(grams.get(i), NO_INTS);
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.length, b.length));
+
+        int read;
+        int total;
+        do {
+            read = Math.min(lists.length, 3 * maxEdits + 1);
+            total = 0;
+            for (int i = 0; i < read; i++) {
+                total += lists[i].length;
+            }
+        } while (total > MAX_TYPO_SCAN && --maxEdits > 0);
+        if (maxEdits == 0) {
+            return;
+        }
+
+        int[] candidates = new int[total];
+        int count = 0;
+        for (int i = 0; i < read; i++) {
+            for (int term : lists[i]) {
+                if (Math.abs(terms[term].length() - token.length()) <= maxEdits) {
+                    candidates[count++] = term;
+                }
+            }
+        }
+        // After sorting, a term's run length is how many of the read lists hold it; the rest are
+        // checked only while the term can still reach the shared trigrams it needs.
+        Arrays.sort(candidates, 0, count);
+        int needed = lists.length - 3 * maxEdits;
+        for (int i = 0; i < count; ) {
+            int term = candidates[i];
+            int shared = 0;
+            while (i < count && candidates[i] == term) {
+                shared++;
+                i++;
+            }
+            for (int list = read; list < lists.length && shared < needed
+                    && shared + lists.length - list >= needed; list++) {
+                if (Arrays.binarySearch(lists[list], term) >= 0) {
+                    shared++;
+                }
+            }
+            if (shared >= needed && !quality.containsKey(term) && withinEdits(token, terms[term], maxEdits)) {
+                quality.put(term, TYPO);
+            }
+        }
+    }
+
+    private int lowerBound(String token) {
+        int index = Arrays.binarySearch(terms, token);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Optimal-string-alignment distance of at most {@code maxEdits}, giving up as soon as a row exceeds it.
+     */
+    static boolean withinEdits(String a, String b, int maxEdits) {
+        if (Math.abs(a.length() - b.length()) > maxEdits) {
+            return false;
+        }
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > maxEdits) {
+                return false;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()] <= maxEdits;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private static List<String> trigrams(String term) {
+        String padded = "$" + term + "$";
+        List<String> grams = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    private interface DocIterator {
+        /** The next candidate document, or -1 when there are no more. */
+        int next();
+    }
+
+    /**
+     * Match quality per term for one query token, as parallel arrays sorted by term for lookups.
+     */
+    private static final class TermMatches {
+        private final int[] terms;
+        private final int[] qualities;
+        private final long postingCount;
+        /** The most any document can score for this token. */
+        private final int bestScore;
+
+        TermMatches(Map<Integer, Integer> quality, int[][] postings, byte[] termFields) {
+            terms = quality.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            qualities = new int[terms.length];
+            long count = 0;
+            int best = 0;
+            for (int i = 0; i < terms.length; i++) {
+                qualities[i] = quality.get(terms[i]);
+                count += postings[terms[i]].length;
+                for (int field = 0; field < FIELD_WEIGHTS.length; field++) {
+                    if ((termFields[terms[i]] & 1 << field) != 0) {
+                        best = Math.max(best, qualities[i] * FIELD_WEIGHTS[field]);
+                    }
+                }
+            }
+            postingCount = count;
+            bestScore = best;
+        }
+
+        boolean isEmpty() {
+            return terms.length == 0;
+        }
+
+        int quality(int term) {
+            int index = Arrays.binarySearch(terms, term);
+            return index >= 0 ? qualities[index] : 0;
+        }
+    }
+
+    /**
+     * Accumulates documents in id order with provisional term numbers, then sorts the dictionary
+     * and lays out postings and trigrams.
+     */
+    private static final class Builder {
+        private final Map<String, Integer> termIds = new HashMap<>();
+        private final List<String> termList = new ArrayList<>();
+        private long[] ids = new long[1024];
+        private int[] starts = new int[1025];
+        private int[] entries = new int[8192];
+        private int docs;
+        private int entryCount;
+
+        void add(SearchDocument document) {
+            startDocument(document.getId());
+            addField(document.getFirstName(), FIRST_NAME);
+            addField(document.getLastName(), LAST_NAME);
+            addField(document.getUsername(), USERNAME);
+            addField(document.getEmail(), EMAIL);
+            addField(document.getCompanyName(), COMPANY);
+        }
+
+        void startDocument(long id) {
+            if (docs > 0 && id <= ids[docs - 1]) {
+                throw new IllegalArgumentException("Documents must be added in ascending id order");
+            }
+            if (docs == ids.length) {
+                ids = Arrays.copyOf(ids, docs * 2);
+                starts = Arrays.copyOf(starts, docs * 2 + 1);
+            }
+            ids[docs++] = id;
+            starts[docs] = entryCount;
+        }
+
+        private void addField(String value, int field) {
+            for (String token : tokenize(value)) {
+                addTerm(token, field);
+            }
+        }
+
+        void addTerm(String term, int field) {
+            Integer id = termIds.get(term);
+            if (id == null) {
+                id = termList.size();
+                termIds.put(term, id);
+                termList.add(term);
+            }
+            int entry = id << FIELD_BITS | field;
+            for (int e = starts[docs - 1]; e < entryCount; e++) {
+                if (entries[e] == entry) {
+                    return;
+                }
+            }
+            if (entryCount == entries.length) {
+                entries = Arrays.copyOf(entries, entryCount * 2);
+            }
+            entries[entryCount++] = entry;
+            starts[docs] = entryCount;
+        }
+
+        UserSearchIndex build() {
+            String[] sorted = termList.toArray(new String[0]);
+            Arrays.sort(sorted);
+            int[] renumber = new int[sorted.length];
+            for (int term = 0; term < sorted.length; term++) {
+                renumber[termIds.get(sorted[term])] = term;
+            }
+            int[] docEntries = Arrays.copyOf(entries, entryCount);
+            for (int e = 0; e < docEntries.length; e++) {
+                docEntries[e] = renumber[docEntries[e] >>> FIELD_BITS] << FIELD_BITS | (docEntries[e] & FIELD_MASK);
+            }
+            int[] docStart = Arrays.copyOf(starts, docs + 1);
+
+            // A term in several fields of one document is posted once.
+            byte[] termFields = new byte[sorted.length];
+            for (int entry : docEntries) {
+                termFields[entry >>> FIELD_BITS] |= 1 << (entry & FIELD_MASK);
+            }
+            int[] counts = new int[sorted.length];
+            int[] lastDoc = new int[sorted.length];
+            Arrays.fill(lastDoc, -1);
+            for (int doc = 0; doc < docs; doc++) {
+                for (int e = docStart[doc]; e < docStart[doc + 1]; e++) {
+                    int term = docEntries[e] >>> FIELD_BITS;
+                    if (lastDoc[term] != doc) {
+                        lastDoc[term] = doc;
+                        counts[term]++;
+                    }
+                }
+            }
+            int[][] postings = new int[sorted.length][];
+            for (int term = 0; term < sorted.length; term++) {
+                postings[term] = new int[counts[term]];
+                counts[term] = 0;
+            }
+            Arrays.fill(lastDoc, -1);
+            for (int doc = 0; doc < docs; doc++) {
+                for (int e = docStart[doc]; e < docStart[doc + 1]; e++) {
+                    int term = docEntries[e] >>> FIELD_BITS;
+                    if (lastDoc[term] != doc) {
+                        lastDoc[term] = doc;
+                        postings[term][counts[term]++] = doc;
+                    }
+                }
+            }
+
+            Map<String, int[]> byTrigram = new HashMap<>();
+            Map<String, Integer> gramCounts = new HashMap<>();
+            for (String term : sorted) {
+                for (String gram : trigrams(term)) {
+                    gramCounts.merge(gram, 1, Integer::sum);
+                }
+            }
+            for (Map.Entry<String, Integer> gram : gramCounts.entrySet()) {
+                byTrigram.put(gram.getKey(), new int[gram.getValue()]);
+                gram.setValue(0);
+            }
+            for (int term = 0; term < sorted.length; term++) {
+                for (String gram : trigrams(sorted[term])) {
+                    int at = gramCounts.merge(gram, 1, Integer::sum) - 1;
+                    int[] list = byTrigram.get(gram);
+                    // A gram repeated within one term ("$aa" in "aaa…") is listed once.
+                    if (at == 0 || list[at - 1] != term) {
+                        list[at] = term;
+                    } else {
+                        gramCounts.merge(gram, -1, Integer::sum);
+                    }
+                }
+            }
+            for (Map.Entry<String, Integer> gram : gramCounts.entrySet()) {
+                int[] list = byTrigram.get(gram.getKey());
+                if (list.length != gram.getValue()) {
+                    byTrigram.put(gram.getKey(), Arrays.copyOf(list, gram.getValue()));
+                }
+            }
+
+            return new UserSearchIndex(Arrays.copyOf(ids, docs), docStart, docEntries, sorted, postings, termFields,
+                    byTrigram);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.userapi.service.search;
+
+import com.example.userapi.dto.CursorPage;
+import com.example.userapi.event.UsersLoadedEvent;
+import com.example.userapi.model.User;
+import com.example.userapi.repository.UserCursorRepository;
+import com.example.userapi.repository.UserRepository;
+import com.example.userapi.service.UserService;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prefix and typo-tolerant search over names, username, email and company name, served from a
+ * {@link UserSearchIndex} held in memory. The index is built on the first search, rebuilt after a
+ * full load and patched with just the changed and deleted users after a delta load. Searches keep
+ * using the previous index until the new one is swapped in.
+ */
+@Slf4j
+@Service
+public class UserSearchService {
+
+    private static final String SEARCH_COLUMNS = "id, first_name, last_name, username, email, name";
+    private static final char CURSOR_SEPARATOR = '_';
+
+    private final UserCursorRepository userCursorRepository;
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private volatile UserSearchIndex index;
+
+    @Value("${users.batch.chunk-size:1000}") // Keys per IN (...) query
+    private int chunkSize;
+
+    public UserSearchService(UserCursorRepository userCursorRepository, UserRepository userRepository,
+                             UserService userService) {
+        this.userCursorRepository = userCursorRepository;
+        this.userRepository = userRepository;
+        this.userService = userService;
+    }
+
+    /**
+     * One page of users matching {@code query}, best match first. The cursor is the last hit's
+     * {@code score_id}.
+     */
+    @Timed(UserService.SERVICE_TIMER)
+    public CursorPage<User> search(String query, String after, int limit) {
+        if (UserSearchIndex.tokenize(query).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "q must contain at least one letter or digit");
+        }
+        int afterScore = Integer.MAX_VALUE;
+        long afterId = Long.MIN_VALUE;
+        if (after != null) {
+            int separator = after.indexOf(CURSOR_SEPARATOR);
+            try {
+                afterScore = Integer.parseInt(after.substring(0, separator));
+                afterId = Long.parseLong(after.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + after);
+            }
+        }
+
+        List<SearchHit> hits = currentIndex().search(query, afterScore, afterId, limit);
+        String nextCursor = null;
+        if (hits.size() > limit) {
+            hits = hits.subList(0, limit);
+            SearchHit last = hits.get(limit - 1);
+            nextCursor = last.getScore() + String.valueOf(CURSOR_SEPARATOR) + last.getUserId();
+        }
+
+        List<Long> ids = new ArrayList<>(hits.size());
+        hits.forEach(hit -> ids.add(hit.getUserId()));
+        // In rank order; users deleted since the index was built are left out rather than failing the page.
+        List<User> users = userService.getUsersByIds(ids, false).getUsers();
+        log.debug("Search '{}' returned {} users, next cursor {}", query, users.size(), nextCursor);
+        return new CursorPage<>(users, nextCursor);
+    }
+
+    @EventListener
+    public void onUsersLoaded(UsersLoadedEvent event) {
+        if (index == null) {
+            return; // Nothing searched yet; the first search builds it.
+        }
+        try {
+            synchronized (this) {
+                index = event.isDelta()
+                        ? patch(index, event.getChangedIds(), event.getDeletedIds())
+                        : buildIndex();
+            }
+        } catch (RuntimeException e) {
+            // Never fail the load over this; the next search rebuilds.
+            index = null;
+            log.warn("Could not refresh the search index after load: {}", e.getMessage());
+        }
+    }
+
+    private UserSearchIndex currentIndex() {
+        UserSearchIndex current = index;
+        if (current == null) {
+            synchronized (this) {
+                current = index;
+                if (current == null) {
+                    current = buildIndex();
+                    index = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private UserSearchIndex buildIndex() {
+        long start = System.nanoTime();
+        UserSearchIndex built = UserSearchIndex.build(sink -> userCursorRepository.forEachRow(SEARCH_COLUMNS,
+                rs -> sink.accept(new SearchDocument(rs.getLong("id"), rs.getString("first_name"),
+                        rs.getString("last_name"), rs.getString("username"), rs.getString("email"),
+                        rs.getString("name")))));
+        log.info("Built search index over {} users ({} terms) in {} ms", built.size(), built.termCount(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return built;
+    }
+
+    private UserSearchIndex patch(UserSearchIndex current, Set<Long> changedIds, Set<Long> deletedIds) {
+        if (changedIds.isEmpty() && deletedIds.isEmpty()) {
+            return current;
+        }
+        long start = System.nanoTime();
+        List<Long> ids = new ArrayList<>(changedIds);
+        List<SearchDocument> changed = new ArrayList<>(ids.size());
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            userRepository.findAllById(ids.subList(from, Math.min(ids.size(), from + chunkSize)))
+                    .forEach(user -> changed.add(SearchDocument.of(user)));
+        }
+        UserSearchIndex patched = current.withChanges(changed, deletedIds);
+        log.info("Patched search index with {} changed and {} deleted users in {} ms", changed.size(),
+                deletedIds.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return patched;
+    }
+}
@@ -0,0 +1,652 @@
+package com.example.userapi.service.snapshot;
+
+import com.example.userapi.model.User;
+import com.example.userapi.repository.UserTable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Every user's values kept column by column, one column per {@link UserTable#COLUMNS} entry, in
+ * place of a graph of {@code User}, {@code Address}, {@code Company}... objects and their strings.
+ * <ul>
+ *     <li>{@code BIGINT}, {@code INTEGER} and {@code DOUBLE} columns are primitive arrays, {@code DATE}
+ *     columns an array of epoch days; nulls are a bitmap (a sentinel for dates).</li>
+ *     <li>{@code VARCHAR} columns are dictionary-encoded while they have at most
+ *     {@value #MAX_DICTIONARY_SIZE} distinct values: each distinct string is held once and every row
+ *     holds a one- or two-byte code. That covers gender, blood group, eye and hair colour, role, card
+ *     type, coin, the fixture's names and most addresses.</li>
+ *     <li>Any other {@code VARCHAR} column is one UTF-8 buffer plus an offset per row, on the heap or,
+ *     with {@code offHeap}, in direct memory outside it.</li>
+ * </ul>
+ * {@link #materialize(int)} builds a fresh {@code User} for one row through {@link UserTable#map}, the
+ * same mapping the JDBC paths use, so callers get exactly what a database read returns and may keep
+ * or modify it. {@code content_hash} is not kept: it only matters to the load and is never served.
+ * <p>
+ * Rows are numbered from 0 in the order they were added. Immutable once built and safe to read
+ * from any number of threads.
+ */
+public final class ColumnarUserStore {
+
+    /** Most distinct values a string column may have and stay dictionary-encoded; codes fit a {@code char}. */
+    static final int MAX_DICTIONARY_SIZE = 65_535;
+
+    private static final StoredColumn NULL_COLUMN = new NullColumn();
+
+    private final int size;
+    private final Map<String, StoredColumn> columns;
+    private final long[] ids;
+
+    private ColumnarUserStore(int size, Map<String, StoredColumn> columns) {
+        this.size = size;
+        this.columns = columns;
+        this.ids = ((LongColumn) columns.get("id")).values;
+    }
+
+    /**
+     * @param offHeap keep the UTF-8 buffers of high-cardinality string columns in direct memory
+     */
+    public static Builder builder(boolean offHeap) {
+        return new Builder(offHeap, MAX_DICTIONARY_SIZE);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long id(int row) {
+        return ids[row];
+    }
+
+    /**
+     * The value of a {@code VARCHAR} column, or null. Dictionary-encoded values are shared, not copied.
+     */
+    public String getString(int row, String column) {
+        return column(column).string(row);
+    }
+
+    /**
+     * The value of a {@code DATE} column as an epoch day, or {@link Integer#MIN_VALUE} for null.
+     */
+    public int getEpochDay(int row, String column) {
+        StoredColumn stored = column(column);
+        return stored.isNull(row) ? Integer.MIN_VALUE : stored.intValue(row);
+    }
+
+    /**
+     * A new {@code User} holding the row's values.
+     */
+    public User materialize(int row) {
+        try {
+            return UserTable.map(new RowView(row));
+        } catch (SQLException e) {
+            // RowView never throws; the clause only satisfies the Row contract shared with JDBC.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Estimated heap retained by the columns: their arrays, null bitmaps and dictionary strings.
+     */
+    public long heapBytes() {
+        return columns.values().stream().mapToLong(StoredColumn::heapBytes).sum();
+    }
+
+    /**
+     * Direct memory held by off-heap string buffers; 0 unless built with {@code offHeap}.
+     */
+    public long offHeapBytes() {
+        return columns.values().stream().mapToLong(StoredColumn::offHeapBytes).sum();
+    }
+
+    boolean isDictionaryEncoded(String column) {
+        return columns.get(column) instanceof DictionaryColumn;
+    }
+
+    private StoredColumn column(String name) {
+        StoredColumn column = columns.get(name);
+        return column != null ? column : NULL_COLUMN;
+    }
+
+    /** One row seen through the {@link UserTable.Row} interface that {@link UserTable#map} reads. */
+    private final class RowView implements UserTable.Row {
+        private final int row;
+        private boolean wasNull;
+
+        RowView(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public String getString(String column) {
+            String value = column(column).string(row);
+            wasNull = value == null;
+            return value;
+        }
+
+        @Override
+        public int getInt(String column) {
+            StoredColumn stored = column(column);
+            wasNull = stored.isNull(row);
+            return wasNull ? 0 : stored.intValue(row);
+        }
+
+        @Override
+        public long getLong(String column) {
+            StoredColumn stored = column(column);
+            wasNull = stored.isNull(row);
+            return wasNull ? 0 : stored.longValue(row);
+        }
+
+        @Override
+        public double getDouble(String column) {
+            StoredColumn stored = column(column);
+            wasNull = stored.isNull(row);
+            return wasNull ? 0 : stored.doubleValue(row);
+        }
+
+        @Override
+        public LocalDate getDate(String column) {
+            StoredColumn stored = column(column);
+            wasNull = stored.isNull(row);
+            return wasNull ? null : LocalDate.ofEpochDay(stored.intValue(row));
+        }
+
+        @Override
+        public boolean wasNull() {
+            return wasNull;
+        }
+    }
+
+    /**
+     * Appends users one at a time, so a snapshot can be built straight from a database scan
+     * without first holding every user as objects.
+     */
+    public static final class Builder {
+        private final Map<String, ColumnBuilder> columns = new LinkedHashMap<>();
+        private final List<UserTable.Column> sources = new ArrayList<>();
+        private int size;
+
+        Builder(boolean offHeap, int maxDictionarySize) {
+            for (UserTable.Column column : UserTable.COLUMNS) {
+                if (column.getName().equals("content_hash")) {
+                    continue;
+                }
+                sources.add(column);
+                columns.put(column.getName(), ColumnBuilder.forType(column, offHeap, maxDictionarySize));
+            }
+        }
+
+        public Builder add(User user) {
+            int row = size++;
+            for (UserTable.Column source : sources) {
+                columns.get(source.getName()).set(row, source.valueOf(user));
+            }
+            return this;
+        }
+
+        public ColumnarUserStore build() {
+            Map<String, StoredColumn> built = new HashMap<>(columns.size() * 2);
+            columns.forEach((name, column) -> built.put(name, column.build(size)));
+            return new ColumnarUserStore(size, built);
+        }
+    }
+
+    private abstract static class StoredColumn {
+
+        abstract boolean isNull(int row);
+
+        abstract long heapBytes();
+
+        long offHeapBytes() {
+            return 0;
+        }
+
+        String string(int row) {
+            throw new UnsupportedOperationException(getClass().getSimpleName());
+        }
+
+        int intValue(int row) {
+            throw new UnsupportedOperationException(getClass().getSimpleName());
+        }
+
+        long longValue(int row) {
+            throw new UnsupportedOperationException(getClass().getSimpleName());
+        }
+
+        double doubleValue(int row) {
+            throw new UnsupportedOperationException(getClass().getSimpleName());
+        }
+    }
+
+    /** Stands in for the columns that are not kept. */
+    private static final class NullColumn extends StoredColumn {
+        @Override
+        boolean isNull(int row) {
+            return true;
+        }
+
+        @Override
+        String string(int row) {
+            return null;
+        }
+
+        @Override
+        long heapBytes() {
+            return 0;
+        }
+    }
+
+    private static final class LongColumn extends StoredColumn {
+        private final long[] values;
+        private final BitSet nulls;
+
+        LongColumn(long[] values, BitSet nulls) {
+            this.values = values;
+            this.nulls = nulls;
+        }
+
+        @Override
+        boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        @Override
+        long longValue(int row) {
+            return values[row];
+        }
+
+        @Override
+        long heapBytes() {
+            return arrayBytes(values.length, Long.BYTES) + bitmapBytes(nulls);
+        }
+    }
+
+    /** {@code INTEGER} values, or epoch days for a {@code DATE} column, where nulls are {@code Integer.MIN_VALUE}. */
+    private static final class IntColumn extends StoredColumn {
+        private final int[] values;
+        private final BitSet nulls;
+
+        IntColumn(int[] values, BitSet nulls) {
+            this.values = values;
+            this.nulls = nulls;
+        }
+
+        @Override
+        boolean isNull(int row) {
+            return nulls == null ? values[row] == Integer.MIN_VALUE : nulls.get(row);
+        }
+
+        @Override
+        int intValue(int row) {
+            return values[row];
+        }
+
+        @Override
+        long heapBytes() {
+            return arrayBytes(values.length, Integer.BYTES) + (nulls == null ? 0 : bitmapBytes(nulls));
+        }
+    }
+
+    private static final class DoubleColumn extends StoredColumn {
+        private final double[] values;
+        private final BitSet nulls;
+
+        DoubleColumn(double[] values, BitSet nulls) {
+            this.values = values;
+            this.nulls = nulls;
+        }
+
+        @Override
+        boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        @Override
+        double doubleValue(int row) {
+            return values[row];
+        }
+
+        @Override
+        long heapBytes() {
+            return arrayBytes(values.length, Double.BYTES) + bitmapBytes(nulls);
+        }
+    }
+
+    /** Code 0 is null; code {@code c} is {@code dictionary[c - 1]}. */
+    private static final class DictionaryColumn extends StoredColumn {
+        private final String[] dictionary;
+        /** One of the two is set: byte codes while the dictionary has at most 255 entries. */
+        private final byte[] narrowCodes;
+        private final char[] wideCodes;
+
+        DictionaryColumn(String[] dictionary, byte[] narrowCodes, char[] wideCodes) {
+            this.dictionary = dictionary;
+            this.narrowCodes = narrowCodes;
+            this.wideCodes = wideCodes;
+        }
+
+        private int code(int row) {
+            return narrowCodes != null ? narrowCodes[row] & 0xFF : wideCodes[row];
+        }
+
+        @Override
+        boolean isNull(int row) {
+            return code(row) == 0;
+        }
+
+        @Override
+        String string(int row) {
+            int code = code(row);
+            return code == 0 ? null : dictionary[code - 1];
+        }
+
+        @Override
+        long heapBytes() {
+            long bytes = arrayBytes(dictionary.length, 4)
+                    + (narrowCodes != null ? arrayBytes(narrowCodes.length, 1) : arrayBytes(wideCodes.length, 2));
+            for (String value : dictionary) {
+                // String header and field, plus its Latin-1 or UTF-16 byte array.
+                bytes += 24 + arrayBytes(value.length(), isLatin1(value) ? 1 : 2);
+            }
+            return bytes;
+        }
+
+        private static boolean isLatin1(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                if (value.charAt(i) > 0xFF) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /** UTF-8 bytes of row {@code r} are {@code [offsets[r], offsets[r + 1])} of the heap or direct buffer. */
+    private static final class BlobColumn extends StoredColumn {
+        private final byte[] heap;
+        private final ByteBuffer direct;
+        private final int[] offsets;
+        private final BitSet nulls;
+
+        BlobColumn(byte[] heap, ByteBuffer direct, int[] offsets, BitSet nulls) {
+            this.heap = heap;
+            this.direct = direct;
+            this.offsets = offsets;
+            this.nulls = nulls;
+        }
+
+        @Override
+        boolean isNull(int row) {
+            return nulls.get(row);
+        }
+
+        @Override
+        String string(int row) {
+            if (nulls.get(row)) {
+                return null;
+            }
+            int from = offsets[row];
+            int length = offsets[row + 1] - from;
+            if (heap != null) {
+                return new String(heap, from, length, StandardCharsets.UTF_8);
+            }
+            byte[] bytes = new byte[length];
+            // Absolute bulk get: leaves the buffer's position alone, so concurrent readers are safe.
+            direct.get(from, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        long heapBytes() {
+            return arrayBytes(offsets.length, Integer.BYTES) + bitmapBytes(nulls)
+                    + (heap != null ? arrayBytes(heap.length, 1) : 64);
+        }
+
+        @Override
+        long offHeapBytes() {
+            return direct != null ? direct.capacity() : 0;
+        }
+    }
+
+    private static long arrayBytes(int length, int elementBytes) {
+        // 16-byte header, padded to 8 bytes.
+        return (16 + (long) length * elementBytes + 7) & ~7L;
+    }
+
+    private static long bitmapBytes(BitSet bits) {
+        return 40 + arrayBytes((bits.length() + 63) / 64, Long.BYTES);
+    }
+
+    /** Accumulates one column's values; arrays grow by half as rows arrive and are trimmed by {@link #build}. */
+    private abstract static class ColumnBuilder {
+        protected final BitSet nulls = new BitSet();
+
+        static ColumnBuilder forType(UserTable.Column column, boolean offHeap, int maxDictionarySize) {
+            switch (column.getSqlType()) {
+                case Types.BIGINT:
+                    return new LongBuilder();
+                case Types.INTEGER:
+                    return new IntBuilder();
+                case Types.DOUBLE:
+                    return new DoubleBuilder();
+                case Types.DATE:
+                    return new DateBuilder();
+                case Types.VARCHAR:
+                    return new VarcharBuilder(offHeap, maxDictionarySize);
+                default:
+                    throw new IllegalArgumentException("Unsupported type " + column.getSqlType() + " for " + column.getName());
+            }
+        }
+
+        abstract void set(int row, Object value);
+
+        abstract StoredColumn build(int size);
+
+        static int capacity(int capacity, int row) {
+            return row < capacity ? capacity : Math.max(row + 1, Math.max(1024, capacity + (capacity >> 1)));
+        }
+
+        static long[] grow(long[] values, int row) {
+            return row < values.length ? values : Arrays.copyOf(values, capacity(values.length, row));
+        }
+
+        static int[] grow(int[] values, int row) {
+            return row < values.length ? values : Arrays.copyOf(values, capacity(values.length, row));
+        }
+
+        static double[] grow(double[] values, int row) {
+            return row < values.length ? values : Arrays.copyOf(values, capacity(values.length, row));
+        }
+
+        static char[] grow(char[] values, int row) {
+            return row < values.length ? values : Arrays.copyOf(values, capacity(values.length, row));
+        }
+    }
+
+    private static final class LongBuilder extends ColumnBuilder {
+        private long[] values = new long[0];
+
+        @Override
+        void set(int row, Object value) {
+            values = grow(values, row);
+            if (value == null) {
+                nulls.set(row);
+            } else {
+                values[row] = ((Number) value).longValue();
+            }
+        }
+
+        @Override
+        StoredColumn build(int size) {
+            return new LongColumn(Arrays.copyOf(values, size), nulls);
+        }
+    }
+
+    private static final class IntBuilder extends ColumnBuilder {
+        private int[] values = new int[0];
+
+        @Override
+        void set(int row, Object value) {
+            values = grow(values, row);
+            if (value == null) {
+                nulls.set(row);
+            } else {
+                values[row] = ((Number) value).intValue();
+            }
+        }
+
+        @Override
+        StoredColumn build(int size) {
+            return new IntColumn(Arrays.copyOf(values, size), nulls);
+        }
+    }
+
+    private static final class DateBuilder extends ColumnBuilder {
+        private int[] values = new int[0];
+
+        @Override
+        void set(int row, Object value) {
+            values = grow(values, row);
+            if (value == null) {
+                values[row] = Integer.MIN_VALUE;
+            } else {
+                long epochDay = ((LocalDate) value).toEpochDay();
+                if (epochDay <= Integer.MIN_VALUE || epochDay > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Date out of range: " + value);
+                }
+                values[row] = (int) epochDay;
+            }
+        }
+
+        @Override
+        StoredColumn build(int size) {
+            return new IntColumn(Arrays.copyOf(values, size), null);
+        }
+    }
+
+    private static final class DoubleBuilder extends ColumnBuilder {
+        private double[] values = new double[0];
+
+        @Override
+        void set(int row, Object value) {
+            values = grow(values, row);
+            if (value == null) {
+                nulls.set(row);
+            } else {
+                values[row] = ((Number) value).doubleValue();
+            }
+        }
+
+        @Override
+        StoredColumn build(int size) {
+            return new DoubleColumn(Arrays.copyOf(values, size), nulls);
+        }
+    }
+
+    /**
+     * Starts out dictionary-encoding and switches the column to a UTF-8 buffer, re-encoding the rows
+     * seen so far, once it meets more distinct values than the dictionary may hold.
+     */
+    private static final class VarcharBuilder extends ColumnBuilder {
+        private final boolean offHeap;
+        private final int maxDictionarySize;
+        private Map<String, Character> codes = new HashMap<>();
+        private List<String> dictionary = new ArrayList<>();
+        private char[] rowCodes = new char[0];
+        private byte[] bytes;
+        private int length;
+        private int[] offsets;
+
+        VarcharBuilder(boolean offHeap, int maxDictionarySize) {
+            this.offHeap = offHeap;
+            this.maxDictionarySize = maxDictionarySize;
+        }
+
+        @Override
+        void set(int row, Object value) {
+            String text = (String) value;
+            if (dictionary != null) {
+                rowCodes = grow(rowCodes, row);
+                if (text == null) {
+                    return;
+                }
+                Character code = codes.get(text);
+                if (code == null && dictionary.size() < maxDictionarySize) {
+                    dictionary.add(text);
+                    code = (char) dictionary.size();
+                    codes.put(text, code);
+                }
+                if (code != null) {
+                    rowCodes[row] = code;
+                    return;
+                }
+                switchToBuffer(row);
+            }
+            append(row, text);
+        }
+
+        private void switchToBuffer(int rows) {
+            bytes = new byte[Math.max(1024, rows * 16)];
+            offsets = new int[rowCodes.length + 1];
+            for (int row = 0; row < rows; row++) {
+                int code = rowCodes[row];
+                append(row, code == 0 ? null : dictionary.get(code - 1));
+            }
+            codes = null;
+            dictionary = null;
+            rowCodes = null;
+        }
+
+        private void append(int row, String text) {
+            offsets = grow(offsets, row + 1);
+            if (text == null) {
+                nulls.set(row);
+            } else {
+                byte[] encoded = text.getBytes(StandardCharsets.UTF_8);
+                if (length + encoded.length > bytes.length) {
+                    long grown = Math.max((long) length + encoded.length, (long) bytes.length + (bytes.length >> 1));
+                    if (grown > Integer.MAX_VALUE - 8) {
+                        throw new IllegalStateException("String column exceeds 2 GB");
+                    }
+                    bytes = Arrays.copyOf(bytes, (int) grown);
+                }
+                System.arraycopy(encoded, 0, bytes, length, encoded.length);
+                length += encoded.length;
+            }
+            offsets[row + 1] = length;
+        }
+
+        @Override
+        StoredColumn build(int size) {
+            if (dictionary != null) {
+                String[] values = dictionary.toArray(new String[0]);
+                if (values.length <= 255) {
+                    byte[] narrow = new byte[size];
+                    for (int row = 0; row < size; row++) {
+                        narrow[row] = (byte) rowCodes[row];
+                    }
+                    return new DictionaryColumn(values, narrow, null);
+                }
+                return new DictionaryColumn(values, null, Arrays.copyOf(rowCodes, size));
+            }
+            int[] trimmed = Arrays.copyOf(offsets, size + 1);
+            if (offHeap) {
+                ByteBuffer direct = ByteBuffer.allocateDirect(length);
+                direct.put(bytes, 0, length).flip();
+                return new BlobColumn(null, direct, trimmed, nulls);
+            }
+            return new BlobColumn(Arrays.copyOf(bytes, length), null, trimmed, nulls);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.userapi.service.snapshot;
+
+import java.util.function.IntFunction;
+
+/**
+ * Open-addressing hash index from the values of one string column to the first row holding each.
+ * It keeps row numbers only, not the strings: a probe reads the candidate row's value back from
+ * the column, so the index costs two ints per row whatever the values' length.
+ */
+final class UniqueStringIndex {
+
+    private final IntFunction<String> values;
+    /** Row + 1 per slot; 0 is an empty slot. At most half full, so probes stay short. */
+    private final int[] slots;
+    private final int mask;
+
+    /**
+     * @param values the column's value for a row, may be null
+     */
+    UniqueStringIndex(int size, IntFunction<String> values) {
+        this.values = values;
+        this.slots = new int[Integer.highestOneBit(Math.max(1, size) * 2 + 1) << 1];
+        this.mask = slots.length - 1;
+        for (int row = 0; row < size; row++) {
+            String value = values.apply(row);
+            if (value == null) {
+                continue;
+            }
+            int slot = slot(value);
+            while (slots[slot] != 0 && !value.equals(values.apply(slots[slot] - 1))) {
+                slot = (slot + 1) & mask;
+            }
+            // Like a query that returns the first row, the lowest row wins when a value repeats.
+            if (slots[slot] == 0) {
+                slots[slot] = row + 1;
+            }
+        }
+    }
+
+    /**
+     * The first row holding {@code value}, or -1.
+     */
+    int find(String value) {
+        if (value == null) {
+            return -1;
+        }
+        for (int slot = slot(value); slots[slot] != 0; slot = (slot + 1) & mask) {
+            if (value.equals(values.apply(slots[slot] - 1))) {
+                return slots[slot] - 1;
+            }
+        }
+        return -1;
+    }
+
+    long heapBytes() {
+        return 16 + (long) slots.length * Integer.BYTES;
+    }
+
+    private int slot(String value) {
+        int hash = value.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
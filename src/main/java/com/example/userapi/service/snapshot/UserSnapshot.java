@@ -0,0 +1,271 @@
+package com.example.userapi.service.snapshot;
+
+import com.example.userapi.model.User;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Immutable copy of every user with the indexes the read endpoints need: users by id (a sorted
+ * array), hash lookups by SSN, username and email, each role's users in id order, and users with a
+ * birth date in (birthDate, id) order. Never modified after construction, so any number of threads
+ * may read it without locking.
+ * <p>
+ * Users are kept in a {@link ColumnarUserStore} and every index holds row numbers into it, so the
+ * whole snapshot is a few hundred bytes a user instead of a few kilobytes of objects. Each read
+ * materializes fresh {@code User} objects for just the users it returns.
+ */
+public final class UserSnapshot {
+
+    private final ColumnarUserStore store;
+    private final UniqueStringIndex bySsn;
+    private final UniqueStringIndex byUsername;
+    private final UniqueStringIndex byEmail;
+    /** Rows per role, ascending. */
+    private final Map<String, int[]> byRole;
+    /** Rows of users with a birth date, by (birthDate, id). */
+    private final int[] byBirthDate;
+    /** Epoch day of each entry of {@link #byBirthDate}, so range scans never touch the store. */
+    private final int[] birthDays;
+    private final Instant builtAt;
+
+    /**
+     * @param usersInIdOrder every user, in ascending id order
+     */
+    public UserSnapshot(List<User> usersInIdOrder, Instant builtAt) {
+        this(build(usersInIdOrder), builtAt);
+    }
+
+    /**
+     * @param store every user, in ascending id order
+     */
+    public UserSnapshot(ColumnarUserStore store, Instant builtAt) {
+        int size = store.size();
+        for (int row = 1; row < size; row++) {
+            if (store.id(row) <= store.id(row - 1)) {
+                throw new IllegalArgumentException("Users must be in ascending id order");
+            }
+        }
+        this.store = store;
+        this.bySsn = new UniqueStringIndex(size, row -> store.getString(row, "ssn"));
+        this.byUsername = new UniqueStringIndex(size, row -> store.getString(row, "username"));
+        this.byEmail = new UniqueStringIndex(size, row -> store.getString(row, "email"));
+
+        Map<String, int[]> counts = new HashMap<>();
+        for (int row = 0; row < size; row++) {
+            String role = store.getString(row, "role");
+            if (role != null) {
+                counts.computeIfAbsent(role, key -> new int[1])[0]++;
+            }
+        }
+        Map<String, int[]> byRole = new HashMap<>(counts.size() * 2);
+        counts.forEach((role, count) -> {
+            byRole.put(role, new int[count[0]]);
+            count[0] = 0;
+        });
+        for (int row = 0; row < size; row++) {
+            String role = store.getString(row, "role");
+            if (role != null) {
+                byRole.get(role)[counts.get(role)[0]++] = row;
+            }
+        }
+        this.byRole = Collections.unmodifiableMap(byRole);
+
+        // Rows ascend with ids, so sorting (epochDay, row) pairs packed into longs gives (birthDate, id) order.
+        long[] keys = new long[size];
+        int dated = 0;
+        for (int row = 0; row < size; row++) {
+            int day = store.getEpochDay(row, "birth_date");
+            if (day != Integer.MIN_VALUE) {
+                keys[dated++] = ((long) day << 32) | row;
+            }
+        }
+        Arrays.sort(keys, 0, dated);
+        this.byBirthDate = new int[dated];
+        this.birthDays = new int[dated];
+        for (int i = 0; i < dated; i++) {
+            byBirthDate[i] = (int) keys[i];
+            birthDays[i] = (int) (keys[i] >> 32);
+        }
+        this.builtAt = builtAt;
+    }
+
+    private static ColumnarUserStore build(List<User> users) {
+        ColumnarUserStore.Builder builder = ColumnarUserStore.builder(false);
+        users.forEach(builder::add);
+        return builder.build();
+    }
+
+    public int size() {
+        return store.size();
+    }
+
+    public Instant getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * Estimated heap retained: the store plus the indexes.
+     */
+    public long heapBytes() {
+        long roles = byRole.values().stream().mapToLong(rows -> 16 + 4L * rows.length).sum();
+        return store.heapBytes() + bySsn.heapBytes() + byUsername.heapBytes() + byEmail.heapBytes()
+                + roles + 32 + 8L * byBirthDate.length;
+    }
+
+    /**
+     * Direct memory held outside the heap by the store.
+     */
+    public long offHeapBytes() {
+        return store.offHeapBytes();
+    }
+
+    public User byId(long id) {
+        int row = binarySearch(id);
+        return row >= 0 ? store.materialize(row) : null;
+    }
+
+    public User bySsn(String ssn) {
+        return materialize(bySsn.find(ssn));
+    }
+
+    public User byUsername(String username) {
+        return materialize(byUsername.find(username));
+    }
+
+    public User byEmail(String email) {
+        return materialize(byEmail.find(email));
+    }
+
+    /**
+     * Up to {@code count} users with an id greater than {@code afterId}, in id order.
+     */
+    public List<User> page(long afterId, int count) {
+        int from = upperBound(afterId);
+        int to = (int) Math.min(store.size(), (long) from + count);
+        List<User> page = new ArrayList<>(Math.max(0, to - from));
+        for (int row = from; row < to; row++) {
+            page.add(store.materialize(row));
+        }
+        return page;
+    }
+
+    /**
+     * Up to {@code count} users with the role and an id greater than {@code afterId}, in id order.
+     */
+    public List<User> pageByRole(String role, long afterId, int count) {
+        int[] rows = byRole.get(role);
+        if (rows == null) {
+            return List.of();
+        }
+        // Rows ascend with ids, so the first row past afterId is found the same way.
+        int low = 0;
+        int high = rows.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (store.id(rows[mid]) <= afterId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        List<User> page = new ArrayList<>(Math.min(count, rows.length - low));
+        for (int i = low; i < rows.length && page.size() < count; i++) {
+            page.add(store.materialize(rows[i]));
+        }
+        return page;
+    }
+
+    /**
+     * Oldest first: up to {@code count} users after ({@code afterDate}, {@code afterId}) in
+     * (birthDate, id) order, born no later than {@code to}.
+     */
+    public List<User> oldestFirst(LocalDate afterDate, long afterId, LocalDate to, int count) {
+        List<User> page = new ArrayList<>(Math.min(count, 1024));
+        long last = to.toEpochDay();
+        for (int i = firstAfter(afterDate, afterId); i < byBirthDate.length && page.size() < count; i++) {
+            if (birthDays[i] > last) {
+                break;
+            }
+            page.add(store.materialize(byBirthDate[i]));
+        }
+        return page;
+    }
+
+    /**
+     * Youngest first: up to {@code count} users before ({@code afterDate}, {@code afterId}) in
+     * (birthDate, id) order, walking backwards, born no earlier than {@code from}.
+     */
+    public List<User> youngestFirst(LocalDate from, LocalDate afterDate, long afterId, int count) {
+        List<User> page = new ArrayList<>(Math.min(count, 1024));
+        long first = from.toEpochDay();
+        // Everything before the first entry at or past (afterDate, afterId).
+        for (int i = firstAfter(afterDate, afterId - 1) - 1; i >= 0 && page.size() < count; i--) {
+            if (birthDays[i] < first) {
+                break;
+            }
+            page.add(store.materialize(byBirthDate[i]));
+        }
+        return page;
+    }
+
+    /**
+     * Hand every user to {@code consumer} in id order, materializing one at a time.
+     */
+    public void forEach(Consumer<User> consumer) {
+        for (int row = 0; row < store.size(); row++) {
+            consumer.accept(store.materialize(row));
+        }
+    }
+
+    private User materialize(int row) {
+        return row >= 0 ? store.materialize(row) : null;
+    }
+
+    /** Row of {@code id}, or {@code -(insertion point) - 1}. */
+    private int binarySearch(long id) {
+        int low = 0;
+        int high = store.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = store.id(mid);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /** First row with an id greater than {@code id}. */
+    private int upperBound(long id) {
+        int row = binarySearch(id);
+        return row >= 0 ? row + 1 : -row - 1;
+    }
+
+    /** Index into {@link #byBirthDate} of the first entry after ({@code date}, {@code id}). */
+    private int firstAfter(LocalDate date, long id) {
+        long day = date.toEpochDay();
+        int low = 0;
+        int high = byBirthDate.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (birthDays[mid] < day || (birthDays[mid] == day && store.id(byBirthDate[mid]) <= id)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.userapi.service.snapshot;
+
+import com.example.userapi.event.UsersLoadedEvent;
+import com.example.userapi.repository.UserCursorRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link UserSnapshot} when {@code users.snapshot.enabled} is set. A snapshot is
+ * built at startup and again after every load, off to the side, and then swapped in with a single
+ * reference write, so readers never wait for a rebuild and always see one complete snapshot.
+ * Until the first one is ready, or when disabled, {@link #current()} is null and reads go to the database.
+ * <p>
+ * Users are streamed from the scan straight into a {@link ColumnarUserStore}; with
+ * {@code users.snapshot.off-heap} its large string columns live in direct memory, which counts
+ * against {@code -XX:MaxDirectMemorySize} rather than the heap. The snapshot's estimated footprint is
+ * published as {@code users.snapshot.heap} and {@code users.snapshot.off-heap}, and the bytes
+ * allocated while building it as {@code users.snapshot.build.allocated}, which also counts the JDBC
+ * garbage left by the scan.
+ */
+@Slf4j
+@Service
+public class UserSnapshotService {
+
+    private final UserCursorRepository userCursorRepository;
+    private final boolean enabled;
+    private final boolean offHeap;
+    private final AtomicReference<UserSnapshot> snapshot = new AtomicReference<>();
+    private volatile long buildAllocatedBytes = -1;
+    private volatile long buildMillis = -1;
+
+    public UserSnapshotService(UserCursorRepository userCursorRepository, MeterRegistry meterRegistry,
+                               @Value("${users.snapshot.enabled:false}") boolean enabled,
+                               @Value("${users.snapshot.off-heap:false}") boolean offHeap) {
+        this.userCursorRepository = userCursorRepository;
+        this.enabled = enabled;
+        this.offHeap = offHeap;
+        Gauge.builder("users.snapshot.users", snapshot, current -> current.get() == null ? 0 : current.get().size())
+                .description("Users in the in-memory snapshot serving reads; 0 while reads go to the database")
+                .register(meterRegistry);
+        Gauge.builder("users.snapshot.heap", snapshot, current -> current.get() == null ? 0 : current.get().heapBytes())
+                .description("Estimated heap retained by the snapshot's columns and indexes")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("users.snapshot.off-heap", snapshot, current -> current.get() == null ? 0 : current.get().offHeapBytes())
+                .description("Direct memory held by the snapshot's off-heap string columns")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("users.snapshot.build.allocated", this, service -> service.buildAllocatedBytes)
+                .description("Bytes allocated building the current snapshot")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("users.snapshot.build.duration", this, service -> service.buildMillis)
+                .description("Time taken to build the current snapshot")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The snapshot to serve reads from, or null to read from the database.
+     */
+    public UserSnapshot current() {
+        return snapshot.get();
+    }
+
+    /**
+     * True while reads are served from a snapshot.
+     */
+    public boolean isActive() {
+        return snapshot.get() != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    @EventListener
+    public void onUsersLoaded(UsersLoadedEvent event) {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    private synchronized void rebuild() {
+        try {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            long allocatedBefore = allocatedBytes(threads);
+            long start = System.nanoTime();
+
+            ColumnarUserStore.Builder users = ColumnarUserStore.builder(offHeap);
+            userCursorRepository.forEach(users::add);
+            UserSnapshot built = new UserSnapshot(users.build(), Instant.now());
+
+            buildMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            long allocatedAfter = allocatedBytes(threads);
+            buildAllocatedBytes = allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore;
+            snapshot.set(built);
+            log.info("Swapped in a snapshot of {} users holding {} MB of heap and {} MB off-heap, built in {} ms allocating {} MB",
+                    built.size(), built.heapBytes() >> 20, built.offHeapBytes() >> 20, buildMillis,
+                    buildAllocatedBytes < 0 ? "?" : buildAllocatedBytes >> 20);
+        } catch (RuntimeException e) {
+            // A stale snapshot would hide the load's writes; read from the database until the next load.
+            snapshot.set(null);
+            log.warn("Could not build the user snapshot; reads go to the database until the next load: {}",
+                    e.getMessage());
+        }
+    }
+
+    private static long allocatedBytes(ThreadMXBean threads) {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+            if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+                return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.userapi.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(1, Duration.ofMillis(50), meterRegistry);
+
+    @Test
+    void rejectsRequestsBeyondTheLimitWithRetryAfter() throws Exception {
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<MockHttpServletResponse> first = CompletableFuture.supplyAsync(() -> {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            try {
+                filter.doFilter(new MockHttpServletRequest("GET", "/api/users"), response, (req, res) -> {
+                    inside.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return response;
+        });
+        assertThat(inside.await(5, TimeUnit.SECONDS)).isTrue();
+
+        MockHttpServletResponse second = filter(new MockHttpServletRequest("GET", "/api/users"));
+        assertThat(second.getStatus()).isEqualTo(503);
+        assertThat(second.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(meterRegistry.get("users.requests.active").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("users.requests.rejected").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS).getStatus()).isEqualTo(200);
+        assertThat(filter(new MockHttpServletRequest("GET", "/api/users")).getStatus()).isEqualTo(200);
+        assertThat(meterRegistry.get("users.requests.active").gauge().value()).isZero();
+    }
+
+    @Test
+    void keepsThePermitUntilAStreamingResponseCompletes() throws Exception {
+        MockHttpServletRequest streaming = new MockHttpServletRequest("GET", "/api/users/export");
+        streaming.setAsyncSupported(true);
+        filter.doFilter(streaming, new MockHttpServletResponse(), (req, res) -> req.startAsync());
+
+        assertThat(filter(new MockHttpServletRequest("GET", "/api/users")).getStatus()).isEqualTo(503);
+
+        streaming.getAsyncContext().complete();
+        assertThat(filter(new MockHttpServletRequest("GET", "/api/users")).getStatus()).isEqualTo(200);
+    }
+
+    private MockHttpServletResponse filter(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, (req, res) -> {
+        });
+        return response;
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.userapi.config;
+
+import com.example.userapi.model.User;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalDateDeserializerTest {
+
+    private final ObjectReader reader = Jackson2ObjectMapperBuilder.json().build().readerFor(User.class);
+
+    private LocalDate birthDate(String value) throws IOException {
+        User user = reader.readValue("{\"birthDate\": \"" + value + "\"}");
+        return user.getBirthDate();
+    }
+
+    @Test
+    void parsesPaddedAndUnpaddedDates() throws IOException {
+        assertThat(birthDate("1996-05-30")).isEqualTo(LocalDate.of(1996, 5, 30));
+        assertThat(birthDate("1996-5-30")).isEqualTo(LocalDate.of(1996, 5, 30));
+        assertThat(birthDate("1952-3-3")).isEqualTo(LocalDate.of(1952, 3, 3));
+        assertThat(birthDate("2000-12-1")).isEqualTo(LocalDate.of(2000, 12, 1));
+        assertThat(birthDate("  2000-2-29 ")).isEqualTo(LocalDate.of(2000, 2, 29));
+    }
+
+    @Test
+    void fastPathDefersUnusualInputToFormatters() {
+        assertThat(parse("1996-5-30")).isEqualTo(LocalDate.of(1996, 5, 30));
+        assertThat(parse("2001-2-29")).isNull();
+        assertThat(parse("1996-13-1")).isNull();
+        assertThat(parse("1996/5/30")).isNull();
+        assertThat(parse("1996-5-")).isNull();
+        assertThat(parse("+1996-5-30")).isNull();
+    }
+
+    @Test
+    void fallsBackToFormattersLikeBefore() throws IOException {
+        // The formatters resolve smartly, clamping an out-of-range day to the end of the month.
+        assertThat(birthDate("2001-02-29")).isEqualTo(LocalDate.of(2001, 2, 28));
+        assertThatThrownBy(() -> birthDate("1996/5/30")).isInstanceOf(IOException.class)
+                .hasMessageContaining("Invalid date format");
+    }
+
+    private static LocalDate parse(String value) {
+        char[] buffer = ("[\"" + value + "\"]").toCharArray();
+        return LocalDateDeserializer.parse(buffer, 2, value.length());
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.userapi.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+
+import javax.servlet.Filter;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs only on a JVM with virtual threads: {@code ./mvnw -Pjava21 -Djava21.home=... test}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "users.threads.virtual=true")
+@EnabledIf("com.example.userapi.service.WorkerThreads#virtualThreadsSupported")
+@Import(VirtualThreadConfigTest.RecordRequestThreads.class)
+class VirtualThreadConfigTest {
+
+    private static final List<Thread> REQUEST_THREADS = new CopyOnWriteArrayList<>();
+
+    // Imported rather than annotated, so that component scans outside this test, as in the benchmarks, skip it.
+    static class RecordRequestThreads {
+        @Bean
+        FilterRegistrationBean<Filter> requestThreadRecorder() {
+            FilterRegistrationBean<Filter> registration = new FilterRegistrationBean<>((request, response, chain) -> {
+                REQUEST_THREADS.add(Thread.currentThread());
+                chain.doFilter(request, response);
+            });
+            registration.addUrlPatterns("/api/users/*");
+            return registration;
+        }
+    }
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void servesRequestsOnVirtualThreads() throws Exception {
+        REQUEST_THREADS.clear();
+
+        assertThat(restTemplate.getForEntity("/api/users/id/1", String.class).getStatusCode())
+                .isEqualTo(HttpStatus.NOT_FOUND);
+
+        assertThat(REQUEST_THREADS).hasSize(1);
+        assertThat((boolean) Thread.class.getMethod("isVirtual").invoke(REQUEST_THREADS.get(0))).isTrue();
+        assertThat(REQUEST_THREADS.get(0).getName()).startsWith("http-virtual-");
+    }
+}
@@ -0,0 +1,545 @@
+package com.example.userapi.controller;
+
+import com.example.userapi.config.CacheConfig;
+import com.example.userapi.event.UsersLoadedEvent;
+import com.example.userapi.model.User;
+import com.example.userapi.repository.DatasetVersionRepository;
+import com.example.userapi.repository.UserBulkRepository;
+import com.example.userapi.repository.UserRepository;
+import com.example.userapi.service.DatasetVersion;
+import com.example.userapi.support.UserFixtures;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "users.key-filter.enabled=true")
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+class UserControllerTest {
+
+    private static final int USERS = 250;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserBulkRepository userBulkRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void seed() throws Exception {
+        List<User> users = objectMapper.convertValue(
+                objectMapper.readTree(UserFixtures.payload(USERS)).get("users"),
+                objectMapper.getTypeFactory().constructCollectionType(List.class, User.class));
+        userBulkRepository.upsert(users);
+    }
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private DatasetVersion datasetVersion;
+
+    @Autowired
+    private DatasetVersionRepository datasetVersionRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAllInBatch();
+        eventPublisher.publishEvent(new UsersLoadedEvent(true, null));
+    }
+
+    @Test
+    void pagesThroughUsersByCursor() throws Exception {
+        mockMvc.perform(get("/api/users").param("limit", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(100))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(header().string(UserController.NEXT_CURSOR_HEADER, "100"));
+
+        mockMvc.perform(get("/api/users").param("limit", "100").param("after", "200"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(50))
+                .andExpect(jsonPath("$[0].id").value(201))
+                .andExpect(header().doesNotExist(UserController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void rejectsOutOfRangeLimit() throws Exception {
+        mockMvc.perform(get("/api/users").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamsEveryUserAsNdjson() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/users/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(USERS);
+        assertThat(objectMapper.readTree(lines[USERS - 1]).get("id").asLong()).isEqualTo(USERS);
+        assertThat(objectMapper.readTree(lines[0]).at("/company/address/city").asText()).isEqualTo("Phoenix");
+    }
+
+    @Test
+    void exportsFlatCsvAndNdjsonOptionallyGzipped() throws Exception {
+        String csv = new String(export("csv", false), StandardCharsets.UTF_8);
+        String[] lines = csv.split("\r\n");
+        assertThat(lines).hasSize(USERS + 1);
+        assertThat(lines[0]).startsWith("id,first_name,").contains(",user_city,").doesNotContain("content_hash");
+        assertThat(lines[7]).startsWith("7,").contains(",Phoenix,").contains(UserFixtures.ssn(7));
+
+        byte[] gzipped = export("ndjson", true);
+        String ndjson = new String(new GZIPInputStream(new ByteArrayInputStream(gzipped)).readAllBytes(), StandardCharsets.UTF_8);
+        String[] rows = ndjson.split("\n");
+        assertThat(rows).hasSize(USERS);
+        assertThat(objectMapper.readTree(rows[USERS - 1]).get("id").asLong()).isEqualTo(USERS);
+        assertThat(objectMapper.readTree(rows[0]).get("company_city").asText()).isEqualTo("Phoenix");
+
+        mockMvc.perform(get("/api/users/export").param("format", "xml")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportsColumnarRowGroups() throws Exception {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(export("columnar", false)));
+        assertThat(new String(in.readNBytes(4), StandardCharsets.US_ASCII)).isEqualTo("UCOL");
+        assertThat(in.readUnsignedByte()).isEqualTo(1);
+        int columns = in.readInt();
+        List<String> names = new ArrayList<>();
+        int[] types = new int[columns];
+        for (int i = 0; i < columns; i++) {
+            names.add(in.readUTF());
+            types[i] = in.readUnsignedByte();
+        }
+        assertThat(names).startsWith("id", "first_name").doesNotContain("content_hash");
+
+        // Fewer rows than a group holds: one group, then the end marker.
+        assertThat(in.readInt()).isEqualTo(USERS);
+        long[] ids = new long[USERS];
+        List<String> ssns = new ArrayList<>();
+        for (int i = 0; i < columns; i++) {
+            byte[] nulls = in.readNBytes((USERS + 7) / 8);
+            int present = USERS;
+            for (byte bits : nulls) {
+                present -= Integer.bitCount(bits & 0xFF);
+            }
+            switch (types[i]) {
+                case 1:
+                    for (int row = 0; row < present; row++) {
+                        long value = in.readLong();
+                        if (i == 0) {
+                            ids[row] = value;
+                        }
+                    }
+                    break;
+                case 3:
+                    in.skipNBytes(8L * present);
+                    break;
+                case 2:
+                case 4:
+                    in.skipNBytes(4L * present);
+                    break;
+                default:
+                    List<String> values = readStrings(in, present);
+                    if (names.get(i).equals("ssn")) {
+                        ssns = values;
+                    }
+            }
+        }
+        assertThat(in.readInt()).isZero();
+        assertThat(in.read()).isEqualTo(-1);
+        assertThat(ids[0]).isEqualTo(1);
+        assertThat(ids[USERS - 1]).isEqualTo(USERS);
+        assertThat(ssns).hasSize(USERS).element(6).isEqualTo(UserFixtures.ssn(7));
+    }
+
+    private byte[] export(String format, boolean gzip) throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/users/export").param("format", format).param("gzip", String.valueOf(gzip)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, containsString(gzip ? ".gz" : "users.")))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    private static List<String> readStrings(DataInputStream in, int count) throws IOException {
+        int encoding = in.readUnsignedByte();
+        List<String> entries = new ArrayList<>();
+        int size = encoding == 1 ? readVarint(in) : count;
+        for (int i = 0; i < size; i++) {
+            entries.add(new String(in.readNBytes(readVarint(in)), StandardCharsets.UTF_8));
+        }
+        if (encoding == 0) {
+            return entries;
+        }
+        List<String> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(entries.get(in.readUnsignedByte()));
+        }
+        return values;
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+
+    @Test
+    void sortsByAgeWithKeysetContinuation() throws Exception {
+        MvcResult first = mockMvc.perform(get("/api/users/sorted").param("limit", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(20))
+                .andReturn();
+        List<User> youngest = readUsers(first);
+        assertThat(youngest).isSortedAccordingTo(
+                Comparator.comparing(User::getBirthDate).reversed().thenComparing(User::getId, Comparator.reverseOrder()));
+
+        String cursor = first.getResponse().getHeader(UserController.NEXT_CURSOR_HEADER);
+        List<User> next = readUsers(mockMvc.perform(get("/api/users/sorted").param("limit", "20").param("after", cursor))
+                .andExpect(status().isOk())
+                .andReturn());
+        User lastOfFirst = youngest.get(youngest.size() - 1);
+        assertThat(next.get(0).getBirthDate()).isBeforeOrEqualTo(lastOfFirst.getBirthDate());
+        assertThat(next).extracting(User::getId).doesNotContainAnyElementsOf(
+                youngest.stream().map(User::getId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void filtersByAgeRangeOldestFirst() throws Exception {
+        List<User> users = readUsers(mockMvc.perform(get("/api/users/sorted")
+                        .param("order", "desc").param("minAge", "30").param("maxAge", "40").param("limit", "1000"))
+                .andExpect(status().isOk())
+                .andReturn());
+
+        LocalDate today = LocalDate.now();
+        assertThat(users).isNotEmpty().allSatisfy(user ->
+                assertThat(Period.between(user.getBirthDate(), today).getYears()).isBetween(30, 40));
+        assertThat(users).isSortedAccordingTo(Comparator.comparing(User::getBirthDate));
+    }
+
+    @Test
+    void cachesPointLookupsUntilTheNextLoad() throws Exception {
+        mockMvc.perform(get("/api/users/id/7")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/users/ssn/" + UserFixtures.ssn(8))).andExpect(status().isOk());
+        mockMvc.perform(get("/api/users/id/9").param("cache", "false")).andExpect(status().isOk());
+
+        assertThat(cacheManager.getCache(CacheConfig.USERS_BY_ID).get(7L)).isNotNull();
+        assertThat(cacheManager.getCache(CacheConfig.USERS_BY_SSN).get(UserFixtures.ssn(8))).isNotNull();
+        assertThat(cacheManager.getCache(CacheConfig.USERS_BY_ID).get(9L)).isNull();
+
+        eventPublisher.publishEvent(new UsersLoadedEvent(true, null));
+
+        assertThat(cacheManager.getCache(CacheConfig.USERS_BY_ID).get(7L)).isNull();
+        assertThat(cacheManager.getCache(CacheConfig.USERS_BY_SSN).get(UserFixtures.ssn(8))).isNull();
+    }
+
+    @Test
+    void answersLookupsOfUnknownKeysFromTheKeyFilter() throws Exception {
+        double ruledOut = keyFilterChecks("id", "absent") + keyFilterChecks("ssn", "absent");
+        for (long id = USERS + 1; id <= USERS + 50; id++) {
+            mockMvc.perform(get("/api/users/id/" + id))
+                    .andExpect(status().isNotFound())
+                    .andExpect(jsonPath("$.message").value("User not found with ID: " + id));
+            mockMvc.perform(get("/api/users/ssn/" + UserFixtures.ssn(id))).andExpect(status().isNotFound());
+        }
+        // At most a few false positives reach the database.
+        assertThat(keyFilterChecks("id", "absent") + keyFilterChecks("ssn", "absent")).isGreaterThan(ruledOut + 90);
+
+        // Users written after the filter was built are added to it.
+        userBulkRepository.upsert(UserFixtures.users(objectMapper, USERS + 1).subList(USERS, USERS + 1));
+        mockMvc.perform(get("/api/users/id/" + (USERS + 1))).andExpect(status().isOk());
+        mockMvc.perform(get("/api/users/ssn/" + UserFixtures.ssn(USERS + 1))).andExpect(status().isOk());
+    }
+
+    @Test
+    void findsUsersOtherInstancesWroteOnceTheirLoadIsRecorded() throws Exception {
+        datasetVersion.refresh();
+        // Written around the bulk repository, as another instance's load would be: no write events here.
+        User written = UserFixtures.users(objectMapper, USERS + 2).get(USERS + 1);
+        userRepository.save(written);
+        datasetVersionRepository.advance(System.currentTimeMillis());
+
+        datasetVersion.refresh();
+
+        mockMvc.perform(get("/api/users/id/" + written.getId())).andExpect(status().isOk());
+        mockMvc.perform(get("/api/users/ssn/" + written.getSsn())).andExpect(status().isOk());
+    }
+
+    private double keyFilterChecks(String key, String result) {
+        return meterRegistry.get("users.key.filter.checks").tag("key", key).tag("result", result).counter().count();
+    }
+
+    @Test
+    void answersUnchangedPollsWithNotModifiedUntilTheNextLoad() throws Exception {
+        String etag = mockMvc.perform(get("/api/users/role/admin"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).startsWith("W/\"");
+
+        mockMvc.perform(get("/api/users/role/admin").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        datasetVersion.advance();
+
+        mockMvc.perform(get("/api/users/role/admin").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(etag)));
+        mockMvc.perform(get("/api/users/load/unknown"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void catchesUpWithLoadsByOtherInstances() throws Exception {
+        datasetVersion.refresh();
+        mockMvc.perform(get("/api/users/id/7")).andExpect(status().isOk());
+        String etag = mockMvc.perform(get("/api/users/role/admin"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // Another instance on the same database finishes a load.
+        datasetVersionRepository.advance(System.currentTimeMillis());
+        mockMvc.perform(get("/api/users/role/admin").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        datasetVersion.refresh();
+
+        assertThat(cacheManager.getCache(CacheConfig.USERS_BY_ID).get(7L)).isNull();
+        String refreshed = mockMvc.perform(get("/api/users/role/admin").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(refreshed).isNotEqualTo(etag).isEqualTo("W/\"" + datasetVersion.current() + "\"");
+    }
+
+    @Test
+    void datesTheTagsOfAgeRanges() throws Exception {
+        mockMvc.perform(get("/api/users/sorted").param("minAge", "30"))
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"" + datasetVersion.current() + "-" + LocalDate.now() + "\""));
+        mockMvc.perform(get("/api/users/sorted"))
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"" + datasetVersion.current() + "\""));
+    }
+
+    @Test
+    void looksUpManyUsersInRequestOrder() throws Exception {
+        mockMvc.perform(post("/api/users/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[5,999,3,5]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[*].id").value(contains(5, 3)))
+                .andExpect(jsonPath("$.notFound").value(contains(999)));
+
+        mockMvc.perform(post("/api/users/batch").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ssns\":[\"" + UserFixtures.ssn(42) + "\",\"000-000-000\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].id").value(42))
+                .andExpect(jsonPath("$.notFound").value(contains("000-000-000")));
+
+        mockMvc.perform(post("/api/users/batch").contentType(MediaType.APPLICATION_JSON).content("{}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void projectsOnlyRequestedFields() throws Exception {
+        mockMvc.perform(get("/api/users").param("profile", "summary").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[0].email").value("user1@x.dummyjson.com"))
+                .andExpect(jsonPath("$[0].password").doesNotExist())
+                .andExpect(jsonPath("$[0].bank").doesNotExist())
+                .andExpect(header().string(UserController.NEXT_CURSOR_HEADER, "2"));
+
+        mockMvc.perform(get("/api/users/id/3").param("fields", "company.address.city,bank,birthDate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(3))
+                .andExpect(jsonPath("$.company.address.city").value("Phoenix"))
+                .andExpect(jsonPath("$.company.name").doesNotExist())
+                .andExpect(jsonPath("$.bank.cardType").value("Elo"))
+                .andExpect(jsonPath("$.firstName").doesNotExist());
+
+        mockMvc.perform(get("/api/users").param("fields", "nope"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void pagesThroughUsersByRole() throws Exception {
+        mockMvc.perform(get("/api/users/role/moderator").param("limit", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(50))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(jsonPath("$[*].role").value(everyItem(equalTo("moderator"))))
+                .andExpect(header().string(UserController.NEXT_CURSOR_HEADER, "148"));
+
+        mockMvc.perform(get("/api/users/role/moderator").param("limit", "50").param("after", "148")
+                        .param("profile", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(34))
+                .andExpect(jsonPath("$[0].id").value(151))
+                .andExpect(jsonPath("$[0].password").doesNotExist())
+                .andExpect(header().doesNotExist(UserController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void countsUsersPerGroupAfterEachLoad() throws Exception {
+        eventPublisher.publishEvent(new UsersLoadedEvent(true, null));
+
+        mockMvc.perform(get("/api/users/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalUsers").value(USERS))
+                .andExpect(jsonPath("$.byRole.moderator").value(84))
+                .andExpect(jsonPath("$.byRole.admin").value(83))
+                .andExpect(jsonPath("$.byRole.user").value(83))
+                .andExpect(jsonPath("$.byDepartment.length()").value(5))
+                .andExpect(jsonPath("$.byDepartment.Engineering").value(50))
+                .andExpect(jsonPath("$.byState.length()").value(6));
+
+        userRepository.deleteAllInBatch();
+        mockMvc.perform(get("/api/users/stats")).andExpect(jsonPath("$.totalUsers").value(USERS));
+        eventPublisher.publishEvent(new UsersLoadedEvent(true, null));
+        mockMvc.perform(get("/api/users/stats")).andExpect(jsonPath("$.totalUsers").value(0));
+    }
+
+    @Test
+    void searchesByPrefixAndToleratesTypos() throws Exception {
+        eventPublisher.publishEvent(new UsersLoadedEvent(true, null));
+
+        mockMvc.perform(get("/api/users/search").param("q", "Emi"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(35))
+                .andExpect(jsonPath("$[0].id").value(7))
+                .andExpect(jsonPath("$[*].firstName").value(everyItem(equalTo("Emily"))));
+
+        mockMvc.perform(get("/api/users/search").param("q", "emily jonhson"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains(42, 84, 126, 168, 210)));
+
+        mockMvc.perform(get("/api/users/search").param("q", " -- "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void pagesThroughSearchResultsBestMatchFirst() throws Exception {
+        eventPublisher.publishEvent(new UsersLoadedEvent(true, null));
+
+        // user1 matches exactly; user10.. only by prefix.
+        mockMvc.perform(get("/api/users/search").param("q", "user1").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains(1, 10, 11, 12, 13, 14, 15, 16, 17, 18)))
+                .andExpect(header().string(UserController.NEXT_CURSOR_HEADER, "4_18"));
+
+        mockMvc.perform(get("/api/users/search").param("q", "user1").param("limit", "5").param("after", "4_18"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains(19, 100, 101, 102, 103)));
+    }
+
+    @Test
+    void findsUsersByLocation() throws Exception {
+        eventPublisher.publishEvent(new UsersLoadedEvent(true, null));
+
+        // User 7 lives at (-24.567, -116.897) and works at (24.567, 116.897).
+        mockMvc.perform(get("/api/users/nearest").param("lat", "-24.567").param("lng", "-116.897").param("k", "3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].user.id").value(7))
+                .andExpect(jsonPath("$[0].distanceKm", closeTo(0.0, 1e-6), Double.class));
+
+        mockMvc.perform(get("/api/users/near").param("lat", "-24.56").param("lng", "-116.89").param("radiusKm", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].user.id").value(contains(7)));
+
+        mockMvc.perform(get("/api/users/within").param("minLat", "-24.6").param("minLng", "-117")
+                        .param("maxLat", "-24.5").param("maxLng", "-116.8"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains(7)));
+
+        mockMvc.perform(get("/api/users/nearest").param("lat", "24.567").param("lng", "116.897").param("k", "1")
+                        .param("address", "company"))
+                .andExpect(jsonPath("$[0].user.id").value(7));
+
+        mockMvc.perform(get("/api/users/near").param("lat", "91").param("lng", "0").param("radiusKm", "5"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void publishesTimingsAndPoolMetricsForPrometheus() throws Exception {
+        mockMvc.perform(get("/api/users/id/7").param("cache", "false")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket{")))
+                .andExpect(content().string(containsString("uri=\"/api/users/id/{id}\"")))
+                .andExpect(content().string(containsString("users_service_seconds_bucket{")))
+                .andExpect(content().string(containsString("method=\"getUserById\"")))
+                .andExpect(content().string(containsString("users_load_saved_total")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")))
+                .andExpect(content().string(containsString("hibernate_statements_total")));
+    }
+
+    private List<User> readUsers(MvcResult result) throws Exception {
+        return objectMapper.readValue(result.getResponse().getContentAsString(),
+                objectMapper.getTypeFactory().constructCollectionType(List.class, User.class));
+    }
+}
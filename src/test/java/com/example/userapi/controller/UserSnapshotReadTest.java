@@ -0,0 +1,130 @@
+package com.example.userapi.controller;
+
+import com.example.userapi.event.UsersLoadedEvent;
+import com.example.userapi.model.User;
+import com.example.userapi.repository.UserBulkRepository;
+import com.example.userapi.repository.UserRepository;
+import com.example.userapi.service.snapshot.UserSnapshotService;
+import com.example.userapi.support.UserFixtures;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The read endpoints with {@code users.snapshot.enabled}: each answer must match what the database
+ * path returns, and come from memory until the next load.
+ */
+@SpringBootTest(properties = "users.snapshot.enabled=true")
+@AutoConfigureMockMvc
+class UserSnapshotReadTest {
+
+    private static final int USERS = 250;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserBulkRepository userBulkRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserSnapshotService userSnapshotService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    void seed() throws Exception {
+        List<User> users = objectMapper.convertValue(
+                objectMapper.readTree(UserFixtures.payload(USERS)).get("users"),
+                objectMapper.getTypeFactory().constructCollectionType(List.class, User.class));
+        userBulkRepository.upsert(users);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAllInBatch();
+        eventPublisher.publishEvent(new UsersLoadedEvent(true, null));
+    }
+
+    @Test
+    void servesTheSameAnswersAsTheDatabase() throws Exception {
+        List<String> reads = List.of(
+                "/api/users?limit=20&after=100",
+                "/api/users/role/admin?limit=7&after=30",
+                "/api/users/sorted?order=asc&limit=15",
+                "/api/users/sorted?order=desc&limit=15&minAge=30&maxAge=50",
+                "/api/users/id/7",
+                "/api/users/ssn/" + UserFixtures.ssn(9),
+                "/api/users/username/user11",
+                "/api/users/email/user12@x.dummyjson.com",
+                "/api/users?profile=summary&fields=company.address.city&limit=5",
+                "/api/users/id/8?fields=company");
+        userSnapshotService.onUsersLoaded(new UsersLoadedEvent(false, null));
+        assertThat(userSnapshotService.isActive()).isTrue();
+        List<String> fromSnapshot = readAll(reads);
+
+        // Drop the snapshot so the same requests go to the database.
+        ((AtomicReference<?>) ReflectionTestUtils.getField(userSnapshotService, "snapshot")).set(null);
+        assertThat(readAll(reads)).isEqualTo(fromSnapshot);
+    }
+
+    @Test
+    void keepsServingTheLastLoadUntilTheNextOne() throws Exception {
+        eventPublisher.publishEvent(new UsersLoadedEvent(true, null));
+        userRepository.deleteAllInBatch();
+
+        mockMvc.perform(get("/api/users/id/7")).andExpect(status().isOk());
+        mockMvc.perform(get("/api/users/sorted").param("limit", "3"))
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(header().exists(UserController.NEXT_CURSOR_HEADER));
+
+        eventPublisher.publishEvent(new UsersLoadedEvent(true, null));
+        mockMvc.perform(get("/api/users/id/7")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/users/role/admin")).andExpect(status().isNoContent());
+        mockMvc.perform(get("/api/users/username/user11")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void pagesByRoleFromTheSnapshot() throws Exception {
+        eventPublisher.publishEvent(new UsersLoadedEvent(true, null));
+        mockMvc.perform(get("/api/users/role/moderator").param("limit", "3").param("after", "148"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id").value(contains(151, 154, 157)))
+                .andExpect(header().string(UserController.NEXT_CURSOR_HEADER, "157"));
+    }
+
+    private List<String> readAll(List<String> urls) throws Exception {
+        List<String> bodies = new ArrayList<>();
+        for (String url : urls) {
+            bodies.add(url + " -> " + mockMvc.perform(get(url))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+        }
+        return bodies;
+    }
+}
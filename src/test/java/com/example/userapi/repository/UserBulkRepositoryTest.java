@@ -0,0 +1,140 @@
+package com.example.userapi.repository;
+
+import com.example.userapi.model.User;
+import com.example.userapi.support.UserFixtures;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+@SpringBootTest
+class UserBulkRepositoryTest {
+
+    @Autowired
+    private UserBulkRepository userBulkRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAllInBatch();
+    }
+
+    private List<User> users(int count) throws Exception {
+        JsonNode users = objectMapper.readTree(UserFixtures.payload(count)).get("users");
+        return objectMapper.convertValue(users,
+                objectMapper.getTypeFactory().constructCollectionType(List.class, User.class));
+    }
+
+    @Test
+    void upsertReportsInsertsThenUpdates() throws Exception {
+        List<User> users = users(600);
+
+        BulkWriteResult first = userBulkRepository.upsert(users);
+        assertThat(first.getInserted()).isEqualTo(600);
+        assertThat(first.getUpdated()).isZero();
+
+        users.get(0).setRole("auditor");
+        users.get(0).getCompany().getAddress().setCity("Tucson");
+        BulkWriteResult second = userBulkRepository.upsert(users);
+        assertThat(second.getInserted()).isZero();
+        assertThat(second.getUpdated()).isEqualTo(600);
+
+        User reloaded = userRepository.findById(users.get(0).getId()).orElseThrow();
+        assertThat(reloaded.getRole()).isEqualTo("auditor");
+        assertThat(reloaded.getCompany().getAddress().getCity()).isEqualTo("Tucson");
+        assertThat(reloaded.getAddress().getCoordinates().getLat())
+                .isEqualTo(users.get(0).getAddress().getCoordinates().getLat());
+        assertThat(userRepository.count()).isEqualTo(600);
+    }
+
+    @Test
+    void writesAroundRowsThatTakeAnotherUsersUniqueValue() throws Exception {
+        List<User> users = users(4);
+        userBulkRepository.upsert(users.subList(0, 3));
+
+        // User 2 takes user 1's email before user 1 gives it up; user 4 takes user 3's username for good.
+        User second = users.get(1);
+        User first = users.get(0);
+        User fourth = users.get(3);
+        String firstEmail = first.getEmail();
+        second.setEmail(firstEmail);
+        first.setEmail("moved1@x.dummyjson.com");
+        fourth.setUsername(users.get(2).getUsername());
+        BulkWriteResult result = userBulkRepository.upsert(List.of(second, first, fourth));
+
+        assertThat(result.getInserted()).isZero();
+        assertThat(result.getUpdated()).isEqualTo(2);
+        assertThat(userRepository.findById(1L).orElseThrow().getEmail()).isEqualTo("moved1@x.dummyjson.com");
+        assertThat(userRepository.findById(2L).orElseThrow().getEmail()).isEqualTo(firstEmail);
+        assertThat(userRepository.findById(4L)).isEmpty();
+    }
+
+    @Test
+    void repeatReadsComeFromTheSecondLevelCacheUntilAnUpsert() throws Exception {
+        List<User> users = users(10);
+        userBulkRepository.upsert(users);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long entityHits = statistics.getDomainDataRegionStatistics(User.CACHE_REGION).getHitCount();
+        long queryHits = statistics.getQueryCacheHitCount();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(userRepository.findById(3L)).isPresent();
+            assertThat(userRepository.findBySsn(users.get(4).getSsn())).isPresent();
+        }
+        assertThat(statistics.getDomainDataRegionStatistics(User.CACHE_REGION).getHitCount())
+                .isGreaterThanOrEqualTo(entityHits + 2);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(queryHits + 2);
+
+        users.get(2).setRole("auditor");
+        users.get(4).setRole("auditor");
+        userBulkRepository.upsert(users);
+
+        assertThat(userRepository.findById(3L).orElseThrow().getRole()).isEqualTo("auditor");
+        assertThat(userRepository.findBySsn(users.get(4).getSsn()).orElseThrow().getRole()).isEqualTo("auditor");
+    }
+
+    @Test
+    void upsertIsFasterThanSaveAll() throws Exception {
+        List<User> users = users(2_000);
+
+        // Warm up both paths so the comparison is not dominated by class loading.
+        userRepository.saveAll(users.subList(0, 200));
+        userBulkRepository.upsert(users.subList(0, 200));
+        userRepository.deleteAllInBatch();
+
+        long start = System.nanoTime();
+        userRepository.saveAll(users);
+        long saveAllNanos = System.nanoTime() - start;
+        userRepository.deleteAllInBatch();
+
+        start = System.nanoTime();
+        BulkWriteResult result = userBulkRepository.upsert(users);
+        long upsertNanos = System.nanoTime() - start;
+
+        log.info("Wrote {} users: saveAll {} ms, bulk upsert {} ms ({}x).", users.size(),
+                saveAllNanos / 1_000_000, upsertNanos / 1_000_000,
+                String.format("%.1f", (double) saveAllNanos / upsertNanos));
+        assertThat(result.getInserted()).isEqualTo(users.size());
+        assertThat(userRepository.count()).isEqualTo(users.size());
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.userapi.service;
+
+import com.example.userapi.event.UsersLoadedEvent;
+import com.example.userapi.repository.DatasetVersionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DatasetVersionTest {
+
+    private final DatasetVersionRepository repository = mock(DatasetVersionRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final DatasetVersion datasetVersion = new DatasetVersion(repository, eventPublisher, Duration.ZERO);
+
+    @Test
+    void neverGoesBackToTheTagFromBeforeALoadItFailedToRecord() {
+        when(repository.find()).thenReturn(1_000L);
+        datasetVersion.refresh();
+        String before = datasetVersion.current();
+        assertThat(before).isEqualTo(Long.toString(1_000L, 36));
+
+        when(repository.advance(anyLong()))
+                .thenThrow(new DataAccessResourceFailureException("connection refused"))
+                .thenReturn(2_000L);
+        datasetVersion.advance();
+        assertThat(datasetVersion.current()).isNotEqualTo(before);
+
+        // The stored version still names the data from before the load; the next check retries the advance.
+        datasetVersion.refresh();
+        assertThat(datasetVersion.current()).isEqualTo(Long.toString(2_000L, 36));
+        verify(repository, times(2)).advance(anyLong());
+
+        datasetVersion.refresh();
+        assertThat(datasetVersion.current()).isEqualTo(Long.toString(2_000L, 36));
+        verify(eventPublisher, never()).publishEvent(any(UsersLoadedEvent.class));
+    }
+
+    @Test
+    void keepsItsOwnTagWhileTheAdvanceKeepsFailing() {
+        when(repository.find()).thenReturn(1_000L);
+        datasetVersion.refresh();
+        String before = datasetVersion.current();
+        when(repository.advance(anyLong())).thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        datasetVersion.advance();
+        datasetVersion.refresh();
+        datasetVersion.refresh();
+
+        assertThat(datasetVersion.current()).isNotEqualTo(before).startsWith("boot-");
+        verify(repository, times(3)).advance(anyLong());
+    }
+}
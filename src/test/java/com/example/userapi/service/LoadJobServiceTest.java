@@ -0,0 +1,75 @@
+package com.example.userapi.service;
+
+import com.example.userapi.dto.LoadJobStatus;
+import com.example.userapi.dto.LoadJobStatus.State;
+import com.example.userapi.service.ingest.IngestionProgress;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LoadJobServiceTest {
+
+    private final UserService userService = mock(UserService.class);
+    private final LoadJobService loadJobService = new LoadJobService(userService, WorkerThreads.platform(), 5);
+
+    @AfterEach
+    void shutdown() {
+        loadJobService.shutdown();
+    }
+
+    @Test
+    void runsOneLoadAtATimeAndReportsProgress() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(userService.loadUsers(any(), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return ((IngestionProgress) invocation.getArgument(0)).snapshot();
+        });
+
+        LoadJobStatus first = loadJobService.submit(LoadMode.FULL);
+        LoadJobStatus second = loadJobService.submit(LoadMode.FULL);
+        assertThat(second.getJobId()).isEqualTo(first.getJobId());
+        assertThat(second.getState()).isIn(State.QUEUED, State.RUNNING);
+
+        release.countDown();
+        LoadJobStatus done = awaitDone(first.getJobId());
+        assertThat(done.getState()).isEqualTo(State.SUCCEEDED);
+        assertThat(done.getProgress()).isNotNull();
+        assertThat(done.getFinishedAt()).isAfterOrEqualTo(done.getStartedAt());
+        verify(userService, times(1)).loadUsers(any(), any());
+
+        assertThat(loadJobService.submit(LoadMode.FULL).getJobId()).isNotEqualTo(first.getJobId());
+    }
+
+    @Test
+    void reportsFailures() throws Exception {
+        when(userService.loadUsers(any(), any())).thenThrow(new RuntimeException("API request failed. Please try again later."));
+
+        LoadJobStatus done = awaitDone(loadJobService.submit(LoadMode.FULL).getJobId());
+
+        assertThat(done.getState()).isEqualTo(State.FAILED);
+        assertThat(done.getError()).isEqualTo("API request failed. Please try again later.");
+        assertThat(loadJobService.getStatus("unknown")).isEmpty();
+    }
+
+    private LoadJobStatus awaitDone(String jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (System.nanoTime() < deadline) {
+            LoadJobStatus status = loadJobService.getStatus(jobId).orElseThrow();
+            if (status.getState() == State.SUCCEEDED || status.getState() == State.FAILED) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Load job " + jobId + " did not finish");
+    }
+}
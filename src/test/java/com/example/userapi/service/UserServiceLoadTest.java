@@ -0,0 +1,196 @@
+package com.example.userapi.service;
+
+import com.example.userapi.event.UsersLoadedEvent;
+import com.example.userapi.model.User;
+import com.example.userapi.repository.UserRepository;
+import com.example.userapi.service.ingest.IngestionProgress;
+import com.example.userapi.service.ingest.IngestionResult;
+import com.example.userapi.support.UserFixtures;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@RecordApplicationEvents
+class UserServiceLoadTest {
+
+    private static final HttpServer UPSTREAM = startUpstream();
+    private static final Path IMPORTS = createImportDirectory();
+    private static volatile long total = 300;
+    private static volatile boolean renameUser7;
+    private static volatile Runnable onFetch = () -> { };
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DynamicPropertySource
+    static void upstreamUrl(DynamicPropertyRegistry registry) {
+        registry.add("external.api.users.url",
+                () -> "http://127.0.0.1:" + UPSTREAM.getAddress().getPort() + "/users");
+        registry.add("users.import.directory", IMPORTS::toString);
+    }
+
+    private static Path createImportDirectory() {
+        try {
+            return Files.createTempDirectory("user-imports");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static HttpServer startUpstream() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/users", exchange -> {
+                Map<String, String> query = UriComponentsBuilder.fromUri(exchange.getRequestURI()).build()
+                        .getQueryParams().toSingleValueMap();
+                onFetch.run();
+                String page = UserFixtures.pageJson(total, Long.parseLong(query.get("skip")), Long.parseLong(query.get("limit")));
+                if (renameUser7) {
+                    page = page.replace("\"username\":\"user7\"", "\"username\":\"user7-renamed\"");
+                }
+                byte[] body = page.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @AfterAll
+    static void stopUpstream() throws IOException {
+        UPSTREAM.stop(0);
+        FileSystemUtils.deleteRecursively(IMPORTS);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAllInBatch();
+        total = 300;
+        renameUser7 = false;
+        onFetch = () -> { };
+    }
+
+    @Test
+    void findsUsersWrittenAroundThisInstanceWithTheDefaultKeyFilterSetting() {
+        userService.loadUsers(new IngestionProgress(), LoadMode.FULL);
+        // As another instance or an outside writer would: no write or load events reach this one.
+        User written = UserFixtures.users(objectMapper, 302).get(301);
+        userRepository.save(written);
+
+        assertThat(userService.getUserById(written.getId(), false).getUsername()).isEqualTo(written.getUsername());
+        assertThat(userService.getUserBySSN(written.getSsn(), false).getId()).isEqualTo(written.getId());
+    }
+
+    @Test
+    void deltaLoadWritesOnlyChangesAndDeletesMissingUsers() {
+        IngestionResult full = userService.loadUsers(new IngestionProgress(), LoadMode.FULL);
+        assertThat(full.getUsersInserted()).isEqualTo(300);
+
+        IngestionResult unchanged = userService.loadUsers(new IngestionProgress(), LoadMode.DELTA);
+        assertThat(unchanged.getUsersInserted()).isZero();
+        assertThat(unchanged.getUsersUpdated()).isZero();
+        assertThat(unchanged.getUsersUnchanged()).isEqualTo(300);
+        assertThat(unchanged.getUsersDeleted()).isZero();
+
+        total = 290;
+        renameUser7 = true;
+        IngestionResult changed = userService.loadUsers(new IngestionProgress(), LoadMode.DELTA);
+        assertThat(changed.getUsersUpdated()).isEqualTo(1);
+        assertThat(changed.getUsersUnchanged()).isEqualTo(289);
+        assertThat(changed.getUsersDeleted()).isEqualTo(10);
+        assertThat(userRepository.count()).isEqualTo(290);
+        assertThat(userRepository.findById(7L).orElseThrow().getUsername()).isEqualTo("user7-renamed");
+
+        UsersLoadedEvent event = events.stream(UsersLoadedEvent.class).reduce((first, second) -> second).orElseThrow();
+        assertThat(event.isDelta()).isTrue();
+        assertThat(event.getChangedIds()).containsExactly(7L);
+        assertThat(event.getDeletedIds()).containsExactlyInAnyOrderElementsOf(
+                LongStream.rangeClosed(291, 300).boxed().collect(Collectors.toList()));
+    }
+
+    @Test
+    void deltaLoadKeepsUsersWrittenElsewhereWhileItRuns() {
+        userService.loadUsers(new IngestionProgress(), LoadMode.FULL);
+        User outsider = UserFixtures.users(objectMapper, 400).get(399);
+        onFetch = () -> {
+            if (!userRepository.existsById(outsider.getId())) {
+                userRepository.save(outsider);
+            }
+        };
+
+        total = 290;
+        IngestionResult result = userService.loadUsers(new IngestionProgress(), LoadMode.DELTA);
+
+        assertThat(result.getUsersDeleted()).isEqualTo(10);
+        assertThat(userRepository.existsById(outsider.getId())).isTrue();
+        assertThat(userRepository.count()).isEqualTo(291);
+    }
+
+    @Test
+    void deltaLoadIntoEmptyTableInsertsEverything() {
+        IngestionResult result = userService.loadUsers(new IngestionProgress(), LoadMode.DELTA);
+
+        assertThat(result.getUsersInserted()).isEqualTo(300);
+        assertThat(result.getUsersUnchanged()).isZero();
+        assertThat(userRepository.count()).isEqualTo(300);
+    }
+
+    @Test
+    void importsALocalDumpLikeALoad() throws IOException {
+        Files.writeString(IMPORTS.resolve("users.ndjson"), LongStream.rangeClosed(1, 300)
+                .mapToObj(UserFixtures::userJson).collect(Collectors.joining("\n")));
+
+        Path file = userService.resolveImportFile("users.ndjson", 0, LoadMode.FULL);
+        IngestionResult result = userService.importUsers(new IngestionProgress(), LoadMode.FULL, file, 0);
+
+        assertThat(result.getUsersInserted()).isEqualTo(300);
+        assertThat(result.getCommittedOffset()).isEqualTo(Files.size(file));
+        assertThat(userRepository.count()).isEqualTo(300);
+        assertThat(events.stream(UsersLoadedEvent.class).reduce((first, second) -> second).orElseThrow().isSuccessful())
+                .isTrue();
+        assertThatThrownBy(() -> userService.resolveImportFile("users.ndjson", 10, LoadMode.DELTA))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+}
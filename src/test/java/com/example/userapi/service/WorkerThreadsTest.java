@@ -0,0 +1,41 @@
+package com.example.userapi.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIf;
+import org.junit.jupiter.api.condition.EnabledIf;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WorkerThreadsTest {
+
+    @Test
+    @DisabledIf("com.example.userapi.service.WorkerThreads#virtualThreadsSupported")
+    void refusesVirtualThreadsOnAJvmWithoutThem() {
+        assertThatThrownBy(() -> new WorkerThreads(true))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("users.threads.virtual");
+    }
+
+    @Test
+    @EnabledIf("com.example.userapi.service.WorkerThreads#virtualThreadsSupported")
+    void handsOutVirtualThreadsWhenEnabled() throws Exception {
+        CompletableFuture<Thread> ranOn = new CompletableFuture<>();
+        Thread thread = new WorkerThreads(true).factory("worker-").newThread(() -> ranOn.complete(Thread.currentThread()));
+        thread.start();
+
+        assertThat(isVirtual(ranOn.get(5, TimeUnit.SECONDS))).isTrue();
+        assertThat(thread.getName()).isEqualTo("worker-1");
+        assertThat(isVirtual(WorkerThreads.platform().factory("worker-").newThread(() -> { }))).isFalse();
+    }
+
+    /**
+     * {@code Thread.isVirtual()}, which the Java 17 build cannot call directly.
+     */
+    static boolean isVirtual(Thread thread) throws ReflectiveOperationException {
+        return (boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.userapi.service.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GeoGridIndexTest {
+
+    private static final int POINTS = 20_000;
+    private static final double[][] COORDINATES = new double[POINTS][];
+    private static final GeoGridIndex INDEX;
+
+    static {
+        Random random = new Random(42);
+        for (int i = 0; i < POINTS; i++) {
+            COORDINATES[i] = new double[] {random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180};
+        }
+        INDEX = GeoGridIndex.build(2.0, sink -> {
+            for (int i = 0; i < POINTS; i++) {
+                sink.accept(i + 1, COORDINATES[i][0], COORDINATES[i][1]);
+            }
+        });
+    }
+
+    @Test
+    void radiusQueriesMatchAFullScan() {
+        assertRadius(40.7, -74.0, 500);
+        assertRadius(0, 179.5, 800);     // across the antimeridian
+        assertRadius(88.5, 10, 600);     // over the pole
+        assertRadius(-60, -30, 3_000);
+    }
+
+    @Test
+    void nearestMatchesAFullScan() {
+        for (double[] point : new double[][] {{51.5, -0.1}, {-89.9, 0}, {10, -179.9}}) {
+            List<Long> expected = scan(point[0], point[1]).limit(25).collect(Collectors.toList());
+            assertThat(ids(INDEX.nearest(point[0], point[1], 25))).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void boxQueriesMatchAFullScanAndPageById() {
+        long[] expected = LongStream.rangeClosed(1, POINTS)
+                .filter(id -> {
+                    double[] p = COORDINATES[(int) id - 1];
+                    return p[0] >= -10 && p[0] <= 20 && (p[1] >= 170 || p[1] <= -160);
+                })
+                .toArray();
+        assertThat(expected).hasSizeGreaterThan(100);
+
+        // Crosses the antimeridian (minLng > maxLng); read it back 50 ids at a time.
+        LongStream.Builder paged = LongStream.builder();
+        long after = Long.MIN_VALUE;
+        long[] page;
+        do {
+            page = INDEX.withinBox(-10, 170, 20, -160, after, 50);
+            LongStream.of(page).forEach(paged::add);
+            after = page.length == 0 ? after : page[page.length - 1];
+        } while (page.length == 50);
+        assertThat(paged.build().toArray()).isEqualTo(expected);
+    }
+
+    private static void assertRadius(double lat, double lng, double radiusKm) {
+        List<Long> expected = scan(lat, lng)
+                .filter(id -> distance(lat, lng, id) <= radiusKm)
+                .collect(Collectors.toList());
+        assertThat(expected).isNotEmpty();
+        assertThat(ids(INDEX.withinRadius(lat, lng, radiusKm, POINTS))).isEqualTo(expected);
+    }
+
+    private static Stream<Long> scan(double lat, double lng) {
+        return IntStream.rangeClosed(1, POINTS).mapToObj(id -> (long) id)
+                .sorted(Comparator.<Long>comparingDouble(id -> distance(lat, lng, id)).thenComparing(id -> id));
+    }
+
+    private static double distance(double lat, double lng, long id) {
+        double[] p = COORDINATES[(int) id - 1];
+        return GeoGridIndex.haversineKm(lat, lng, p[0], p[1]);
+    }
+
+    private static List<Long> ids(List<GeoHit> hits) {
+        return hits.stream().map(GeoHit::getUserId).collect(Collectors.toList());
+    }
+}
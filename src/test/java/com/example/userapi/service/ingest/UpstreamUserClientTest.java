@@ -0,0 +1,175 @@
+package com.example.userapi.service.ingest;
+
+import com.example.userapi.config.AppConfig;
+import com.example.userapi.support.UserFixtures;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UpstreamUserClientTest {
+
+    /** Canned stub behaviours, consumed one per request; once empty, requests succeed. */
+    private final Queue<String> script = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile String lastAcceptEncoding;
+    private HttpServer server;
+    private CloseableHttpClient httpClient;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/users", this::handle);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() throws IOException {
+        server.stop(0);
+        if (httpClient != null) {
+            httpClient.close();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        lastAcceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        String action = script.poll();
+        if (action != null && action.startsWith("status:")) {
+            if (action.equals("status:429")) {
+                exchange.getResponseHeaders().add("Retry-After", "0");
+            }
+            exchange.sendResponseHeaders(Integer.parseInt(action.substring(7)), -1);
+            exchange.close();
+            return;
+        }
+        if ("slow".equals(action)) {
+            sleep(1_000);
+        }
+        byte[] body = UserFixtures.pageJson(3, 0, 3).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        if (lastAcceptEncoding != null && lastAcceptEncoding.contains("gzip")) {
+            exchange.getResponseHeaders().add("Content-Encoding", "gzip");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = new GZIPOutputStream(exchange.getResponseBody())) {
+                out.write(body);
+            }
+        } else {
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private UpstreamUserClient client(CircuitBreaker circuitBreaker) {
+        AppConfig config = new AppConfig();
+        httpClient = config.upstreamHttpClient(4, Duration.ofSeconds(1), Duration.ofSeconds(30),
+                Duration.ofMillis(500), Duration.ofMillis(300));
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/users";
+        return new UpstreamUserClient(config.restTemplate(new RestTemplateBuilder(), httpClient, circuitBreaker,
+                3, Duration.ofMillis(10), Duration.ofMillis(50)), Jackson2ObjectMapperBuilder.json().build(), url);
+    }
+
+    private UpstreamUserClient client() {
+        return client(new CircuitBreaker(100, Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void negotiatesAndDecompressesGzip() {
+        UserPage page = client().fetchPage(0, 3);
+
+        assertThat(lastAcceptEncoding).contains("gzip");
+        assertThat(page.getUsers()).hasSize(3);
+        assertThat(page.getTotal()).isEqualTo(3);
+    }
+
+    @Test
+    void retriesServerErrorsAndThrottling() {
+        script.add("status:503");
+        script.add("status:429");
+
+        assertThat(client().fetchPage(0, 3).getUsers()).hasSize(3);
+        assertThat(requests.get()).isEqualTo(3);
+    }
+
+    @Test
+    void retriesAfterReadTimeout() {
+        script.add("slow");
+
+        assertThat(client().fetchPage(0, 3).getUsers()).hasSize(3);
+        assertThat(requests.get()).isEqualTo(2);
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        script.add("status:500");
+        script.add("status:502");
+        script.add("status:503");
+
+        assertThatThrownBy(() -> client().fetchPage(0, 3)).isInstanceOf(HttpServerErrorException.class);
+        assertThat(requests.get()).isEqualTo(3);
+
+        script.add("slow");
+        script.add("slow");
+        script.add("slow");
+        assertThatThrownBy(() -> client().fetchPage(0, 3)).isInstanceOf(ResourceAccessException.class);
+    }
+
+    @Test
+    void doesNotRetryClientErrors() {
+        script.add("status:404");
+
+        assertThatThrownBy(() -> client().fetchPage(0, 3)).isInstanceOf(HttpClientErrorException.class);
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    void opensCircuitAfterConsecutiveFailuresAndRecovers() {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(3, Duration.ofMillis(200));
+        UpstreamUserClient client = client(circuitBreaker);
+        for (int i = 0; i < 3; i++) {
+            script.add("status:503");
+        }
+
+        assertThatThrownBy(() -> client.fetchPage(0, 3)).isInstanceOf(HttpServerErrorException.class);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThatThrownBy(() -> client.fetchPage(0, 3)).isInstanceOf(UpstreamUnavailableException.class);
+        assertThat(requests.get()).isEqualTo(3);
+
+        sleep(250);
+        assertThat(client.fetchPage(0, 3).getUsers()).hasSize(3);
+        assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
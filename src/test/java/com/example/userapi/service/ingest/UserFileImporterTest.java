@@ -0,0 +1,132 @@
+package com.example.userapi.service.ingest;
+
+import com.example.userapi.model.User;
+import com.example.userapi.repository.BulkWriteResult;
+import com.example.userapi.service.WorkerThreads;
+import com.example.userapi.support.UserFixtures;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserFileImporterTest {
+
+    @TempDir
+    Path directory;
+
+    private UserFileImporter importer(String directory, int chunkSize, int parallelism) {
+        UserIngestionPipeline pipeline = new UserIngestionPipeline(null, WorkerThreads.platform(), 100, 1, chunkSize, 2);
+        return new UserFileImporter(pipeline, WorkerThreads.platform(), Jackson2ObjectMapperBuilder.json().build(),
+                directory, chunkSize, parallelism);
+    }
+
+    private Path write(String name, long users, boolean array) throws IOException {
+        String body = LongStream.rangeClosed(1, users).mapToObj(UserFixtures::userJson)
+                .collect(Collectors.joining(array ? ",\n" : "\n", array ? "[\n" : "", array ? "\n]\n" : "\n"));
+        return Files.write(directory.resolve(name), body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void importsNdjsonInParallelRangesAndJsonArrays() throws IOException {
+        // About 4 MB, so the NDJSON file is split into three ranges.
+        Path ndjson = write("users.ndjson", 3_000, false);
+        Path array = write("users.json", 1_000, true);
+        UserFileImporter importer = importer(directory.toString(), 200, 3);
+
+        for (Path file : List.of(ndjson, array)) {
+            List<Long> ids = Collections.synchronizedList(new ArrayList<>());
+            IngestionResult result = importer.importFile(importer.resolve(file.getFileName().toString(), 0), 0, chunk -> {
+                chunk.forEach(user -> ids.add(user.getId()));
+                return new BulkWriteResult(chunk.size(), 0);
+            }, new IngestionProgress());
+
+            long users = file == ndjson ? 3_000 : 1_000;
+            assertThat(ids).hasSize((int) users).doesNotHaveDuplicates();
+            assertThat(result.getUsersInserted()).isEqualTo(users);
+            assertThat(result.getCommittedOffset()).isEqualTo(Files.size(file));
+        }
+    }
+
+    @Test
+    void resumesFromTheCommittedOffsetAfterAFailure() throws IOException {
+        UserFileImporter importer = importer(directory.toString(), 100, 1);
+        for (boolean array : new boolean[]{false, true}) {
+            Path file = write(array ? "users.json" : "users.ndjson", 1_000, array);
+            AtomicInteger chunks = new AtomicInteger();
+            List<Long> ids = new ArrayList<>();
+            IngestionProgress failed = new IngestionProgress();
+
+            assertThatThrownBy(() -> importer.importFile(file, 0, chunk -> {
+                if (chunks.incrementAndGet() == 4) {
+                    throw new IllegalStateException("database down");
+                }
+                chunk.forEach(user -> ids.add(user.getId()));
+                return BulkWriteResult.EMPTY;
+            }, failed)).hasMessage("database down");
+
+            long offset = failed.snapshot().getCommittedOffset();
+            assertThat(offset).isGreaterThan(0).isLessThan(Files.size(file));
+            importer.importFile(importer.resolve(file.getFileName().toString(), offset), offset, chunk -> {
+                chunk.forEach(user -> ids.add(user.getId()));
+                return BulkWriteResult.EMPTY;
+            }, new IngestionProgress());
+
+            assertThat(ids).containsExactlyElementsOf(LongStream.rangeClosed(1, 1_000).boxed().collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void reportsWhereAFileIsMalformed() throws IOException {
+        Path file = directory.resolve("broken.ndjson");
+        String badLine = "{\"id\": oops}\n";
+        Files.write(file, (UserFixtures.userJson(1) + "\n" + badLine).getBytes(StandardCharsets.UTF_8));
+        List<User> users = new ArrayList<>();
+
+        assertThatThrownBy(() -> importer(directory.toString(), 100, 1).importFile(file, 0, chunk -> {
+            users.addAll(chunk);
+            return BulkWriteResult.EMPTY;
+        }, new IngestionProgress()))
+                .hasMessageStartingWith("Invalid user JSON in broken.ndjson at byte ")
+                .satisfies(e -> {
+                    long at = Long.parseLong(e.getMessage().replaceAll(".* at byte (\\d+):.*", "$1"));
+                    assertThat(at).isBetween(Files.size(file) - badLine.length(), Files.size(file));
+                });
+        assertThat(users).isEmpty();
+    }
+
+    @Test
+    void onlyReadsFilesInsideTheImportDirectory() throws IOException {
+        write("users.ndjson", 1, false);
+        Path outside = Files.createTempFile("users", ".ndjson");
+        Files.createSymbolicLink(directory.resolve("link.ndjson"), outside);
+        UserFileImporter importer = importer(directory.toString(), 100, 1);
+
+        assertThat(importer.resolve("users.ndjson", 0)).isEqualTo(directory.resolve("users.ndjson"));
+        assertStatus(() -> importer.resolve("../" + outside.getFileName(), 0), HttpStatus.BAD_REQUEST);
+        assertStatus(() -> importer.resolve("link.ndjson", 0), HttpStatus.BAD_REQUEST);
+        assertStatus(() -> importer.resolve("missing.ndjson", 0), HttpStatus.NOT_FOUND);
+        assertStatus(() -> importer.resolve("users.ndjson", 1 << 20), HttpStatus.BAD_REQUEST);
+        assertStatus(() -> importer("", 100, 1).resolve("users.ndjson", 0), HttpStatus.FORBIDDEN);
+        Files.delete(outside);
+    }
+
+    private static void assertStatus(Runnable call, HttpStatus status) {
+        assertThatThrownBy(call::run).isInstanceOfSatisfying(ResponseStatusException.class,
+                e -> assertThat(e.getStatus()).isEqualTo(status));
+    }
+}
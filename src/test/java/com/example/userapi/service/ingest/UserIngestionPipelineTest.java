@@ -0,0 +1,144 @@
+package com.example.userapi.service.ingest;
+
+import com.example.userapi.model.User;
+import com.example.userapi.repository.BulkWriteResult;
+import com.example.userapi.service.WorkerThreads;
+import com.example.userapi.support.UserFixtures;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class UserIngestionPipelineTest {
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int total = 1_000;
+    private volatile int maxPageSize = Integer.MAX_VALUE;
+    private volatile long failingSkip = -1;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/users", exchange -> {
+            requests.incrementAndGet();
+            Map<String, String> query = UriComponentsBuilder.fromUri(exchange.getRequestURI()).build()
+                    .getQueryParams().toSingleValueMap();
+            long skip = Long.parseLong(query.get("skip"));
+            long limit = Math.min(Long.parseLong(query.get("limit")), maxPageSize);
+            if (skip == failingSkip) {
+                exchange.sendResponseHeaders(503, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = UserFixtures.pageJson(total, skip, limit).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(java.util.concurrent.Executors.newFixedThreadPool(4));
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    private UserIngestionPipeline pipeline(int pageSize, int concurrency, int chunkSize) {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/users";
+        UpstreamUserClient client = new UpstreamUserClient(new RestTemplate(),
+                Jackson2ObjectMapperBuilder.json().build(), url);
+        return new UserIngestionPipeline(client, WorkerThreads.platform(), pageSize, concurrency, chunkSize, 2);
+    }
+
+    @Test
+    void streamsEveryPageIntoFixedSizeChunks() {
+        List<Integer> chunkSizes = Collections.synchronizedList(new ArrayList<>());
+        Set<Long> ids = Collections.synchronizedSet(new HashSet<>());
+
+        IngestionResult result = pipeline(30, 4, 64).run(chunk -> {
+            chunkSizes.add(chunk.size());
+            chunk.forEach(user -> ids.add(user.getId()));
+            return new BulkWriteResult(chunk.size(), 0);
+        });
+
+        assertThat(ids).hasSize(1_000);
+        assertThat(result.getExpectedUsers()).isEqualTo(1_000);
+        assertThat(result.getUsersWritten()).isEqualTo(1_000);
+        assertThat(result.getUsersInserted()).isEqualTo(1_000);
+        assertThat(result.getPagesFetched()).isEqualTo(34);
+        assertThat(chunkSizes.subList(0, chunkSizes.size() - 1)).containsOnly(64);
+        assertThat(chunkSizes.get(chunkSizes.size() - 1)).isEqualTo(1_000 % 64);
+    }
+
+    @Test
+    void parsesNestedObjectsAndUnpaddedDates() {
+        total = 2;
+        List<User> users = Collections.synchronizedList(new ArrayList<>());
+
+        pipeline(10, 1, 10).run(chunk -> {
+            users.addAll(chunk);
+            return BulkWriteResult.EMPTY;
+        });
+
+        User user = users.stream().filter(u -> u.getId() == 2).findFirst().orElseThrow();
+        assertThat(user.getBirthDate()).isEqualTo(LocalDate.of(1952, 3, 3));
+        assertThat(user.getAddress().getCoordinates()).isNotNull();
+        assertThat(user.getCompany().getAddress().getState()).isNotBlank();
+        assertThat(user.getSsn()).isEqualTo(UserFixtures.ssn(2));
+    }
+
+    @Test
+    void followsUpstreamPageCap() {
+        maxPageSize = 25;
+        AtomicInteger written = new AtomicInteger();
+
+        IngestionResult result = pipeline(100, 3, 100).run(chunk -> {
+            written.addAndGet(chunk.size());
+            return BulkWriteResult.EMPTY;
+        });
+
+        assertThat(written.get()).isEqualTo(1_000);
+        assertThat(result.getPagesFetched()).isEqualTo(40);
+    }
+
+    @Test
+    void propagatesUpstreamFailure() {
+        failingSkip = 500;
+
+        assertThatThrownBy(() -> pipeline(100, 4, 100).run(chunk -> BulkWriteResult.EMPTY))
+                .isInstanceOf(HttpServerErrorException.class);
+    }
+
+    @Test
+    void propagatesWriterFailureWithoutDeadlock() {
+        total = 5_000;
+
+        assertThatThrownBy(() -> pipeline(50, 4, 50).run(chunk -> {
+            throw new IllegalStateException("database down");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("database down");
+    }
+}
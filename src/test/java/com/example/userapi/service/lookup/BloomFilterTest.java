@@ -0,0 +1,65 @@
+package com.example.userapi.service.lookup;
+
+import com.example.userapi.support.UserFixtures;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    private static final int KEYS = 100_000;
+
+    @Test
+    void neverMissesAnAddedKeyAndStaysNearItsFalsePositiveRate() {
+        BloomFilter ids = new BloomFilter(KEYS, 0.01);
+        BloomFilter ssns = new BloomFilter(KEYS, 0.01);
+        for (long id = 1; id <= KEYS; id++) {
+            ids.add(BloomFilter.hash(id));
+            ssns.add(BloomFilter.hash(UserFixtures.ssn(id)));
+        }
+
+        int idHits = 0;
+        int ssnHits = 0;
+        for (long id = 1; id <= KEYS; id++) {
+            assertThat(ids.mightContain(BloomFilter.hash(id))).isTrue();
+            assertThat(ssns.mightContain(BloomFilter.hash(UserFixtures.ssn(id)))).isTrue();
+            idHits += ids.mightContain(BloomFilter.hash(id + KEYS)) ? 1 : 0;
+            ssnHits += ssns.mightContain(BloomFilter.hash(UserFixtures.ssn(id + KEYS))) ? 1 : 0;
+        }
+
+        // 9.6 bits and 7 probes per key; sequential ids and near-identical SSNs must not defeat the hash.
+        assertThat(ids.sizeInBytes()).isBetween(119_000L, 121_000L);
+        assertThat(ids.probes()).isEqualTo(7);
+        assertThat((double) idHits / KEYS).isBetween(0.005, 0.015);
+        assertThat((double) ssnHits / KEYS).isBetween(0.005, 0.015);
+        assertThat(ids.expectedFalsePositiveRate()).isBetween(0.008, 0.012);
+    }
+
+    @Test
+    void keepsEveryKeyAddedConcurrently() throws Exception {
+        BloomFilter filter = new BloomFilter(KEYS, 0.01);
+        ExecutorService threads = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> adds = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                long first = t;
+                adds.add(threads.submit(() -> LongStream.iterate(first, id -> id < KEYS, id -> id + 4)
+                        .forEach(id -> filter.add(BloomFilter.hash(id)))));
+            }
+            for (Future<?> add : adds) {
+                add.get();
+            }
+        } finally {
+            threads.shutdown();
+        }
+
+        assertThat(LongStream.range(0, KEYS).allMatch(id -> filter.mightContain(BloomFilter.hash(id)))).isTrue();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.userapi.service.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserSearchIndexTest {
+
+    private static final UserSearchIndex INDEX = UserSearchIndex.build(sink -> {
+        sink.accept(new SearchDocument(1, "Emily", "Johnson", "emilys", "emily.johnson@x.dummyjson.com", "Dooley"));
+        sink.accept(new SearchDocument(2, "Michael", "Williams", "michaelw", "michael.williams@x.dummyjson.com", "Emily Corp"));
+        sink.accept(new SearchDocument(3, "Sophia", "Brown", "sophiab", "sophia.brown@x.dummyjson.com", null));
+    });
+
+    @Test
+    void ranksNameMatchesAboveCompanyMatches() {
+        assertThat(ids(INDEX.search("emily", Integer.MAX_VALUE, Long.MIN_VALUE, 10))).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void matchesPrefixesAndTypos() {
+        assertThat(ids(INDEX.search("soph bro", Integer.MAX_VALUE, Long.MIN_VALUE, 10))).containsExactly(3L);
+        assertThat(ids(INDEX.search("wiliams", Integer.MAX_VALUE, Long.MIN_VALUE, 10))).containsExactly(2L);
+        assertThat(ids(INDEX.search("xyz", Integer.MAX_VALUE, Long.MIN_VALUE, 10))).isEmpty();
+    }
+
+    @Test
+    void appliesChangesWithoutTouchingTheOriginal() {
+        UserSearchIndex changed = INDEX.withChanges(
+                List.of(new SearchDocument(3, "Sophia", "Garcia", "sophiag", "sophia.garcia@x.dummyjson.com", null),
+                        new SearchDocument(4, "Emma", "Brown", "emmab", "emma.brown@x.dummyjson.com", null)),
+                Set.of(1L));
+
+        assertThat(ids(changed.search("brown", Integer.MAX_VALUE, Long.MIN_VALUE, 10))).containsExactly(4L);
+        assertThat(ids(changed.search("emily", Integer.MAX_VALUE, Long.MIN_VALUE, 10))).containsExactly(2L);
+        assertThat(ids(INDEX.search("brown", Integer.MAX_VALUE, Long.MIN_VALUE, 10))).containsExactly(3L);
+        assertThat(changed.size()).isEqualTo(3);
+    }
+
+    @Test
+    void boundsEditDistance() {
+        assertThat(UserSearchIndex.withinEdits("jonhson", "johnson", 1)).isTrue();
+        assertThat(UserSearchIndex.withinEdits("jonson", "johnson", 1)).isTrue();
+        assertThat(UserSearchIndex.withinEdits("jansen", "johnson", 2)).isFalse();
+    }
+
+    private static List<Long> ids(List<SearchHit> hits) {
+        return hits.stream().map(SearchHit::getUserId).collect(Collectors.toList());
+    }
+}
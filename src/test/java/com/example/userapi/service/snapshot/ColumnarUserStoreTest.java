@@ -0,0 +1,104 @@
+package com.example.userapi.service.snapshot;
+
+import com.example.userapi.model.Address;
+import com.example.userapi.model.Coordinates;
+import com.example.userapi.model.User;
+import com.example.userapi.support.UserFixtures;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ColumnarUserStoreTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(new JavaTimeModule());
+    private static final List<User> USERS = UserFixtures.users(MAPPER, 500);
+
+    @Test
+    void materializesEveryUserAsLoaded() throws Exception {
+        ColumnarUserStore store = build(new ColumnarUserStore.Builder(false, ColumnarUserStore.MAX_DICTIONARY_SIZE));
+
+        assertThat(store.isDictionaryEncoded("gender")).isTrue();
+        assertThat(store.isDictionaryEncoded("role")).isTrue();
+        assertMaterializesUsers(store);
+    }
+
+    @Test
+    void materializesFromUtf8BuffersOnAndOffHeap() throws Exception {
+        // A two-value dictionary pushes every other string column into a UTF-8 buffer part way through.
+        ColumnarUserStore onHeap = build(new ColumnarUserStore.Builder(false, 2));
+        ColumnarUserStore offHeap = build(new ColumnarUserStore.Builder(true, 2));
+
+        assertThat(onHeap.isDictionaryEncoded("gender")).isTrue();
+        assertThat(onHeap.isDictionaryEncoded("first_name")).isFalse();
+        assertThat(onHeap.offHeapBytes()).isZero();
+        assertThat(offHeap.offHeapBytes()).isPositive();
+        assertThat(offHeap.heapBytes()).isLessThan(onHeap.heapBytes());
+        assertMaterializesUsers(onHeap);
+        assertMaterializesUsers(offHeap);
+    }
+
+    @Test
+    void keepsNullsApartFromZerosAndEmptyStrings() {
+        User sparse = new User();
+        sparse.setId(1L);
+        sparse.setFirstName("");
+        sparse.setAddress(new Address());
+        sparse.getAddress().setCoordinates(new Coordinates());
+        sparse.getAddress().getCoordinates().setLat(0.0);
+        User dated = new User();
+        dated.setId(2L);
+        dated.setFirstName("Ünal");
+        dated.setBirthDate(LocalDate.of(1970, 1, 1));
+
+        ColumnarUserStore store = new ColumnarUserStore.Builder(false, 1).add(sparse).add(dated).build();
+
+        User first = store.materialize(0);
+        assertThat(first.getFirstName()).isEmpty();
+        assertThat(first.getLastName()).isNull();
+        assertThat(first.getBirthDate()).isNull();
+        assertThat(first.getAddress().getCoordinates().getLat()).isZero();
+        assertThat(first.getCompany().getAddress().getCoordinates()).isNull();
+        User second = store.materialize(1);
+        assertThat(second.getFirstName()).isEqualTo("Ünal");
+        assertThat(second.getBirthDate()).isEqualTo(LocalDate.of(1970, 1, 1));
+        assertThat(second.getAddress().getCoordinates()).isNull();
+    }
+
+    @Test
+    void indexesRowsInsteadOfObjects() {
+        User duplicate = MAPPER.convertValue(USERS.get(0), User.class);
+        duplicate.setId(1_000L);
+        List<User> users = new ArrayList<>(USERS);
+        users.add(duplicate);
+        UserSnapshot snapshot = new UserSnapshot(users, Instant.now());
+
+        assertThat(snapshot.bySsn(UserFixtures.ssn(42)).getId()).isEqualTo(42L);
+        assertThat(snapshot.byUsername(USERS.get(0).getUsername()).getId()).isEqualTo(1L);
+        assertThat(snapshot.byEmail("nobody@example.com")).isNull();
+        assertThat(snapshot.byId(1_000L).getSsn()).isEqualTo(UserFixtures.ssn(1));
+        assertThat(snapshot.byId(999L)).isNull();
+        assertThat(snapshot.page(499L, 5)).extracting(User::getId).containsExactly(500L, 1_000L);
+        // Each read builds its own objects.
+        assertThat(snapshot.byId(7L)).isNotSameAs(snapshot.byId(7L));
+    }
+
+    private static ColumnarUserStore build(ColumnarUserStore.Builder builder) {
+        USERS.forEach(builder::add);
+        return builder.build();
+    }
+
+    private static void assertMaterializesUsers(ColumnarUserStore store) throws Exception {
+        assertThat(store.size()).isEqualTo(USERS.size());
+        for (int row = 0; row < USERS.size(); row++) {
+            assertThat(MAPPER.writeValueAsString(store.materialize(row)))
+                    .isEqualTo(MAPPER.writeValueAsString(USERS.get(row)));
+        }
+    }
+}
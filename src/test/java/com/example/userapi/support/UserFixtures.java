@@ -0,0 +1,141 @@
+package com.example.userapi.support;
+
+import com.example.userapi.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates users in the shape served by dummyjson.com/users, deterministically by id.
+ */
+public final class UserFixtures {
+
+    private static final String[] ROLES = {"admin", "moderator", "user"};
+    private static final String[] GENDERS = {"female", "male"};
+    private static final String[] BLOOD_GROUPS = {"O-", "O+", "A-", "A+", "B-", "B+", "AB-", "AB+"};
+    private static final String[] EYE_COLORS = {"Green", "Brown", "Blue", "Gray", "Amber", "Hazel"};
+    private static final String[] DEPARTMENTS = {"Engineering", "Support", "Marketing", "Legal", "Sales"};
+    private static final String[] STATES = {"Mississippi", "Texas", "Ohio", "Alabama", "Florida", "Colorado"};
+    private static final String[] FIRST_NAMES = {"Emily", "Michael", "Sophia", "James", "Emma", "Olivia", "Liam"};
+    private static final String[] LAST_NAMES = {"Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller"};
+
+    private UserFixtures() {
+    }
+
+    /**
+     * A single user object; birth dates alternate between padded and unpadded forms like the real API.
+     */
+    public static String userJson(long id) {
+        int i = (int) (id % 1_000_003);
+        int year = 1950 + i % 55;
+        int month = 1 + i % 12;
+        int day = 1 + i % 28;
+        String birthDate = (id % 2 == 0)
+                ? year + "-" + month + "-" + day
+                : String.format("%d-%02d-%02d", year, month, day);
+        double lat = -80 + (i * 7919L % 160_000) / 1000d;
+        double lng = -170 + (i * 104_729L % 340_000) / 1000d;
+
+        StringBuilder sb = new StringBuilder(1400);
+        sb.append("{\"id\":").append(id)
+          .append(",\"firstName\":\"").append(FIRST_NAMES[i % FIRST_NAMES.length]).append('"')
+          .append(",\"lastName\":\"").append(LAST_NAMES[i % LAST_NAMES.length]).append('"')
+          .append(",\"maidenName\":\"Smith\"")
+          .append(",\"age\":").append(2024 - year)
+          .append(",\"gender\":\"").append(GENDERS[i % 2]).append('"')
+          .append(",\"email\":\"user").append(id).append("@x.dummyjson.com\"")
+          .append(",\"phone\":\"+81 965-431-").append(String.format("%04d", i % 10_000)).append('"')
+          .append(",\"username\":\"user").append(id).append('"')
+          .append(",\"password\":\"pass").append(id).append('"')
+          .append(",\"birthDate\":\"").append(birthDate).append('"')
+          .append(",\"image\":\"https://dummyjson.com/icon/user").append(id).append("/128\"")
+          .append(",\"bloodGroup\":\"").append(BLOOD_GROUPS[i % BLOOD_GROUPS.length]).append('"')
+          .append(",\"height\":").append(150 + i % 50).append(".24")
+          .append(",\"weight\":").append(50 + i % 60).append(".16")
+          .append(",\"eyeColor\":\"").append(EYE_COLORS[i % EYE_COLORS.length]).append('"')
+          .append(",\"hair\":{\"color\":\"Brown\",\"type\":\"Curly\"}")
+          .append(",\"ip\":\"42.48.").append(i % 256).append('.').append(i / 256 % 256).append('"')
+          .append(",\"address\":").append(address(i, lat, lng))
+          .append(",\"macAddress\":\"47:fa:41:18:ec:eb\"")
+          .append(",\"university\":\"University of Wisconsin--Madison\"")
+          .append(",\"bank\":{\"cardExpire\":\"03/26\",\"cardNumber\":\"92897606554").append(String.format("%05d", i % 100_000))
+          .append("\",\"cardType\":\"Elo\",\"currency\":\"CNY\",\"iban\":\"YPUXISOBI7TTHPK2BR3HAIXL\"}")
+          .append(",\"company\":{\"department\":\"").append(DEPARTMENTS[i % DEPARTMENTS.length])
+          .append("\",\"name\":\"Dooley, Kozey and Cronin\",\"title\":\"Sales Manager\",\"address\":")
+          .append(address(i + 1, -lat, -lng)).append('}')
+          .append(",\"ein\":\"977-175\"")
+          .append(",\"ssn\":\"").append(ssn(id)).append('"')
+          .append(",\"userAgent\":\"Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36\"")
+          .append(",\"crypto\":{\"coin\":\"Bitcoin\",\"wallet\":\"0xb9fc2fe63b2a6c003f1c324c3bfa53259162181a\",\"network\":\"Ethereum (ERC20)\"}")
+          .append(",\"role\":\"").append(ROLES[i % ROLES.length]).append('"')
+          .append('}');
+        return sb.toString();
+    }
+
+    public static String ssn(long id) {
+        return String.format("%03d-%03d-%03d", id / 1_000_000 % 1000, id / 1000 % 1000, id % 1000);
+    }
+
+    /**
+     * A {@code {"users": [...], "total", "skip", "limit"}} page over ids {@code 1..total}.
+     */
+    public static String pageJson(long total, long skip, long limit) {
+        long end = Math.min(total, skip + limit);
+        StringBuilder sb = new StringBuilder("{\"users\":[");
+        for (long id = skip + 1; id <= end; id++) {
+            if (id > skip + 1) {
+                sb.append(',');
+            }
+            sb.append(userJson(id));
+        }
+        return sb.append("],\"total\":").append(total)
+                .append(",\"skip\":").append(skip)
+                .append(",\"limit\":").append(Math.max(0, end - skip))
+                .append('}').toString();
+    }
+
+    /**
+     * The whole payload in a single page, as bytes. Written user by user so large payloads
+     * never exist as one giant String.
+     */
+    public static byte[] payload(int users) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, (int) Math.min(Integer.MAX_VALUE - 8, users * 1450L)));
+        out.writeBytes("{\"users\":[".getBytes(StandardCharsets.UTF_8));
+        for (long id = 1; id <= users; id++) {
+            if (id > 1) {
+                out.write(',');
+            }
+            out.writeBytes(userJson(id).getBytes(StandardCharsets.UTF_8));
+        }
+        out.writeBytes(("],\"total\":" + users + ",\"skip\":0,\"limit\":" + users + "}").getBytes(StandardCharsets.UTF_8));
+        return out.toByteArray();
+    }
+
+    /**
+     * Users {@code 1..count}, parsed one at a time with the given mapper.
+     */
+    public static List<User> users(ObjectMapper objectMapper, int count) {
+        ObjectReader reader = objectMapper.readerFor(User.class);
+        List<User> users = new ArrayList<>(count);
+        try {
+            for (long id = 1; id <= count; id++) {
+                users.add(reader.readValue(userJson(id)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return users;
+    }
+
+    private static String address(int i, double lat, double lng) {
+        return "{\"address\":\"" + (100 + i % 900) + " Main Street\",\"city\":\"Phoenix\",\"state\":\""
+                + STATES[i % STATES.length] + "\",\"stateCode\":\"MS\",\"postalCode\":\"" + (10000 + i % 90000)
+                + "\",\"coordinates\":{\"lat\":" + lat + ",\"lng\":" + lng + "},\"country\":\"United States\"}";
+    }
+}